@@ -0,0 +1,28 @@
+package com.aicv.airesume.config;
+
+import com.aicv.airesume.service.task.ExecutionMode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 线程模式配置类
+ * 虚拟线程模式下，Tomcat请求处理也运行在虚拟线程上
+ */
+@Slf4j
+@Configuration
+public class ExecutionModeConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "interview.execution.mode", havingValue = "virtual")
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutionMode executionMode) {
+        return protocolHandler -> {
+            if (executionMode.isVirtual()) {
+                protocolHandler.setExecutor(executionMode.newThreadPerTaskExecutor("tomcat-handler-"));
+                log.info("Tomcat请求处理已切换到虚拟线程");
+            }
+        };
+    }
+}
@@ -0,0 +1,92 @@
+package com.aicv.airesume.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * 大模型HTTP客户端配置类
+ * 为DeepSeek调用提供独立的连接池，复用长连接并统一设置超时
+ */
+@Configuration
+public class LlmHttpClientConfig {
+
+    @Value("${deepseek.http.max-connections:200}")
+    private int maxConnections;
+
+    @Value("${deepseek.http.pending-acquire-max-count:500}")
+    private int pendingAcquireMaxCount;
+
+    @Value("${deepseek.http.pending-acquire-timeout-ms:10000}")
+    private long pendingAcquireTimeoutMs;
+
+    @Value("${deepseek.http.max-idle-time-seconds:30}")
+    private long maxIdleTimeSeconds;
+
+    @Value("${deepseek.http.max-life-time-seconds:300}")
+    private long maxLifeTimeSeconds;
+
+    @Value("${deepseek.http.connect-timeout-ms:5000}")
+    private int connectTimeoutMs;
+
+    @Value("${deepseek.http.read-timeout-seconds:60}")
+    private long readTimeoutSeconds;
+
+    @Value("${deepseek.http.max-in-memory-size:2097152}")
+    private int maxInMemorySize;
+
+    @Value("${deepseek.http.http2-enabled:true}")
+    private boolean http2Enabled;
+
+    @Value("${deepseek.http.compress:true}")
+    private boolean compress;
+
+    /**
+     * DeepSeek专用连接池，空闲连接在后台定期回收
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider deepSeekConnectionProvider() {
+        return ConnectionProvider.builder("deepseek")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofSeconds(maxIdleTimeSeconds))
+                .maxLifeTime(Duration.ofSeconds(maxLifeTimeSeconds))
+                .evictInBackground(Duration.ofSeconds(maxIdleTimeSeconds))
+                .metrics(true)
+                .build();
+    }
+
+    /**
+     * DeepSeek专用WebClient
+     * responseTimeout 是每次读取之间的空闲超时（包括等待首字节），即流式响应中两次数据之间的最大间隔；
+     * 持续有数据返回的请求不受其限制，整次调用的截止时间由调用方在响应流上设置
+     */
+    @Bean
+    public WebClient deepSeekWebClient(ConnectionProvider deepSeekConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(deepSeekConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(Duration.ofSeconds(readTimeoutSeconds))
+                .compress(compress)
+                .metrics(true, Function.identity());
+        if (http2Enabled) {
+            // 通过ALPN协商，服务端不支持HTTP/2时回退到HTTP/1.1
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(maxInMemorySize))
+                .build();
+    }
+}
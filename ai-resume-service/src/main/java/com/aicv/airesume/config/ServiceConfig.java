@@ -1,10 +1,14 @@
 package com.aicv.airesume.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 /**
  * 服务配置类
  */
@@ -15,13 +19,23 @@ import org.springframework.web.client.RestTemplate;
     "com.aicv.airesume.repository"
 })
 public class ServiceConfig {
+
+    @Value("${http.client.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${http.client.read-timeout-ms:10000}")
+    private long readTimeoutMs;
     
     /**
      * 配置RestTemplate Bean，用于调用微信API
+     * 通过RestTemplateBuilder创建，类路径中存在Apache HttpClient时自动使用其连接池
      * @return RestTemplate实例
      */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(RestTemplateBuilder builder) {
+        return builder
+                .setConnectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .setReadTimeout(Duration.ofMillis(readTimeoutMs))
+                .build();
     }
 }
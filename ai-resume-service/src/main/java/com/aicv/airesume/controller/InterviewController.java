@@ -22,6 +22,8 @@ import com.aicv.airesume.exception.BusinessException;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.bind.annotation.*;
 import com.aicv.airesume.model.dto.StartReportRequest;
 import java.util.List;
@@ -150,7 +152,7 @@ public class InterviewController {
         if (request.getSessionId() == null || request.getSessionId().isEmpty()) {
             return BaseResponseVO.error("缺少必要参数: sessionId");
         }
-        String reportId = interviewService.startReportGeneration(request.getSessionId(), request.getLastAnswer());
+        String reportId = interviewService.startReportGeneration(request.getSessionId(), request.getLastAnswer(), request.getFormat());
         return BaseResponseVO.success(reportId);
     }
 
@@ -166,16 +168,48 @@ public class InterviewController {
         return BaseResponseVO.success(result);
     }
 
+    /**
+     * 推送报告分片（流式输出），替代轮询获取报告分片
+     * @param reportId 报告ID
+     * @param lastIndex 最后接收的分片索引，断线重连时也可通过Last-Event-ID请求头传递
+     * @param lastEventId 浏览器断线重连时自动携带的最后事件ID
+     * @return SSE响应流
+     */
+    @GetMapping(value = "/report-stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamReportChunks(@RequestParam String reportId,
+                                         @RequestParam(defaultValue = "-1") int lastIndex,
+                                         @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        try {
+            if (lastEventId != null && lastEventId.matches("\\d+")) {
+                lastIndex = Math.max(lastIndex, Integer.parseInt(lastEventId));
+            }
+            return interviewService.streamReportChunks(reportId, lastIndex);
+        } catch (Exception e) {
+            log.error("推送报告分片失败", e);
+            SseEmitter emitter = new SseEmitter();
+            emitter.completeWithError(e);
+            return emitter;
+        }
+    }
+
     /**
      * 获取面试历史列表
+     * @param cursor 上一页返回的游标，第一页不传
+     * @param size 每页条数，不传时返回全部
      * @return 面试历史列表
      */
     @GetMapping("/history")
-    public BaseResponseVO getInterviewHistoryList() {
+    public BaseResponseVO getInterviewHistoryList(@RequestParam(required = false) String cursor,
+                                                  @RequestParam(required = false) Integer size) {
         try {
             Long userId = GlobalContextUtil.getUserId();
-            List<InterviewHistoryVO> histories = interviewService.getInterviewHistory(userId);
-            InterviewHistoryListVO result = new InterviewHistoryListVO(histories);
+            InterviewHistoryListVO result;
+            if (size != null) {
+                result = interviewService.getInterviewHistory(userId, cursor, size);
+            } else {
+                List<InterviewHistoryVO> histories = interviewService.getInterviewHistory(userId);
+                result = new InterviewHistoryListVO(histories);
+            }
             return BaseResponseVO.success(result);
         } catch (BusinessException e) {
             return BaseResponseVO.error(e.getMessage());
@@ -235,6 +269,29 @@ public class InterviewController {
         }
     }
     
+    /**
+     * 分页获取面试记录，按轮次游标分页，流式输出JSON
+     * @param sessionId 会话ID
+     * @param cursor 上一页返回的游标，第一页不传
+     * @param size 每页轮次数
+     * @param fields 返回字段：questions（只返回问题）或 all（问题和回答）
+     * @return 面试记录
+     */
+    @GetMapping(value = "/transcript/{sessionId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getTranscript(@PathVariable String sessionId,
+                                           @RequestParam(required = false) Integer cursor,
+                                           @RequestParam(defaultValue = "20") int size,
+                                           @RequestParam(defaultValue = "all") String fields) {
+        try {
+            boolean withAnswers = !"questions".equalsIgnoreCase(fields);
+            StreamingResponseBody body = interviewService.streamTranscript(sessionId, cursor, size, withAnswers);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        } catch (Exception e) {
+            log.error("Get interview transcript failed:", e);
+            return ResponseEntity.ok(BaseResponseVO.error("获取面试记录失败：" + e.getMessage()));
+        }
+    }
+    
     /**
      * 保存面试报告
      * @param request 请求数据
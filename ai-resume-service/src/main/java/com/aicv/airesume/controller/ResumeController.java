@@ -6,8 +6,10 @@ import com.aicv.airesume.exception.BusinessException;
 import com.aicv.airesume.model.dto.ResumeDataDTO;
 import com.aicv.airesume.model.vo.BaseResponseVO;
 import com.aicv.airesume.service.ResumeService;
+import com.aicv.airesume.service.resume.ResumeAggregate;
 import com.aicv.airesume.utils.GlobalContextUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
@@ -64,17 +66,18 @@ public class ResumeController {
      * 统一接口，合并了基础信息和完整数据的获取
      * @param resumeId 简历ID
      * @param fullData 是否返回完整数据（默认false）
-     * @return 简历信息
+     * @return 简历信息；完整数据带ETag，请求头If-None-Match与之相同时返回304
      */
     @Log(description = "获取简历详情", recordParams = true, recordResult = true)
     @GetMapping("/{resumeId}")
-    public Object getResume(@PathVariable Long resumeId, @RequestParam(required = false, defaultValue = "false") boolean fullData) {
+    public ResponseEntity<?> getResume(@PathVariable Long resumeId, @RequestParam(required = false, defaultValue = "false") boolean fullData) {
         if (fullData) {
             // 返回完整数据，包含所有关联信息
-            return resumeService.getResumeFullData(resumeId);
+            ResumeAggregate resumeAggregate = resumeService.getResumeAggregate(resumeId);
+            return ResponseEntity.ok().eTag(eTag(resumeAggregate)).body(resumeAggregate.toMap());
         } else {
             // 返回基础简历信息
-            return resumeService.getResumeById(resumeId);
+            return ResponseEntity.ok(resumeService.getResumeById(resumeId));
         }
     }
 
@@ -160,13 +163,23 @@ public class ResumeController {
     
     /**
      * 获取用户最新的简历数据
-     * @return 最新简历的完整数据
+     * @return 最新简历的完整数据；带ETag，请求头If-None-Match与之相同时返回304
      */
     @GetMapping("/getLatest")
-    public BaseResponseVO getLatestResumeData() {
+    public ResponseEntity<BaseResponseVO> getLatestResumeData() {
         Long userId = GlobalContextUtil.getUserId();
         
-        Map<String, Object> result = resumeService.getLatestResumeData(userId);
-        return BaseResponseVO.success(result);
+        ResumeAggregate latest = resumeService.getLatestResumeAggregate(userId);
+        if (latest == null) {
+            return ResponseEntity.ok(BaseResponseVO.success(null));
+        }
+        return ResponseEntity.ok().eTag(eTag(latest)).body(BaseResponseVO.success(latest.toMap()));
+    }
+
+    /**
+     * 简历完整数据的强ETag，由简历ID和版本号组成，简历或个人信息修改后改变
+     */
+    private static String eTag(ResumeAggregate resumeAggregate) {
+        return "\"resume-" + resumeAggregate.getResumeId() + "-" + resumeAggregate.getVersion() + "\"";
     }
 }
\ No newline at end of file
@@ -313,7 +313,7 @@ public class UserController {
             }
             
             // 获取用户的面试数量
-            long interviewCount = interviewService.getInterviewHistory(user.getId()).size();
+            long interviewCount = interviewService.countInterviews(user.getId());
             data.put("interviewCount", interviewCount);
             
             response.put("success", true);
@@ -12,7 +12,9 @@ import java.time.LocalDateTime;
  */
 @Data
 @Entity
-@Table(name = "interview_log")
+@Table(name = "interview_log", indexes = {
+        @Index(name = "idx_interview_log_session_round", columnList = "session_id, round_number")
+})
 public class InterviewLog {
 
     @Id
@@ -44,6 +46,9 @@ public class InterviewLog {
     @Column(name = "expected_key_points", columnDefinition = "text")
     private String expectedKeyPoints; // 期望的关键点，JSON格式存储
 
+    @Column(name = "prompt_tokens")
+    private Integer promptTokens; // 生成该问题时发送的提示词估算token数
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -12,7 +12,9 @@ import java.time.LocalDateTime;
  */
 @Data
 @Entity
-@Table(name = "interview_session")
+@Table(name = "interview_session", indexes = {
+        @Index(name = "idx_interview_session_user_created", columnList = "user_id, created_at")
+})
 public class InterviewSession {
 
     @Id
@@ -66,9 +68,21 @@ public class InterviewSession {
     @Column(name = "persona_prompt", columnDefinition = "text")
     private String personaPrompt; // 面试官风格提示词
     
-    // 新增字段 - 存储简历内容
+    // 新增字段 - 存储简历内容（旧数据，新会话通过resumeContentHash引用简历快照，由迁移任务清空）
     @Column(name = "resume_content", columnDefinition = "longtext")
     private String resumeContent;
+
+    // 简历文本的SHA-256哈希，引用resume_snapshot表中的简历快照
+    @Column(name = "resume_content_hash", length = 64)
+    private String resumeContentHash;
+
+    // 早期轮次问答的滚动摘要，用于控制长面试的上下文长度
+    @Column(name = "transcript_summary", columnDefinition = "text")
+    private String transcriptSummary;
+
+    // 滚动摘要已覆盖到的轮次号
+    @Column(name = "summary_round_number")
+    private Integer summaryRoundNumber;
   
      @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
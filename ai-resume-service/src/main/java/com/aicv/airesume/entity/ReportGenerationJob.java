@@ -0,0 +1,55 @@
+package com.aicv.airesume.entity;
+
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 报告生成任务实体类
+ * 保存生成中报告的检查点（已生成内容和内容块边界），用于重启后恢复以及多节点之间接管
+ */
+@Data
+@Entity
+@Table(name = "report_generation_job", indexes = {
+        @Index(name = "idx_report_job_status_heartbeat", columnList = "status, heartbeat_at")
+})
+public class ReportGenerationJob {
+
+    @Id
+    @Column(name = "report_id", nullable = false, length = 64)
+    private String reportId;
+
+    @Column(name = "session_id", nullable = false, length = 100)
+    private String sessionId;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status; // GENERATING, COMPLETED, FAILED
+
+    @Column(name = "format", length = 20)
+    private String format; // MARKDOWN, JSON
+
+    // 已生成的报告内容
+    @Column(name = "content", columnDefinition = "longtext")
+    private String content;
+
+    // 各内容块的结束偏移，逗号分隔
+    @Column(name = "chunk_ends", columnDefinition = "text")
+    private String chunkEnds;
+
+    @Column(name = "error_message", length = 500)
+    private String errorMessage;
+
+    // 负责生成该报告的节点
+    @Column(name = "owner_node", nullable = false, length = 100)
+    private String ownerNode;
+
+    // 负责节点最近一次写入检查点的时间，超过租约未更新时由其他节点接管
+    @Column(name = "heartbeat_at", nullable = false)
+    private LocalDateTime heartbeatAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -12,7 +12,9 @@ import java.util.Date;
  */
 @Data
 @Entity
-@Table(name = "resume_education")
+@Table(name = "resume_education", indexes = {
+        @Index(name = "idx_resume_education_resume_order", columnList = "resume_id, order_index")
+})
 public class ResumeEducation {
 
     @Id
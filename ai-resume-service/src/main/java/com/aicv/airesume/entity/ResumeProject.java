@@ -12,7 +12,9 @@ import java.util.Date;
  */
 @Data
 @Entity
-@Table(name = "resume_project")
+@Table(name = "resume_project", indexes = {
+        @Index(name = "idx_resume_project_resume_order", columnList = "resume_id, order_index")
+})
 public class ResumeProject {
 
     @Id
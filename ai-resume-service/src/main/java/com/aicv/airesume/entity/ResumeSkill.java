@@ -12,7 +12,9 @@ import java.util.Date;
  */
 @Data
 @Entity
-@Table(name = "resume_skill")
+@Table(name = "resume_skill", indexes = {
+        @Index(name = "idx_resume_skill_resume_order", columnList = "resume_id, order_index")
+})
 public class ResumeSkill {
 
     @Id
@@ -0,0 +1,35 @@
+package com.aicv.airesume.entity;
+
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 简历快照实体类
+ * 按内容寻址保存面试使用的简历文本：主键为文本的SHA-256哈希，内容以GZIP压缩存储，
+ * 同一份简历文本只保存一次，面试会话通过哈希引用
+ */
+@Data
+@Entity
+@Table(name = "resume_snapshot")
+public class ResumeSnapshot {
+
+    @Id
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    // GZIP压缩后的简历文本（UTF-8）
+    @Lob
+    @Column(name = "content", nullable = false, columnDefinition = "mediumblob")
+    private byte[] content;
+
+    // 压缩前的字符数
+    @Column(name = "content_length", nullable = false)
+    private Integer contentLength;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
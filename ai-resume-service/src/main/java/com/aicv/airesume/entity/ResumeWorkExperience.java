@@ -12,7 +12,9 @@ import java.util.Date;
  */
 @Data
 @Entity
-@Table(name = "resume_work_experience")
+@Table(name = "resume_work_experience", indexes = {
+        @Index(name = "idx_resume_work_experience_resume_order", columnList = "resume_id, order_index")
+})
 public class ResumeWorkExperience {
 
     @Id
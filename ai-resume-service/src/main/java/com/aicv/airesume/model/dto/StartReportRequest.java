@@ -19,4 +19,9 @@ public class StartReportRequest {
      */
     private String lastAnswer = "";
     
+    /**
+     * 报告格式（可选）：markdown或json，为空时使用服务端默认格式
+     */
+    private String format;
+    
 }
\ No newline at end of file
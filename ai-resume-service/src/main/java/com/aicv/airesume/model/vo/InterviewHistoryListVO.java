@@ -8,6 +8,9 @@ import java.util.List;
 public class InterviewHistoryListVO {
     
     private List<InterviewHistoryVO> histories;
+
+    // 下一页游标，没有更多时为null
+    private String nextCursor;
     
     public InterviewHistoryListVO() {}
     
@@ -22,4 +25,12 @@ public class InterviewHistoryListVO {
     public void setHistories(List<InterviewHistoryVO> histories) {
         this.histories = histories;
     }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.aicv.airesume.service.ReportGenerationService.ReportChunk;
 import lombok.Data;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 报告内容块VO类
@@ -35,4 +36,14 @@ public class ReportChunksVO {
      * 错误信息（当状态为FAILED时）
      */
     private String errorMessage;
+    
+    /**
+     * 报告格式：markdown或json
+     */
+    private String format;
+    
+    /**
+     * 已生成完整的报告字段（json格式）
+     */
+    private Map<String, Object> fields;
 }
\ No newline at end of file
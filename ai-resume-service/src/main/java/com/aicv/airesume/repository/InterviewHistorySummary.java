@@ -0,0 +1,31 @@
+package com.aicv.airesume.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * 面试历史摘要投影
+ * 只包含历史列表需要的会话字段、报告总分和问题数，不加载简历内容和对话记录
+ */
+public interface InterviewHistorySummary {
+
+    Long getId();
+
+    String getSessionId();
+
+    String getJobName();
+
+    String getStatus();
+
+    LocalDateTime getStartTime();
+
+    LocalDateTime getEndTime();
+
+    LocalDateTime getCreatedAt();
+
+    /**
+     * 报告总分，尚未生成报告时为null
+     */
+    Double getTotalScore();
+
+    Long getQuestionCount();
+}
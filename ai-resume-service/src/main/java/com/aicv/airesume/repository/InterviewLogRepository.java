@@ -1,7 +1,10 @@
 package com.aicv.airesume.repository;
 
 import com.aicv.airesume.entity.InterviewLog;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -34,6 +37,33 @@ public interface InterviewLogRepository extends JpaRepository<InterviewLog, Long
      */
     List<InterviewLog> findBySessionIdOrderByRoundNumberDesc(String sessionId);
 
+    /**
+     * 按轮次游标分页查询面试记录的问题（键集分页）
+     * @param sessionId 会话ID
+     * @param afterRound 上一页最后一轮的轮次号，第一页传0
+     * @param pageable 分页大小
+     * @return 问题列表，按轮次升序
+     */
+    @Query("select l.id as id, l.roundNumber as roundNumber, l.questionText as questionText, l.createdAt as createdAt " +
+            "from InterviewLog l where l.sessionId = :sessionId and l.roundNumber > :afterRound order by l.roundNumber asc")
+    List<InterviewTranscriptQuestion> findTranscriptQuestions(@Param("sessionId") String sessionId,
+                                                              @Param("afterRound") Integer afterRound,
+                                                              Pageable pageable);
+
+    /**
+     * 按轮次游标分页查询面试记录的问题和回答（键集分页）
+     * @param sessionId 会话ID
+     * @param afterRound 上一页最后一轮的轮次号，第一页传0
+     * @param pageable 分页大小
+     * @return 问题和回答列表，按轮次升序
+     */
+    @Query("select l.id as id, l.roundNumber as roundNumber, l.questionText as questionText, " +
+            "l.userAnswerText as userAnswerText, l.createdAt as createdAt " +
+            "from InterviewLog l where l.sessionId = :sessionId and l.roundNumber > :afterRound order by l.roundNumber asc")
+    List<InterviewTranscriptRound> findTranscriptRounds(@Param("sessionId") String sessionId,
+                                                        @Param("afterRound") Integer afterRound,
+                                                        Pageable pageable);
+
     /**
      * 根据会话ID和轮次查找日志
      * @param sessionId 会话ID
@@ -1,9 +1,15 @@
 package com.aicv.airesume.repository;
 
 import com.aicv.airesume.entity.InterviewSession;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,6 +33,84 @@ public interface InterviewSessionRepository extends JpaRepository<InterviewSessi
      */
     List<InterviewSession> findByUserIdOrderByCreatedAtDesc(Long userId);
 
+    /**
+     * 根据会话ID查询会话摘要，不加载文本字段
+     * @param sessionId 会话ID
+     * @return 会话摘要
+     */
+    Optional<InterviewSessionSummary> findSummaryBySessionId(String sessionId);
+
+    /**
+     * 根据用户ID和状态查询会话摘要列表，按创建时间倒序
+     * @param userId 用户ID
+     * @param status 状态
+     * @return 会话摘要列表
+     */
+    List<InterviewSessionSummary> findSummariesByUserIdAndStatusOrderByCreatedAtDesc(Long userId, String status);
+
+    /**
+     * 根据会话ID查询生成问题和提交回答需要的字段
+     * @param sessionId 会话ID
+     * @return 面试问答投影
+     */
+    Optional<InterviewSessionStreamView> findStreamViewBySessionId(String sessionId);
+
+    /**
+     * 查询旧会话中保存的简历全文，只在会话没有简历快照时使用
+     * @param sessionId 会话ID
+     * @return 简历全文
+     */
+    @Query("select s.resumeContent from InterviewSession s where s.sessionId = :sessionId")
+    Optional<String> findResumeContentBySessionId(@Param("sessionId") String sessionId);
+
+    /**
+     * 查询会话计时状态
+     * @param sessionId 会话ID
+     * @return 计时状态
+     */
+    @Query("select s.sessionSeconds as sessionSeconds, s.sessionTimeRemaining as sessionTimeRemaining, s.startTime as startTime " +
+            "from InterviewSession s where s.sessionId = :sessionId")
+    Optional<SessionClockState> findClockStateBySessionId(@Param("sessionId") String sessionId);
+
+    /**
+     * 统计用户的会话数
+     * @param userId 用户ID
+     * @return 会话数
+     */
+    long countByUserId(Long userId);
+
+    /**
+     * 查询用户面试历史的第一页：会话摘要、报告总分和问题数一次查出，按创建时间倒序
+     * @param userId 用户ID
+     * @param pageable 分页大小，不分页时使用Pageable.unpaged()
+     * @return 面试历史摘要
+     */
+    @Query("select s.id as id, s.sessionId as sessionId, s.jobName as jobName, s.status as status, " +
+            "s.startTime as startTime, s.endTime as endTime, s.createdAt as createdAt, r.totalScore as totalScore, " +
+            "(select count(l) from InterviewLog l where l.sessionId = s.sessionId) as questionCount " +
+            "from InterviewSession s left join InterviewReport r on r.sessionId = s.sessionId " +
+            "where s.userId = :userId order by s.createdAt desc, s.id desc")
+    List<InterviewHistorySummary> findHistorySummaries(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * 按游标查询用户面试历史的下一页（键集分页），游标为上一页最后一条的创建时间和ID
+     * @param userId 用户ID
+     * @param createdAt 游标创建时间
+     * @param id 游标会话主键
+     * @param pageable 分页大小
+     * @return 面试历史摘要
+     */
+    @Query("select s.id as id, s.sessionId as sessionId, s.jobName as jobName, s.status as status, " +
+            "s.startTime as startTime, s.endTime as endTime, s.createdAt as createdAt, r.totalScore as totalScore, " +
+            "(select count(l) from InterviewLog l where l.sessionId = s.sessionId) as questionCount " +
+            "from InterviewSession s left join InterviewReport r on r.sessionId = s.sessionId " +
+            "where s.userId = :userId and (s.createdAt < :createdAt or (s.createdAt = :createdAt and s.id < :id)) " +
+            "order by s.createdAt desc, s.id desc")
+    List<InterviewHistorySummary> findHistorySummariesBefore(@Param("userId") Long userId,
+                                                             @Param("createdAt") LocalDateTime createdAt,
+                                                             @Param("id") Long id,
+                                                             Pageable pageable);
+
     /**
      * 根据用户ID和状态查找会话列表
      * @param userId 用户ID
@@ -41,4 +125,62 @@ public interface InterviewSessionRepository extends JpaRepository<InterviewSessi
      */
     void deleteBySessionId(String sessionId);
 
-}
\ No newline at end of file
+    /**
+     * 更新对话滚动摘要
+     * @param sessionId 会话ID
+     * @param transcriptSummary 摘要内容
+     * @param summaryRoundNumber 摘要覆盖到的轮次号
+     * @return 更新的行数
+     */
+    @Transactional
+    @Modifying
+    @Query("update InterviewSession s set s.transcriptSummary = :transcriptSummary, s.summaryRoundNumber = :summaryRoundNumber, " +
+            "s.updatedAt = CURRENT_TIMESTAMP where s.sessionId = :sessionId")
+    int updateTranscriptSummary(@Param("sessionId") String sessionId,
+                                @Param("transcriptSummary") String transcriptSummary,
+                                @Param("summaryRoundNumber") Integer summaryRoundNumber);
+
+    /**
+     * 更新问题数
+     * @param sessionId 会话ID
+     * @param questionCount 问题数
+     * @return 更新的行数
+     */
+    @Transactional
+    @Modifying
+    @Query("update InterviewSession s set s.questionCount = :questionCount, s.updatedAt = CURRENT_TIMESTAMP where s.sessionId = :sessionId")
+    int updateQuestionCount(@Param("sessionId") String sessionId,
+                            @Param("questionCount") Integer questionCount);
+
+    /**
+     * 结束会话：更新状态、结束时间和最终问题数
+     * @param sessionId 会话ID
+     * @param status 状态
+     * @param endTime 结束时间
+     * @param questionCount 问题数
+     * @return 更新的行数
+     */
+    @Transactional
+    @Modifying
+    @Query("update InterviewSession s set s.status = :status, s.endTime = :endTime, s.questionCount = :questionCount, " +
+            "s.updatedAt = CURRENT_TIMESTAMP " +
+            "where s.sessionId = :sessionId")
+    int finish(@Param("sessionId") String sessionId,
+               @Param("status") String status,
+               @Param("endTime") LocalDateTime endTime,
+               @Param("questionCount") Integer questionCount);
+
+    /**
+     * 更新会话引用的简历快照哈希
+     * @param sessionId 会话ID
+     * @param resumeContentHash 简历文本哈希
+     * @return 更新的行数
+     */
+    @Transactional
+    @Modifying
+    @Query("update InterviewSession s set s.resumeContentHash = :resumeContentHash, s.updatedAt = CURRENT_TIMESTAMP " +
+            "where s.sessionId = :sessionId")
+    int updateResumeContentHash(@Param("sessionId") String sessionId,
+                                @Param("resumeContentHash") String resumeContentHash);
+
+}
@@ -0,0 +1,18 @@
+package com.aicv.airesume.repository;
+
+/**
+ * 面试问答投影
+ * 只包含生成问题和提交回答需要的字段，不加载简历全文和对话摘要
+ */
+public interface InterviewSessionStreamView {
+
+    String getSessionId();
+
+    Long getResumeId();
+
+    String getPersonaPrompt();
+
+    String getResumeContentHash();
+
+    Integer getQuestionCount();
+}
@@ -0,0 +1,36 @@
+package com.aicv.airesume.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * 面试会话摘要投影
+ * 只包含会话的基本字段，不加载简历内容、面试官风格提示词和对话摘要等文本字段
+ */
+public interface InterviewSessionSummary {
+
+    Long getId();
+
+    String getSessionId();
+
+    Long getUserId();
+
+    Long getResumeId();
+
+    String getJobName();
+
+    String getStatus();
+
+    String getPersona();
+
+    Integer getSessionSeconds();
+
+    Integer getSessionTimeRemaining();
+
+    Integer getQuestionCount();
+
+    LocalDateTime getStartTime();
+
+    LocalDateTime getEndTime();
+
+    LocalDateTime getCreatedAt();
+}
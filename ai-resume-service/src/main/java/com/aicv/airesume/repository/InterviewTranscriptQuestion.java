@@ -0,0 +1,17 @@
+package com.aicv.airesume.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * 面试记录投影：只包含问题，不加载回答和其他文本字段
+ */
+public interface InterviewTranscriptQuestion {
+
+    Long getId();
+
+    Integer getRoundNumber();
+
+    String getQuestionText();
+
+    LocalDateTime getCreatedAt();
+}
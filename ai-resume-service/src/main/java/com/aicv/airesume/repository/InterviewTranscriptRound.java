@@ -0,0 +1,9 @@
+package com.aicv.airesume.repository;
+
+/**
+ * 面试记录投影：问题和回答
+ */
+public interface InterviewTranscriptRound extends InterviewTranscriptQuestion {
+
+    String getUserAnswerText();
+}
@@ -0,0 +1,91 @@
+package com.aicv.airesume.repository;
+
+import com.aicv.airesume.entity.ReportGenerationJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 报告生成任务数据访问接口
+ */
+@Repository
+public interface ReportGenerationJobRepository extends JpaRepository<ReportGenerationJob, String> {
+
+    /**
+     * 数据库的当前时间，任务租约和心跳都以数据库时钟为准，不受各节点时钟偏差影响
+     */
+    @Query(value = "SELECT CURRENT_TIMESTAMP", nativeQuery = true)
+    Timestamp currentTimestamp();
+
+    /**
+     * 写入检查点，只有当前负责节点可以写入
+     * @return 更新的行数，为0表示任务已被其他节点接管或已结束
+     */
+    @Transactional
+    @Modifying
+    @Query("update ReportGenerationJob j set j.content = :content, j.chunkEnds = :chunkEnds, j.heartbeatAt = CURRENT_TIMESTAMP " +
+            "where j.reportId = :reportId and j.ownerNode = :ownerNode and j.status = 'GENERATING'")
+    int checkpoint(@Param("reportId") String reportId,
+                   @Param("ownerNode") String ownerNode,
+                   @Param("content") String content,
+                   @Param("chunkEnds") String chunkEnds);
+
+    /**
+     * 只更新心跳时间，内容没有变化时使用
+     */
+    @Transactional
+    @Modifying
+    @Query("update ReportGenerationJob j set j.heartbeatAt = CURRENT_TIMESTAMP " +
+            "where j.reportId = :reportId and j.ownerNode = :ownerNode and j.status = 'GENERATING'")
+    int heartbeat(@Param("reportId") String reportId,
+                  @Param("ownerNode") String ownerNode);
+
+    /**
+     * 写入最终结果，只有当前负责节点可以写入
+     */
+    @Transactional
+    @Modifying
+    @Query("update ReportGenerationJob j set j.status = :status, j.errorMessage = :errorMessage, " +
+            "j.content = :content, j.chunkEnds = :chunkEnds, j.heartbeatAt = CURRENT_TIMESTAMP " +
+            "where j.reportId = :reportId and j.ownerNode = :ownerNode and j.status = 'GENERATING'")
+    int finish(@Param("reportId") String reportId,
+               @Param("ownerNode") String ownerNode,
+               @Param("status") String status,
+               @Param("errorMessage") String errorMessage,
+               @Param("content") String content,
+               @Param("chunkEnds") String chunkEnds);
+
+    /**
+     * 查询负责节点已失联（心跳超过租约）的生成中任务
+     * @param staleBefore 由数据库当前时间减去租约得到
+     */
+    @Query("select j.reportId from ReportGenerationJob j where j.status = 'GENERATING' and j.heartbeatAt < :staleBefore order by j.heartbeatAt")
+    List<String> findOrphanedReportIds(@Param("staleBefore") LocalDateTime staleBefore, Pageable pageable);
+
+    /**
+     * 接管失联节点的任务，以心跳时间作为乐观条件，多个节点同时接管时只有一个成功
+     */
+    @Transactional
+    @Modifying
+    @Query("update ReportGenerationJob j set j.ownerNode = :ownerNode, j.heartbeatAt = CURRENT_TIMESTAMP " +
+            "where j.reportId = :reportId and j.status = 'GENERATING' and j.heartbeatAt < :staleBefore")
+    int claim(@Param("reportId") String reportId,
+              @Param("ownerNode") String ownerNode,
+              @Param("staleBefore") LocalDateTime staleBefore);
+
+    /**
+     * 删除指定时间之前已结束的任务
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from ReportGenerationJob j where j.status <> 'GENERATING' and j.heartbeatAt < :before")
+    int deleteFinishedBefore(@Param("before") LocalDateTime before);
+}
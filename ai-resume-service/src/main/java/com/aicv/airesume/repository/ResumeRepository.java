@@ -1,10 +1,14 @@
 package com.aicv.airesume.repository;
 
 import com.aicv.airesume.entity.Resume;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * 简历数据访问接口
@@ -31,4 +35,17 @@ public interface ResumeRepository extends JpaRepository<Resume, Long> {
      * 根据用户ID统计简历数量
      */
     long countByUserId(Long userId);
+
+    /**
+     * 按创建时间倒序查询用户的简历ID
+     */
+    @Query("select r.id from Resume r where r.userId = :userId order by r.createTime desc, r.id desc")
+    List<Long> findIdsByUserIdOrderByCreateTimeDesc(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * 查询简历版本（简历和所属用户的最后修改时间）
+     */
+    @Query("select r.updateTime as resumeUpdateTime, u.updateTime as userUpdateTime from Resume r, User u " +
+            "where r.id = :resumeId and u.id = r.userId")
+    Optional<ResumeVersion> findVersionById(@Param("resumeId") Long resumeId);
 }
@@ -0,0 +1,12 @@
+package com.aicv.airesume.repository;
+
+import com.aicv.airesume.entity.ResumeSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 简历快照数据访问接口
+ */
+@Repository
+public interface ResumeSnapshotRepository extends JpaRepository<ResumeSnapshot, String> {
+}
@@ -0,0 +1,13 @@
+package com.aicv.airesume.repository;
+
+import java.util.Date;
+
+/**
+ * 简历版本投影：简历和所属用户的最后修改时间，任一变化都会改变简历渲染出的文本
+ */
+public interface ResumeVersion {
+
+    Date getResumeUpdateTime();
+
+    Date getUserUpdateTime();
+}
@@ -0,0 +1,15 @@
+package com.aicv.airesume.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * 会话计时状态投影：只包含计时需要的字段，不加载简历内容等大字段
+ */
+public interface SessionClockState {
+
+    Integer getSessionSeconds();
+
+    Integer getSessionTimeRemaining();
+
+    LocalDateTime getStartTime();
+}
@@ -0,0 +1,491 @@
+package com.aicv.airesume.service;
+
+import com.aicv.airesume.entity.InterviewLog;
+import com.aicv.airesume.entity.InterviewSession;
+import com.aicv.airesume.repository.InterviewLogRepository;
+import com.aicv.airesume.repository.InterviewSessionRepository;
+import com.aicv.airesume.service.config.DynamicConfigService;
+import com.aicv.airesume.service.prompt.ResumeSnapshotStore;
+import com.aicv.airesume.service.prompt.TokenEstimator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 面试对话上下文服务
+ * 按sessionId缓存每场面试的系统消息和问答记录，随问题和回答的产生增量追加，
+ * 缓存未命中时从数据库加载。缓存按最近访问淘汰，并有过期时间。
+ * 面试要求、通用规则等全局系统消息不随上下文缓存，每轮从动态配置读取，配置修改对进行中的面试立即生效。
+ */
+@Slf4j
+@Service
+public class ConversationContextService {
+
+    @Value("${interview.context-cache.max-sessions:1000}")
+    private int maxSessions;
+
+    @Value("${interview.context-cache.expire-minutes:120}")
+    private long expireMinutes;
+
+    @Autowired
+    private InterviewSessionRepository sessionRepository;
+
+    @Autowired
+    private InterviewLogRepository logRepository;
+
+    @Autowired
+    private DynamicConfigService dynamicConfigService;
+
+    @Autowired
+    private ResumeSnapshotStore resumeSnapshotStore;
+
+    // 按访问顺序排列的上下文缓存，所有访问都在 synchronized(contexts) 中进行
+    private Map<String, ConversationContext> contexts;
+
+    // 正在从数据库加载的会话，加载期间保存的问答先记在这里，加载完成后补到上下文中；同样在 synchronized(contexts) 中访问
+    private final Map<String, PendingLoad> pendingLoads = new HashMap<>();
+
+    // 最近一次构建的全局系统消息，配置值不变时复用
+    private volatile GlobalMessages globalMessages = GlobalMessages.EMPTY;
+
+    /**
+     * 正在加载的会话及加载期间到达的增量追加
+     */
+    private static class PendingLoad {
+        private int loaders;
+        private final List<Consumer<ConversationContext>> appends = new ArrayList<>();
+    }
+
+    /**
+     * 全局系统消息：面试要求、通用规则，所有会话相同
+     */
+    public static class GlobalMessages {
+        static final GlobalMessages EMPTY = new GlobalMessages(null, null);
+
+        private final String requirements;
+        private final String rules;
+        private final List<Map<String, String>> messages;
+        private final int tokens;
+
+        GlobalMessages(String requirements, String rules) {
+            this.requirements = requirements;
+            this.rules = rules;
+            List<Map<String, String>> list = new ArrayList<>(2);
+            if (StringUtils.hasText(requirements)) {
+                list.add(message("system", requirements));
+            }
+            if (StringUtils.hasText(rules)) {
+                list.add(message("system", rules));
+            }
+            this.messages = Collections.unmodifiableList(list);
+            this.tokens = TokenEstimator.estimateMessages(list);
+        }
+
+        boolean matches(String requirements, String rules) {
+            return Objects.equals(this.requirements, requirements) && Objects.equals(this.rules, rules);
+        }
+
+        public List<Map<String, String>> getMessages() {
+            return messages;
+        }
+
+        public int getTokens() {
+            return tokens;
+        }
+    }
+
+    /**
+     * 一轮问答
+     */
+    private static class Turn {
+        private final int roundNumber;
+        private Map<String, String> questionMessage;
+        private Map<String, String> answerMessage;
+        private int questionTokens;
+        private int answerTokens;
+
+        Turn(int roundNumber) {
+            this.roundNumber = roundNumber;
+        }
+    }
+
+    /**
+     * 一轮问答的只读快照
+     */
+    public static class Round {
+        private final int roundNumber;
+        private final Map<String, String> questionMessage;
+        private final Map<String, String> answerMessage;
+        private final int tokens;
+
+        Round(Turn turn) {
+            this.roundNumber = turn.roundNumber;
+            this.questionMessage = turn.questionMessage;
+            this.answerMessage = turn.answerMessage;
+            this.tokens = turn.questionTokens + turn.answerTokens;
+        }
+
+        public int getRoundNumber() {
+            return roundNumber;
+        }
+
+        public Map<String, String> getQuestionMessage() {
+            return questionMessage;
+        }
+
+        public Map<String, String> getAnswerMessage() {
+            return answerMessage;
+        }
+
+        /**
+         * 本轮问答消息的估算token数
+         */
+        public int getTokens() {
+            return tokens;
+        }
+    }
+
+    /**
+     * 单场面试的对话上下文
+     */
+    public static class ConversationContext {
+        private final String sessionId;
+        private final boolean sessionFound;
+        private final Supplier<GlobalMessages> globalMessages;
+        private final List<Map<String, String>> sessionMessages;
+        private final int sessionTokens;
+        private final List<Turn> turns = new ArrayList<>();
+        private volatile long lastAccessedAt;
+
+        // 滚动摘要，覆盖轮次号不大于 summaryRoundNumber 的问答
+        private volatile String transcriptSummary;
+        private volatile int summaryRoundNumber;
+        private final AtomicBoolean summarizing = new AtomicBoolean(false);
+
+        ConversationContext(String sessionId, boolean sessionFound,
+                            Supplier<GlobalMessages> globalMessages, List<Map<String, String>> sessionMessages) {
+            this.sessionId = sessionId;
+            this.sessionFound = sessionFound;
+            this.globalMessages = globalMessages;
+            this.sessionMessages = Collections.unmodifiableList(sessionMessages);
+            this.sessionTokens = TokenEstimator.estimateMessages(sessionMessages);
+            this.lastAccessedAt = System.currentTimeMillis();
+        }
+
+        public String getSessionId() {
+            return sessionId;
+        }
+
+        public boolean isSessionFound() {
+            return sessionFound;
+        }
+
+        /**
+         * 全局系统消息：面试要求、通用规则，所有会话相同，每次调用读取当前配置；会话不存在时为空
+         */
+        public GlobalMessages getGlobalMessages() {
+            return sessionFound ? globalMessages.get() : GlobalMessages.EMPTY;
+        }
+
+        /**
+         * 会话级系统消息：简历内容
+         */
+        public List<Map<String, String>> getSessionMessages() {
+            return sessionMessages;
+        }
+
+        public int getSessionTokens() {
+            return sessionTokens;
+        }
+
+        /**
+         * 按轮次顺序返回已产生内容的问答快照
+         */
+        public synchronized List<Round> getRounds() {
+            List<Round> rounds = new ArrayList<>(turns.size());
+            for (Turn turn : turns) {
+                if (turn.questionMessage != null || turn.answerMessage != null) {
+                    rounds.add(new Round(turn));
+                }
+            }
+            return rounds;
+        }
+
+        public String getTranscriptSummary() {
+            return transcriptSummary;
+        }
+
+        public int getSummaryRoundNumber() {
+            return summaryRoundNumber;
+        }
+
+        /**
+         * 更新滚动摘要，只接受覆盖更多轮次的摘要
+         */
+        public synchronized void updateSummary(String summary, int roundNumber) {
+            if (roundNumber >= summaryRoundNumber) {
+                this.transcriptSummary = summary;
+                this.summaryRoundNumber = roundNumber;
+            }
+        }
+
+        /**
+         * 标记开始生成摘要，已有摘要任务进行中时返回false
+         */
+        public boolean tryStartSummarizing() {
+            return summarizing.compareAndSet(false, true);
+        }
+
+        public void finishSummarizing() {
+            summarizing.set(false);
+        }
+
+        /**
+         * 按轮次顺序返回问答消息，问题为assistant角色，回答为user角色
+         */
+        public synchronized List<Map<String, String>> getTranscriptMessages() {
+            List<Map<String, String>> messages = new ArrayList<>(turns.size() * 2);
+            for (Turn turn : turns) {
+                if (turn.questionMessage != null) {
+                    messages.add(turn.questionMessage);
+                }
+                if (turn.answerMessage != null) {
+                    messages.add(turn.answerMessage);
+                }
+            }
+            return messages;
+        }
+
+        /**
+         * 最近一个已有问题文本的轮次
+         */
+        public synchronized Integer getLatestQuestionRound() {
+            for (int i = turns.size() - 1; i >= 0; i--) {
+                if (turns.get(i).questionMessage != null) {
+                    return turns.get(i).roundNumber;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * 最近一个尚未生成问题文本的轮次
+         */
+        public synchronized Integer getPendingQuestionRound() {
+            for (int i = turns.size() - 1; i >= 0; i--) {
+                if (turns.get(i).questionMessage == null) {
+                    return turns.get(i).roundNumber;
+                }
+            }
+            return null;
+        }
+
+        synchronized void startRound(int roundNumber) {
+            if (findTurn(roundNumber) == null) {
+                turns.add(new Turn(roundNumber));
+            }
+        }
+
+        synchronized void recordQuestion(int roundNumber, String questionText) {
+            Turn turn = findTurn(roundNumber);
+            if (turn == null) {
+                turn = new Turn(roundNumber);
+                turns.add(turn);
+            }
+            turn.questionMessage = StringUtils.hasText(questionText) ? message("assistant", questionText) : null;
+            turn.questionTokens = turn.questionMessage != null ? TokenEstimator.estimateMessage(questionText) : 0;
+        }
+
+        synchronized void recordAnswer(int roundNumber, String answerText) {
+            Turn turn = findTurn(roundNumber);
+            if (turn != null) {
+                turn.answerMessage = StringUtils.hasText(answerText) ? message("user", answerText) : null;
+                turn.answerTokens = turn.answerMessage != null ? TokenEstimator.estimateMessage(answerText) : 0;
+            }
+        }
+
+        private Turn findTurn(int roundNumber) {
+            for (int i = turns.size() - 1; i >= 0; i--) {
+                if (turns.get(i).roundNumber == roundNumber) {
+                    return turns.get(i);
+                }
+            }
+            return null;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        contexts = new LinkedHashMap<String, ConversationContext>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ConversationContext> eldest) {
+                return size() > maxSessions;
+            }
+        };
+    }
+
+    /**
+     * 获取会话上下文，缓存未命中或已过期时从数据库加载
+     * @param sessionId 会话ID
+     * @return 对话上下文
+     */
+    public ConversationContext getContext(String sessionId) {
+        long now = System.currentTimeMillis();
+        PendingLoad pendingLoad;
+        synchronized (contexts) {
+            ConversationContext context = contexts.get(sessionId);
+            if (context != null && now - context.lastAccessedAt <= expireMinutes * 60 * 1000) {
+                context.lastAccessedAt = now;
+                return context;
+            }
+            // 登记正在加载，加载期间保存的问答记到这里
+            pendingLoad = pendingLoads.computeIfAbsent(sessionId, key -> new PendingLoad());
+            pendingLoad.loaders++;
+        }
+
+        ConversationContext loaded;
+        try {
+            loaded = loadContext(sessionId);
+        } catch (RuntimeException e) {
+            synchronized (contexts) {
+                releasePendingLoad(sessionId, pendingLoad);
+            }
+            throw e;
+        }
+        synchronized (contexts) {
+            releasePendingLoad(sessionId, pendingLoad);
+            // 并发加载时保留先放入的实例，保证增量追加不会丢失
+            ConversationContext existing = contexts.get(sessionId);
+            if (existing != null && now - existing.lastAccessedAt <= expireMinutes * 60 * 1000) {
+                return existing;
+            }
+            // 补上查询日志之后、放入缓存之前保存的问答，已包含的记录重复应用不改变结果
+            for (Consumer<ConversationContext> append : pendingLoad.appends) {
+                append.accept(loaded);
+            }
+            contexts.put(sessionId, loaded);
+            return loaded;
+        }
+    }
+
+    private void releasePendingLoad(String sessionId, PendingLoad pendingLoad) {
+        if (--pendingLoad.loaders == 0) {
+            pendingLoads.remove(sessionId);
+        }
+    }
+
+    /**
+     * 当前的全局系统消息，配置值由DynamicConfigService缓存，值不变时复用已构建的消息
+     */
+    public GlobalMessages getGlobalMessages() {
+        String requirements = dynamicConfigService.getConfigValue("INTERVIEW", "INTERVIEW_REQUIREMENTS").orElse(null);
+        String rules = dynamicConfigService.getConfigValue("INTERVIEW", "GENERAL_RULES").orElse(null);
+        GlobalMessages current = globalMessages;
+        if (!current.matches(requirements, rules)) {
+            current = new GlobalMessages(requirements, rules);
+            globalMessages = current;
+        }
+        return current;
+    }
+
+    /**
+     * 新一轮问题记录已保存
+     */
+    public void onRoundStarted(String sessionId, int roundNumber) {
+        append(sessionId, context -> context.startRound(roundNumber));
+    }
+
+    /**
+     * 问题文本已保存
+     */
+    public void onQuestionSaved(String sessionId, int roundNumber, String questionText) {
+        append(sessionId, context -> context.recordQuestion(roundNumber, questionText));
+    }
+
+    /**
+     * 用户回答已保存
+     */
+    public void onAnswerSaved(String sessionId, int roundNumber, String answerText) {
+        append(sessionId, context -> context.recordAnswer(roundNumber, answerText));
+    }
+
+    /**
+     * 移除会话上下文，下次访问时从数据库重新加载
+     */
+    public void evict(String sessionId) {
+        synchronized (contexts) {
+            contexts.remove(sessionId);
+        }
+    }
+
+    /**
+     * 追加到已缓存的上下文，不触发加载。数据库已先写入，未缓存的上下文下次加载时自然包含最新数据；
+     * 正在加载时先记下，加载完成后补上，避免加载查询之后保存的记录丢失
+     */
+    private void append(String sessionId, Consumer<ConversationContext> append) {
+        ConversationContext context;
+        synchronized (contexts) {
+            context = contexts.get(sessionId);
+            if (context == null) {
+                PendingLoad pendingLoad = pendingLoads.get(sessionId);
+                if (pendingLoad != null) {
+                    pendingLoad.appends.add(append);
+                }
+                return;
+            }
+        }
+        append.accept(context);
+    }
+
+    private ConversationContext loadContext(String sessionId) {
+        List<Map<String, String>> sessionMessages = new ArrayList<>();
+        Optional<InterviewSession> sessionOptional = sessionRepository.findBySessionId(sessionId);
+        if (sessionOptional.isPresent()) {
+            InterviewSession session = sessionOptional.get();
+
+            // 添加简历内容作为系统消息
+            String resumeContent = resumeSnapshotStore.resolve(session);
+            if (StringUtils.hasText(resumeContent)) {
+                sessionMessages.add(message("system", "以下是候选人的完整简历内容：\n" + resumeContent));
+            }
+        }
+
+        ConversationContext context = new ConversationContext(sessionId, sessionOptional.isPresent(),
+                this::getGlobalMessages, sessionMessages);
+        sessionOptional.filter(session -> StringUtils.hasText(session.getTranscriptSummary()))
+                .ifPresent(session -> context.updateSummary(session.getTranscriptSummary(),
+                        session.getSummaryRoundNumber() != null ? session.getSummaryRoundNumber() : 0));
+        List<InterviewLog> interviewLogs = logRepository.findBySessionIdOrderByRoundNumberAsc(sessionId);
+        for (InterviewLog interviewLog : interviewLogs) {
+            context.recordQuestion(interviewLog.getRoundNumber(), interviewLog.getQuestionText());
+            context.recordAnswer(interviewLog.getRoundNumber(), interviewLog.getUserAnswerText());
+        }
+        log.debug("从数据库加载对话上下文，sessionId: {}，轮次: {}", sessionId, interviewLogs.size());
+        return context;
+    }
+
+    /**
+     * 构建一条对话消息
+     */
+    public static Map<String, String> message(String role, String content) {
+        Map<String, String> message = new HashMap<>();
+        message.put("role", role);
+        message.put("content", content);
+        return message;
+    }
+}
@@ -1,12 +1,14 @@
 package com.aicv.airesume.service;
 
 import com.aicv.airesume.model.vo.InterviewHistoryItemVO;
+import com.aicv.airesume.model.vo.InterviewHistoryListVO;
 import com.aicv.airesume.model.vo.InterviewHistoryVO;
 import com.aicv.airesume.model.vo.InterviewReportVO;
 import com.aicv.airesume.model.vo.InterviewResponseVO;
 import com.aicv.airesume.model.vo.InterviewSessionVO;
 import com.aicv.airesume.model.vo.ReportChunksVO;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.util.List;
 import java.util.Map;
 
@@ -34,6 +36,15 @@ public interface InterviewService {
      */
     String startReportGeneration(String sessionId, String lastAnswer);
 
+    /**
+     * 完成面试并异步生成报告，返回reportId
+     * @param sessionId 会话ID
+     * @param lastAnswer 最后一题的回答内容
+     * @param format 报告格式：markdown或json，为空时使用默认格式
+     * @return reportId
+     */
+    String startReportGeneration(String sessionId, String lastAnswer, String format);
+
     /**
      * 获取报告块
      * @param reportId 报告ID
@@ -42,12 +53,36 @@ public interface InterviewService {
      */
     ReportChunksVO getReportChunks(String reportId, int lastIndex);
 
+    /**
+     * 推送报告块（流式输出），先回放已生成的块，再实时推送新增的块直到报告结束
+     * @param reportId 报告ID
+     * @param lastIndex 客户端已接收的最后一个块的索引，从头接收时为-1
+     * @return SseEmitter 对象，用于流式输出
+     */
+    SseEmitter streamReportChunks(String reportId, int lastIndex);
+
     /**
      * 获取用户的面试历史
      * @param userId 用户ID
      * @return 面试历史列表
      */
     List<InterviewHistoryVO> getInterviewHistory(Long userId);
+
+    /**
+     * 分页获取用户的面试历史（键集分页，按创建时间倒序）
+     * @param userId 用户ID
+     * @param cursor 上一页返回的游标，第一页传null
+     * @param size 每页条数
+     * @return 面试历史及下一页游标，没有更多时游标为null
+     */
+    InterviewHistoryListVO getInterviewHistory(Long userId, String cursor, int size);
+
+    /**
+     * 统计用户的面试数
+     * @param userId 用户ID
+     * @return 面试数
+     */
+    long countInterviews(Long userId);
     
     /**
      * 检查用户是否有进行中的面试
@@ -62,6 +97,17 @@ public interface InterviewService {
      * @return 面试历史记录
      */
     List<InterviewHistoryItemVO> getInterviewHistory(String sessionId);
+
+    /**
+     * 分页获取面试记录（按轮次键集分页），以流式JSON写出
+     * 返回的记录项与 {@link #getInterviewHistory(String)} 一致，另附下一页游标
+     * @param sessionId 会话ID
+     * @param cursor 上一页返回的游标（最后一轮的轮次号），第一页传null
+     * @param size 每页轮次数
+     * @param withAnswers 是否包含回答，false时只返回问题
+     * @return 响应体，写出时不再访问数据库
+     */
+    StreamingResponseBody streamTranscript(String sessionId, Integer cursor, int size, boolean withAnswers);
     
     /**
      * 保存面试报告
@@ -1,19 +1,55 @@
 package com.aicv.airesume.service;
 
+import com.aicv.airesume.entity.ReportGenerationJob;
+import com.aicv.airesume.service.report.ReportChunkLog;
+import com.aicv.airesume.service.report.ReportJobResumer;
+import com.aicv.airesume.service.report.ReportJobStore;
+import com.aicv.airesume.service.report.StructuredReportReader;
+import com.aicv.airesume.service.task.ExecutionMode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 报告生成服务，用于管理异步报告生成状态和内容块
+ * 生成中的报告定期写入检查点到报告任务存储；本地没有的报告从存储加载，
+ * 负责节点失联的报告由其他节点接管并从检查点继续生成。
+ * 本节点内存中的报告记录有数量和字节数上限，超出时按最近访问时间淘汰可以重新加载的记录，
+ * 已保存到面试报告表的报告在保留期后淘汰。
  */
+@Slf4j
 @Service
 public class ReportGenerationService {
 
@@ -26,6 +62,29 @@ public class ReportGenerationService {
         FAILED       // 生成失败
     }
 
+    /**
+     * 报告格式
+     */
+    public enum ReportFormat {
+        MARKDOWN,    // Markdown文本，生成结束后解析
+        JSON;        // 结构化JSON，边生成边读取字段
+
+        /**
+         * 解析报告格式，为空或无法识别时返回null
+         */
+        public static ReportFormat of(String format) {
+            if (format == null) {
+                return null;
+            }
+            for (ReportFormat value : values()) {
+                if (value.name().equalsIgnoreCase(format.trim())) {
+                    return value;
+                }
+            }
+            return null;
+        }
+    }
+
     /**
      * 报告内容块
      */
@@ -47,21 +106,154 @@ public class ReportGenerationService {
         }
     }
 
+    /**
+     * 报告更新监听器，同一监听器的回调在订阅时指定的执行器上按内容块顺序依次执行
+     */
+    public interface ReportListener {
+
+        /**
+         * 新增内容块
+         */
+        void onChunk(ReportChunk chunk) throws Exception;
+
+        /**
+         * 报告生成结束（已完成或失败）
+         */
+        void onFinished(ReportStatus status, String errorMessage) throws Exception;
+
+        /**
+         * 结构化报告的字段已生成完整
+         */
+        default void onField(String name, Object value) throws Exception {
+        }
+    }
+
+    /**
+     * 报告订阅：从自己的进度读取内容块日志，在自己的执行器上推送
+     * 写入方只发出信号，同一订阅同时最多有一个推送任务，推送期间的新信号合并到下一轮
+     */
+    private static class Subscription {
+        private final ReportGenerationRecord record;
+        private final ReportListener listener;
+        private final Executor executor;
+        private final AtomicInteger signals = new AtomicInteger();
+        // 下一个要推送的内容块索引，由推送任务更新
+        private volatile int nextIndex;
+        private volatile int fieldsSent;
+        private volatile boolean cancelled;
+
+        Subscription(ReportGenerationRecord record, ReportListener listener, Executor executor, int nextIndex) {
+            this.record = record;
+            this.listener = listener;
+            this.executor = executor;
+            this.nextIndex = nextIndex;
+        }
+
+        /**
+         * 有未推送的内容时安排推送，不阻塞调用方
+         */
+        void signal() {
+            if (cancelled || !hasPending()) {
+                return;
+            }
+            if (signals.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    log.warn("推送报告内容被拒绝，reportId: {}", record.getReportId());
+                    cancel();
+                }
+            }
+        }
+
+        private boolean hasPending() {
+            return record.chunkLog.size() > nextIndex || record.fields.size() > fieldsSent
+                    || record.status != ReportStatus.GENERATING;
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                if (cancelled || !drainOnce()) {
+                    return;
+                }
+                missed = signals.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * 推送到当前为止的全部内容
+         * @return 是否继续订阅；报告已结束或推送失败时返回false
+         */
+        private boolean drainOnce() {
+            // 先读状态和字段再读内容块数：状态和字段变化之前的内容块都已写入日志，保证结束通知和字段在对应内容块之后
+            ReportStatus status = record.status;
+            Map<String, Object> fields = record.fields;
+            int committed = record.chunkLog.size();
+            try {
+                if (committed > nextIndex) {
+                    for (ReportChunk chunk : record.readChunks(nextIndex, committed)) {
+                        listener.onChunk(chunk);
+                    }
+                    nextIndex = committed;
+                }
+                if (fields.size() > fieldsSent) {
+                    int position = 0;
+                    for (Map.Entry<String, Object> field : fields.entrySet()) {
+                        if (position++ >= fieldsSent) {
+                            listener.onField(field.getKey(), field.getValue());
+                        }
+                    }
+                    fieldsSent = fields.size();
+                }
+                if (status != ReportStatus.GENERATING) {
+                    cancel();
+                    listener.onFinished(status, record.errorMessage);
+                    return false;
+                }
+                return true;
+            } catch (Exception e) {
+                // 推送失败（客户端已断开），不再推送
+                cancel();
+                return false;
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            record.subscriptions.remove(this);
+        }
+    }
+
     /**
      * 报告生成记录
+     * 内容块写入只追加日志，读取不加锁；写入方只通知订阅者，订阅者在各自的执行器上从自己的进度读取并推送，
+     * 慢客户端不会阻塞写入方和其他订阅者
      */
     public static class ReportGenerationRecord {
         private final String reportId;
-        private ReportStatus status;
-        private final List<ReportChunk> chunks;
+        private volatile String sessionId;
+        private volatile ReportStatus status;
+        private volatile ReportFormat format = ReportFormat.MARKDOWN;
+        // 结构化报告读取器，只在JSON格式下存在，在记录的锁内使用
+        private StructuredReportReader structuredReader;
+        // 已生成完整的结构化报告字段，写时复制，读取不加锁
+        private volatile Map<String, Object> fields = Collections.emptyMap();
+        private final ReportChunkLog chunkLog = new ReportChunkLog();
         private final long createdAt;
-        private long lastAccessedAt;
-        private String errorMessage;
+        private volatile long lastAccessedAt;
+        private volatile String errorMessage;
+        private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+        // 是否为其他节点生成中报告的只读副本，内容从任务存储同步
+        private volatile boolean mirror;
+        // 最近一次写入检查点时的内容块数
+        private volatile int checkpointedCount;
+        // 报告保存到面试报告表的时间，未保存时为0
+        private volatile long persistedAt;
 
         public ReportGenerationRecord(String reportId) {
             this.reportId = reportId;
             this.status = ReportStatus.GENERATING;
-            this.chunks = new ArrayList<>();
             this.createdAt = System.currentTimeMillis();
             this.lastAccessedAt = System.currentTimeMillis();
         }
@@ -70,16 +262,140 @@ public class ReportGenerationService {
             return reportId;
         }
 
+        public String getSessionId() {
+            return sessionId;
+        }
+
+        public void setSessionId(String sessionId) {
+            this.sessionId = sessionId;
+        }
+
         public ReportStatus getStatus() {
             return status;
         }
 
-        public void setStatus(ReportStatus status) {
+        public boolean isMirror() {
+            return mirror;
+        }
+
+        public ReportFormat getFormat() {
+            return format;
+        }
+
+        /**
+         * 设置报告格式，需要在写入内容之前调用
+         */
+        public synchronized void setFormat(ReportFormat format) {
+            this.format = format;
+            this.structuredReader = format == ReportFormat.JSON ? new StructuredReportReader(this::addField) : null;
+        }
+
+        /**
+         * 已生成完整的结构化报告字段
+         */
+        public Map<String, Object> getFields() {
+            return fields;
+        }
+
+        /**
+         * 结构化报告数据，缺失的字段使用默认内容；非JSON格式返回null
+         */
+        public synchronized Map<String, Object> getStructuredReportData() {
+            return structuredReader != null ? structuredReader.toReportData() : null;
+        }
+
+        public boolean isPersisted() {
+            return persistedAt > 0;
+        }
+
+        /**
+         * 标记报告已保存到面试报告表
+         */
+        public void markPersisted() {
+            this.persistedAt = System.currentTimeMillis();
+        }
+
+        /**
+         * 估算占用的内存字节数
+         */
+        public long estimatedBytes() {
+            return RECORD_OVERHEAD_BYTES + chunkLog.capacityBytes()
+                    + (errorMessage != null ? errorMessage.length() * 2L : 0);
+        }
+
+        boolean hasListeners() {
+            return !subscriptions.isEmpty();
+        }
+
+        public synchronized void setStatus(ReportStatus status) {
             this.status = status;
+            if (status != ReportStatus.GENERATING) {
+                signalSubscribers();
+            }
+        }
+
+        /**
+         * 标记报告生成失败
+         */
+        public synchronized void fail(String errorMessage) {
+            this.errorMessage = errorMessage;
+            setStatus(ReportStatus.FAILED);
         }
 
+        /**
+         * 获取全部内容块（副本）
+         */
         public List<ReportChunk> getChunks() {
-            return chunks;
+            return readChunks(0, chunkLog.size());
+        }
+
+        /**
+         * 已生成的内容块数
+         */
+        public int getChunkCount() {
+            return chunkLog.size();
+        }
+
+        /**
+         * 已生成的完整内容
+         */
+        public String getContent() {
+            return chunkLog.contentSnapshot();
+        }
+
+        /**
+         * 读取一致的内容快照
+         */
+        public ReportChunkLog.Snapshot snapshot() {
+            return chunkLog.snapshot();
+        }
+
+        /**
+         * 从检查点恢复：追加本地还没有的内容块，检查点已结束时同步结束状态
+         */
+        synchronized void restore(String content, int[] chunkEnds, ReportStatus jobStatus, String jobErrorMessage) {
+            int start = chunkLog.length();
+            for (int i = chunkLog.size(); i < chunkEnds.length; i++) {
+                addChunk(content.substring(start, chunkEnds[i]));
+                start = chunkEnds[i];
+            }
+            if (status == ReportStatus.GENERATING && jobStatus != ReportStatus.GENERATING) {
+                this.errorMessage = jobErrorMessage;
+                setStatus(jobStatus);
+            }
+        }
+
+        /**
+         * 读取[fromIndex, toIndex)范围内的内容块，不加锁
+         */
+        public List<ReportChunk> readChunks(int fromIndex, int toIndex) {
+            int index = Math.max(fromIndex, 0);
+            List<String> contents = chunkLog.readRange(index, toIndex);
+            List<ReportChunk> result = new ArrayList<>(contents.size());
+            for (String content : contents) {
+                result.add(new ReportChunk(index++, content));
+            }
+            return result;
         }
 
         public long getCreatedAt() {
@@ -106,42 +422,220 @@ public class ReportGenerationService {
          * 添加报告内容块
          */
         public synchronized void addChunk(String content) {
-            int index = chunks.size();
-            chunks.add(new ReportChunk(index, content));
+            chunkLog.append(content);
+            if (structuredReader != null) {
+                // 字段读取完整时通过addField记录
+                structuredReader.feed(content);
+            }
+            signalSubscribers();
+        }
+
+        private void addField(String name, Object value) {
+            Map<String, Object> next = new LinkedHashMap<>(fields);
+            next.put(name, value);
+            fields = Collections.unmodifiableMap(next);
+        }
+
+        /**
+         * 通知订阅者有新内容，推送在订阅者自己的执行器上进行
+         */
+        private void signalSubscribers() {
+            for (Subscription subscription : subscriptions) {
+                subscription.signal();
+            }
+        }
+
+        /**
+         * 订阅报告更新：先回放指定索引之后的内容块和已生成的字段，之后推送新增内容，报告结束时通知结束
+         * 所有回调都在指定的执行器上执行
+         * @param lastIndex 客户端已接收的最后一个内容块索引
+         * @param listener 监听器
+         * @param executor 执行推送的执行器
+         * @return 订阅时报告是否仍在生成中
+         */
+        public boolean subscribe(int lastIndex, ReportListener listener, Executor executor) {
+            Subscription subscription = new Subscription(this, listener, executor, Math.max(lastIndex + 1, 0));
+            subscriptions.add(subscription);
+            subscription.signal();
+            return status == ReportStatus.GENERATING;
+        }
+
+        /**
+         * 取消订阅
+         */
+        public void unsubscribe(ReportListener listener) {
+            for (Subscription subscription : subscriptions) {
+                if (subscription.listener == listener) {
+                    subscription.cancel();
+                }
+            }
         }
     }
 
     // 线程安全的报告存储Map
     private final Map<String, ReportGenerationRecord> reportStore = new ConcurrentHashMap<>();
     
-    // 定时清理过期报告的线程池
-    private final ScheduledExecutorService cleanupExecutor = Executors.newSingleThreadScheduledExecutor();
+    // 定时清理过期报告、写入检查点、接管失联任务的线程池
+    private final ScheduledExecutorService cleanupExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "report-generation-maintenance");
+        thread.setDaemon(true);
+        return thread;
+    });
     
-    // 报告过期时间（毫秒）- 1小时
-    private static final long REPORT_EXPIRY_TIME = 60 * 60 * 1000;
-    
-    // 清理间隔（毫秒）- 10分钟
+    // 报告任务存储清理间隔（毫秒）- 10分钟
     private static final long CLEANUP_INTERVAL = 10 * 60 * 1000;
 
-    public ReportGenerationService() {
+    // 单条报告记录除内容外的固定开销估算
+    private static final long RECORD_OVERHEAD_BYTES = 512;
+
+    // 每次最多接管的失联任务数
+    private static final int MAX_CLAIMS_PER_RUN = 5;
+
+    // 报告任务错误信息的最大长度，与 ReportGenerationJob.errorMessage 列长度一致
+    private static final int ERROR_MESSAGE_MAX_LENGTH = 500;
+
+    // 向订阅者推送报告内容的执行器
+    private ExecutorService pushExecutor;
+
+    @Autowired
+    private ExecutionMode executionMode;
+
+    @Value("${interview.report.push.max-connections:500}")
+    private int maxPushConnections;
+
+    // 报告推送连接名额，与大模型流式请求的存活流名额分开计算
+    private Semaphore pushConnectionSlots;
+
+    private final AtomicLong pushRejectedCount = new AtomicLong();
+
+    @Autowired
+    private ReportJobStore reportJobStore;
+
+    @Autowired
+    private ObjectProvider<ReportJobResumer> reportJobResumer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${interview.report.cache.max-entries:500}")
+    private int maxEntries;
+
+    @Value("${interview.report.cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${interview.report.cache.expire-after-access-ms:3600000}")
+    private long expireAfterAccessMs;
+
+    @Value("${interview.report.cache.persisted-retention-ms:120000}")
+    private long persistedRetentionMs;
+
+    @Value("${interview.report.cache.sweep-interval-ms:30000}")
+    private long sweepIntervalMs;
+
+    private Counter hitCounter;
+    private Counter missCounter;
+
+    @Value("${interview.report.node-id:}")
+    private String nodeId;
+
+    @Value("${interview.report.checkpoint-interval-ms:2000}")
+    private long checkpointIntervalMs;
+
+    @Value("${interview.report.job-lease-ms:15000}")
+    private long jobLeaseMs;
+
+    @Value("${interview.report.job-retention-hours:24}")
+    private long jobRetentionHours;
+
+    @PostConstruct
+    public void init() {
+        if (!StringUtils.hasText(nodeId)) {
+            nodeId = localHostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        }
+        // 推送会阻塞在慢客户端的写入上，虚拟线程模式下每个推送任务一个线程；
+        // 平台线程模式下线程数与推送连接上限一致，每个订阅者同时最多占用一个线程，慢客户端只阻塞自己，空闲线程自动回收
+        if (executionMode.isVirtual()) {
+            pushExecutor = executionMode.newThreadPerTaskExecutor("report-push-");
+        } else {
+            pushExecutor = new ThreadPoolExecutor(0, maxPushConnections,
+                    60L, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(),
+                    executionMode.threadFactory("report-push-"));
+        }
+        pushConnectionSlots = new Semaphore(maxPushConnections);
         // 启动定时清理任务
-        cleanupExecutor.scheduleAtFixedRate(this::cleanupExpiredReports, CLEANUP_INTERVAL, CLEANUP_INTERVAL, TimeUnit.MILLISECONDS);
+        cleanupExecutor.scheduleWithFixedDelay(this::cleanupExpiredReports, sweepIntervalMs, sweepIntervalMs, TimeUnit.MILLISECONDS);
+        cleanupExecutor.scheduleAtFixedRate(this::purgeFinishedJobs, CLEANUP_INTERVAL, CLEANUP_INTERVAL, TimeUnit.MILLISECONDS);
+        cleanupExecutor.scheduleWithFixedDelay(this::maintainJobs, checkpointIntervalMs, checkpointIntervalMs, TimeUnit.MILLISECONDS);
+
+        hitCounter = Counter.builder("interview.report.cache.hit")
+                .description("本节点内存中命中的报告记录查询次数")
+                .register(meterRegistry);
+        missCounter = Counter.builder("interview.report.cache.miss")
+                .description("本节点内存中未命中的报告记录查询次数")
+                .register(meterRegistry);
+        Gauge.builder("interview.report.cache.entries", reportStore, Map::size)
+                .description("内存中的报告记录数")
+                .register(meterRegistry);
+        Gauge.builder("interview.report.cache.bytes", this, ReportGenerationService::estimatedBytes)
+                .description("内存中报告记录占用的估算字节数")
+                .register(meterRegistry);
+        Gauge.builder("interview.report.push.connections", this, ReportGenerationService::getPushConnectionCount)
+                .description("当前的报告推送连接数")
+                .register(meterRegistry);
+        FunctionCounter.builder("interview.report.push.rejected", pushRejectedCount, AtomicLong::get)
+                .description("因推送连接已满被拒绝的报告推送连接数")
+                .register(meterRegistry);
+        log.info("报告生成服务已启动，节点: {}，检查点间隔: {}ms，任务租约: {}ms，记录上限: {}条/{}字节",
+                nodeId, checkpointIntervalMs, jobLeaseMs, maxEntries, maxBytes);
     }
 
     /**
      * 创建新的报告生成记录
      */
     public ReportGenerationRecord createReportRecord(String reportId) {
+        return createReportRecord(reportId, null, ReportFormat.MARKDOWN);
+    }
+
+    /**
+     * 创建新的报告生成记录，并在报告任务存储中登记由本节点负责生成
+     */
+    public ReportGenerationRecord createReportRecord(String reportId, String sessionId, ReportFormat format) {
         ReportGenerationRecord record = new ReportGenerationRecord(reportId);
+        record.setSessionId(sessionId);
+        record.setFormat(format);
         reportStore.put(reportId, record);
+        enforceLimits();
+        if (sessionId != null) {
+            try {
+                ReportGenerationJob job = new ReportGenerationJob();
+                job.setReportId(reportId);
+                job.setSessionId(sessionId);
+                job.setStatus(ReportStatus.GENERATING.name());
+                job.setFormat(format.name());
+                job.setContent("");
+                job.setChunkEnds("");
+                job.setOwnerNode(nodeId);
+                reportJobStore.create(job);
+            } catch (Exception e) {
+                log.warn("登记报告任务失败，报告只保存在本节点，reportId: {}: {}", reportId, e.getMessage());
+            }
+            watchFinish(record);
+        }
         return record;
     }
 
     /**
-     * 获取报告生成记录
+     * 获取报告生成记录，本节点没有时从报告任务存储加载
      */
     public ReportGenerationRecord getReportRecord(String reportId) {
         ReportGenerationRecord record = reportStore.get(reportId);
+        if (record != null) {
+            hitCounter.increment();
+        } else {
+            missCounter.increment();
+            record = loadRecord(reportId);
+        }
         if (record != null) {
             // 更新最后访问时间
             record.setLastAccessedAt(System.currentTimeMillis());
@@ -157,34 +651,369 @@ public class ReportGenerationService {
         if (record == null) {
             return null;
         }
+        // 只返回新增的报告块，读取不加锁
+        return record.readChunks(lastIndex + 1, record.getChunkCount());
+    }
 
-        synchronized (record) {
-            List<ReportChunk> chunks = record.getChunks();
-            // 计算下一个要获取的起始索引，确保只返回新增的报告块
-            int startIndex = lastIndex + 1;
-            if (startIndex >= chunks.size()) {
-                return new ArrayList<>();
+    /**
+     * 从报告任务存储加载报告：已结束的报告直接恢复，生成中的报告作为副本定期同步
+     */
+    private ReportGenerationRecord loadRecord(String reportId) {
+        ReportGenerationJob job;
+        try {
+            job = reportJobStore.load(reportId);
+        } catch (Exception e) {
+            log.warn("加载报告任务失败，reportId: {}: {}", reportId, e.getMessage());
+            return null;
+        }
+        if (job == null) {
+            return null;
+        }
+        ReportGenerationRecord record = new ReportGenerationRecord(reportId);
+        record.setSessionId(job.getSessionId());
+        record.setFormat(formatOf(job));
+        record.mirror = true;
+        applyJob(record, job);
+        ReportGenerationRecord existing = reportStore.putIfAbsent(reportId, record);
+        if (existing != null) {
+            return existing;
+        }
+        enforceLimits();
+        return record;
+    }
+
+    private void applyJob(ReportGenerationRecord record, ReportGenerationJob job) {
+        ReportStatus jobStatus = ReportStatus.valueOf(job.getStatus());
+        record.restore(job.getContent() != null ? job.getContent() : "", decodeChunkEnds(job.getChunkEnds()),
+                jobStatus, job.getErrorMessage());
+        if (jobStatus != ReportStatus.GENERATING) {
+            record.mirror = false;
+        }
+    }
+
+    /**
+     * 报告结束时写入最终结果，回调在维护线程上执行
+     */
+    private void watchFinish(ReportGenerationRecord record) {
+        record.subscribe(Integer.MAX_VALUE - 1, new ReportListener() {
+            @Override
+            public void onChunk(ReportChunk chunk) {
+                // 内容由定时检查点写入
+            }
+
+            @Override
+            public void onFinished(ReportStatus status, String errorMessage) {
+                persistFinished(record);
             }
-            return new ArrayList<>(chunks.subList(startIndex, chunks.size()));
+        }, cleanupExecutor);
+    }
+
+    /**
+     * 订阅报告更新，回调在报告推送线程上执行
+     * @see ReportGenerationRecord#subscribe(int, ReportListener, Executor)
+     */
+    public boolean subscribe(ReportGenerationRecord record, int lastIndex, ReportListener listener) {
+        return record.subscribe(lastIndex, listener, pushExecutor);
+    }
+
+    /**
+     * 占用一个报告推送连接名额，连接结束时调用 {@link #closePushConnection()} 归还
+     * @return 是否占用成功；推送连接已满时返回false，客户端可回退到轮询接口
+     */
+    public boolean tryOpenPushConnection() {
+        if (pushConnectionSlots.tryAcquire()) {
+            return true;
         }
+        pushRejectedCount.incrementAndGet();
+        return false;
     }
 
     /**
-     * 清理过期报告
+     * 归还报告推送连接名额
+     */
+    public void closePushConnection() {
+        pushConnectionSlots.release();
+    }
+
+    private int getPushConnectionCount() {
+        return maxPushConnections - pushConnectionSlots.availablePermits();
+    }
+
+    private void persistFinished(ReportGenerationRecord record) {
+        ReportChunkLog.Snapshot snapshot = record.snapshot();
+        try {
+            reportJobStore.finish(record.getReportId(), nodeId, record.getStatus().name(),
+                    truncateErrorMessage(record.getErrorMessage()), snapshot.getContent(), encodeChunkEnds(snapshot.getChunkEnds()));
+            record.checkpointedCount = snapshot.getChunkCount();
+        } catch (Exception e) {
+            log.warn("保存报告任务结果失败，reportId: {}: {}", record.getReportId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 定时维护报告任务：为本节点生成中的报告写入检查点，同步其他节点报告的副本，接管失联节点的任务
+     */
+    private void maintainJobs() {
+        try {
+            for (ReportGenerationRecord record : reportStore.values()) {
+                if (record.getStatus() != ReportStatus.GENERATING || record.getSessionId() == null) {
+                    continue;
+                }
+                if (record.isMirror()) {
+                    syncMirror(record);
+                } else {
+                    checkpoint(record);
+                }
+            }
+            claimOrphanedJobs();
+        } catch (Exception e) {
+            log.warn("维护报告任务失败: {}", e.getMessage());
+        }
+    }
+
+    private void checkpoint(ReportGenerationRecord record) {
+        try {
+            boolean written;
+            if (record.getChunkCount() == record.checkpointedCount) {
+                written = reportJobStore.checkpoint(record.getReportId(), nodeId, null, null);
+            } else {
+                ReportChunkLog.Snapshot snapshot = record.snapshot();
+                written = reportJobStore.checkpoint(record.getReportId(), nodeId,
+                        snapshot.getContent(), encodeChunkEnds(snapshot.getChunkEnds()));
+                if (written) {
+                    record.checkpointedCount = snapshot.getChunkCount();
+                }
+            }
+            if (!written && record.getStatus() == ReportStatus.GENERATING) {
+                log.warn("报告任务已被其他节点接管，reportId: {}", record.getReportId());
+            }
+        } catch (Exception e) {
+            log.warn("写入报告检查点失败，reportId: {}: {}", record.getReportId(), e.getMessage());
+        }
+    }
+
+    private void syncMirror(ReportGenerationRecord record) {
+        try {
+            ReportGenerationJob job = reportJobStore.load(record.getReportId());
+            if (job == null) {
+                record.fail("报告不存在");
+                return;
+            }
+            applyJob(record, job);
+        } catch (Exception e) {
+            log.warn("同步报告副本失败，reportId: {}: {}", record.getReportId(), e.getMessage());
+        }
+    }
+
+    private void claimOrphanedJobs() {
+        // 租约以存储的时钟计算，不使用本节点时钟
+        LocalDateTime staleBefore = reportJobStore.currentTime().minusNanos(TimeUnit.MILLISECONDS.toNanos(jobLeaseMs));
+        for (String reportId : reportJobStore.findOrphaned(staleBefore, MAX_CLAIMS_PER_RUN)) {
+            if (!reportJobStore.claim(reportId, nodeId, staleBefore)) {
+                continue;
+            }
+            ReportGenerationJob job = reportJobStore.load(reportId);
+            if (job == null) {
+                continue;
+            }
+            ReportGenerationRecord local = reportStore.get(reportId);
+            if (local != null && !local.isMirror()) {
+                if (local.getStatus() == ReportStatus.GENERATING) {
+                    // 本节点仍在生成（检查点写入延迟导致租约过期），接管只是续约
+                    continue;
+                }
+                // 本节点已生成结束但写入结果失败，重新写入结果，不重新生成
+                log.info("重新写入报告任务结果，reportId: {}，状态: {}", reportId, local.getStatus());
+                persistFinished(local);
+                continue;
+            }
+            ReportGenerationRecord record = reportStore.computeIfAbsent(reportId, id -> {
+                ReportGenerationRecord created = new ReportGenerationRecord(id);
+                created.setFormat(formatOf(job));
+                return created;
+            });
+            record.setSessionId(job.getSessionId());
+            applyJob(record, job);
+            record.mirror = false;
+            record.checkpointedCount = record.getChunkCount();
+            watchFinish(record);
+            log.info("接管失联节点的报告任务，reportId: {}，原节点: {}，已生成内容块: {}",
+                    reportId, job.getOwnerNode(), record.getChunkCount());
+            ReportJobResumer resumer = reportJobResumer.getIfAvailable();
+            if (resumer == null) {
+                record.fail("生成面试报告中断，请重新生成");
+                continue;
+            }
+            try {
+                resumer.resume(record);
+            } catch (Exception e) {
+                log.error("恢复报告任务失败，reportId: {}: {}", reportId, e.getMessage(), e);
+                record.fail("生成面试报告失败: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 清理过期报告：超过访问过期时间的记录，以及已保存到面试报告表且超过保留期的记录；
+     * 之后仍超出上限时按最近访问时间淘汰
      */
     private void cleanupExpiredReports() {
-        long currentTime = System.currentTimeMillis();
-        reportStore.entrySet().removeIf(entry -> {
-            ReportGenerationRecord record = entry.getValue();
-            long timeSinceLastAccess = currentTime - record.getLastAccessedAt();
-            return timeSinceLastAccess > REPORT_EXPIRY_TIME;
-        });
+        try {
+            long currentTime = System.currentTimeMillis();
+            for (ReportGenerationRecord record : reportStore.values()) {
+                if (!isEvictable(record)) {
+                    continue;
+                }
+                if (currentTime - record.getLastAccessedAt() > expireAfterAccessMs) {
+                    evict(record, "expired");
+                } else if (record.isPersisted() && currentTime - record.persistedAt > persistedRetentionMs) {
+                    evict(record, "persisted");
+                }
+            }
+            enforceLimits();
+        } catch (Exception e) {
+            log.warn("清理报告记录失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 超出数量或字节数上限时淘汰记录：优先淘汰已保存到面试报告表的记录，其次是其他已结束的记录和副本，
+     * 同一优先级内按最近访问时间从旧到新淘汰；本节点生成中的报告不淘汰
+     */
+    private synchronized void enforceLimits() {
+        int entries = reportStore.size();
+        long bytes = estimatedBytes();
+        if (entries <= maxEntries && bytes <= maxBytes) {
+            return;
+        }
+        List<ReportGenerationRecord> candidates = new ArrayList<>();
+        for (ReportGenerationRecord record : reportStore.values()) {
+            if (isEvictable(record)) {
+                candidates.add(record);
+            }
+        }
+        candidates.sort(Comparator.comparing((ReportGenerationRecord record) -> !record.isPersisted())
+                .thenComparingLong(ReportGenerationRecord::getLastAccessedAt));
+        for (ReportGenerationRecord record : candidates) {
+            if (entries <= maxEntries && bytes <= maxBytes) {
+                break;
+            }
+            long recordBytes = record.estimatedBytes();
+            if (evict(record, entries > maxEntries ? "count" : "size")) {
+                entries--;
+                bytes -= recordBytes;
+            }
+        }
+        if (entries > maxEntries || bytes > maxBytes) {
+            log.warn("报告记录超出上限且没有可淘汰的记录，当前: {}条/{}字节", entries, bytes);
+        }
+    }
+
+    /**
+     * 是否可以淘汰：已结束的记录，或没有推送订阅者的副本（可从任务存储重新加载）
+     */
+    private boolean isEvictable(ReportGenerationRecord record) {
+        if (record.getStatus() != ReportStatus.GENERATING) {
+            return true;
+        }
+        return record.isMirror() && !record.hasListeners();
+    }
+
+    private boolean evict(ReportGenerationRecord record, String cause) {
+        if (!reportStore.remove(record.getReportId(), record)) {
+            return false;
+        }
+        meterRegistry.counter("interview.report.cache.eviction", "cause", cause).increment();
+        if (record.getStatus() != ReportStatus.GENERATING) {
+            try {
+                reportJobStore.release(record.getReportId());
+            } catch (Exception e) {
+                log.warn("释放报告任务失败，reportId: {}: {}", record.getReportId(), e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private long estimatedBytes() {
+        long bytes = 0;
+        for (ReportGenerationRecord record : reportStore.values()) {
+            bytes += record.estimatedBytes();
+        }
+        return bytes;
     }
 
     /**
-     * 关闭清理线程池
+     * 清理过期的报告任务
      */
+    private void purgeFinishedJobs() {
+        try {
+            reportJobStore.purgeFinishedBefore(reportJobStore.currentTime().minusHours(jobRetentionHours));
+        } catch (Exception e) {
+            log.warn("清理报告任务失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 关闭清理线程池，并为生成中的报告写入最后一次检查点，便于重启后或其他节点接管
+     */
+    @PreDestroy
     public void shutdown() {
         cleanupExecutor.shutdown();
+        pushExecutor.shutdown();
+        for (ReportGenerationRecord record : reportStore.values()) {
+            if (record.getStatus() == ReportStatus.GENERATING && !record.isMirror() && record.getSessionId() != null) {
+                checkpoint(record);
+            }
+        }
+    }
+
+    /**
+     * 截断错误信息，不超过报告任务表error_message列的长度
+     */
+    static String truncateErrorMessage(String errorMessage) {
+        if (errorMessage == null || errorMessage.length() <= ERROR_MESSAGE_MAX_LENGTH) {
+            return errorMessage;
+        }
+        int end = ERROR_MESSAGE_MAX_LENGTH;
+        if (Character.isHighSurrogate(errorMessage.charAt(end - 1))) {
+            end--;
+        }
+        return errorMessage.substring(0, end);
+    }
+
+    private static ReportFormat formatOf(ReportGenerationJob job) {
+        ReportFormat format = ReportFormat.of(job.getFormat());
+        return format != null ? format : ReportFormat.MARKDOWN;
+    }
+
+    static String encodeChunkEnds(int[] chunkEnds) {
+        StringBuilder builder = new StringBuilder(chunkEnds.length * 5);
+        for (int i = 0; i < chunkEnds.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(chunkEnds[i]);
+        }
+        return builder.toString();
+    }
+
+    static int[] decodeChunkEnds(String chunkEnds) {
+        if (!StringUtils.hasText(chunkEnds)) {
+            return new int[0];
+        }
+        String[] parts = chunkEnds.split(",");
+        int[] ends = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            ends[i] = Integer.parseInt(parts[i].trim());
+        }
+        return ends;
+    }
+
+    private static String localHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "node";
+        }
     }
 }
@@ -2,6 +2,7 @@ package com.aicv.airesume.service;
 
 import com.aicv.airesume.entity.Resume;
 import com.aicv.airesume.model.dto.ResumeDataDTO;
+import com.aicv.airesume.service.resume.ResumeAggregate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
@@ -40,6 +41,11 @@ public interface ResumeService {
      */
     Map<String, Object> getResumeFullData(Long resumeId);
 
+    /**
+     * 获取简历完整数据（简历、个人信息和教育、工作、项目、技能列表）
+     */
+    ResumeAggregate getResumeAggregate(Long resumeId);
+
     
     /**
      * 创建简历（使用DTO）
@@ -90,5 +96,10 @@ public interface ResumeService {
      * 获取用户最新简历数据
      */
     Map<String, Object> getLatestResumeData(Long userId);
+
+    /**
+     * 获取用户最新简历的完整数据，用户没有简历时返回null
+     */
+    ResumeAggregate getLatestResumeAggregate(Long userId);
     
 }
\ No newline at end of file
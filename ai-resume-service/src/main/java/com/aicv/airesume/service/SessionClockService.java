@@ -0,0 +1,292 @@
+package com.aicv.airesume.service;
+
+import com.aicv.airesume.repository.InterviewSessionRepository;
+import com.aicv.airesume.repository.SessionClockState;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 面试会话计时服务
+ * 剩余时间保存在内存中，客户端定时上报的剩余时间只更新内存，由后台线程定期把有变化的会话
+ * 合并为一条批量UPDATE写回interview_session表，不再每次上报都查询并整行保存会话。
+ * 剩余时间只减不增，且不会少于按开始时间计算的墙钟下限；回答问题时按回答时长扣减。
+ * 写回时取数据库中的值与内存值的较小者，多个节点写回同一会话时结果同样只减不增。
+ */
+@Slf4j
+@Service
+public class SessionClockService {
+
+    // 单条UPDATE语句最多包含的会话数
+    private static final int MAX_SESSIONS_PER_UPDATE = 500;
+
+    @Value("${interview.session-clock.flush-interval-ms:3000}")
+    private long flushIntervalMs;
+
+    @Value("${interview.session-clock.idle-evict-ms:600000}")
+    private long idleEvictMs;
+
+    @Autowired
+    private InterviewSessionRepository sessionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, SessionClock> clocks = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "session-clock-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 单个会话的计时状态
+     */
+    private static final class SessionClock {
+        private final int sessionSeconds;
+        private final LocalDateTime startTime;
+        private int remaining;
+        // 每次修改递增，写回成功后记录已写回的版本
+        private long version;
+        private long flushedVersion;
+        private volatile long lastAccessedAt = System.currentTimeMillis();
+
+        SessionClock(int sessionSeconds, int remaining, LocalDateTime startTime) {
+            this.sessionSeconds = sessionSeconds;
+            this.remaining = remaining;
+            this.startTime = startTime;
+        }
+
+        /**
+         * 按墙钟计算的剩余时间下限：已用时间不会超过开始以来经过的时间
+         */
+        private int lowerBound() {
+            if (startTime == null) {
+                return 0;
+            }
+            long elapsed = Duration.between(startTime, LocalDateTime.now()).getSeconds();
+            return (int) Math.max(0, sessionSeconds - Math.max(elapsed, 0));
+        }
+
+        synchronized int report(int clientRemaining) {
+            int value = Math.min(Math.max(clientRemaining, lowerBound()), remaining);
+            return set(value);
+        }
+
+        synchronized int deduct(int seconds) {
+            return set(Math.max(remaining - Math.max(seconds, 0), 0));
+        }
+
+        private int set(int value) {
+            lastAccessedAt = System.currentTimeMillis();
+            if (value != remaining) {
+                remaining = value;
+                version++;
+            }
+            return remaining;
+        }
+
+        synchronized int get() {
+            lastAccessedAt = System.currentTimeMillis();
+            return remaining;
+        }
+
+        synchronized boolean isDirty() {
+            return version != flushedVersion;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        flushExecutor.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        Gauge.builder("interview.session-clock.entries", clocks, Map::size)
+                .description("内存中的会话计时数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 接收客户端上报的剩余时间
+     * @param sessionId 会话ID
+     * @param remainingTime 客户端剩余时间（秒）
+     * @return 生效的剩余时间，会话不存在时为空
+     */
+    public Optional<Integer> report(String sessionId, int remainingTime) {
+        SessionClock clock = clock(sessionId);
+        if (clock == null) {
+            return Optional.empty();
+        }
+        meterRegistry.counter("interview.session-clock.reports").increment();
+        return Optional.of(clock.report(remainingTime));
+    }
+
+    /**
+     * 回答问题后按回答时长扣减剩余时间
+     * @param sessionId 会话ID
+     * @param answerDuration 回答时长（秒）
+     * @return 扣减后的剩余时间，会话不存在时为空
+     */
+    public Optional<Integer> deduct(String sessionId, Integer answerDuration) {
+        SessionClock clock = clock(sessionId);
+        if (clock == null) {
+            return Optional.empty();
+        }
+        return Optional.of(clock.deduct(answerDuration != null ? answerDuration : 0));
+    }
+
+    /**
+     * 内存中的剩余时间，未加载的会话返回空（以数据库中的值为准）
+     */
+    public Optional<Integer> getRemaining(String sessionId) {
+        SessionClock clock = clocks.get(sessionId);
+        return clock != null ? Optional.of(clock.get()) : Optional.empty();
+    }
+
+    /**
+     * 移除会话计时（会话被删除时），未写回的剩余时间一并丢弃
+     */
+    public void remove(String sessionId) {
+        clocks.remove(sessionId);
+    }
+
+    private SessionClock clock(String sessionId) {
+        SessionClock clock = clocks.get(sessionId);
+        if (clock != null) {
+            return clock;
+        }
+        Optional<SessionClockState> state = sessionRepository.findClockStateBySessionId(sessionId);
+        if (!state.isPresent()) {
+            return null;
+        }
+        SessionClockState s = state.get();
+        int sessionSeconds = s.getSessionSeconds() != null ? s.getSessionSeconds() : 0;
+        int remaining = s.getSessionTimeRemaining() != null ? s.getSessionTimeRemaining() : sessionSeconds;
+        return clocks.computeIfAbsent(sessionId, id -> new SessionClock(sessionSeconds, remaining, s.getStartTime()));
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+            evictIdle();
+        } catch (Exception e) {
+            log.error("写回会话剩余时间失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 把有变化的剩余时间合并为批量UPDATE写回
+     */
+    private void flush() {
+        List<String> sessionIds = new ArrayList<>();
+        List<Integer> values = new ArrayList<>();
+        List<Long> versions = new ArrayList<>();
+        List<SessionClock> flushed = new ArrayList<>();
+        for (Map.Entry<String, SessionClock> entry : clocks.entrySet()) {
+            SessionClock clock = entry.getValue();
+            synchronized (clock) {
+                if (!clock.isDirty()) {
+                    continue;
+                }
+                sessionIds.add(entry.getKey());
+                values.add(clock.remaining);
+                versions.add(clock.version);
+            }
+            flushed.add(clock);
+            if (sessionIds.size() >= MAX_SESSIONS_PER_UPDATE) {
+                update(sessionIds, values, versions, flushed);
+                sessionIds.clear();
+                values.clear();
+                versions.clear();
+                flushed.clear();
+            }
+        }
+        if (!sessionIds.isEmpty()) {
+            update(sessionIds, values, versions, flushed);
+        }
+    }
+
+    private void update(List<String> sessionIds, List<Integer> values, List<Long> versions, List<SessionClock> flushed) {
+        // 只减不增：多节点同时持有同一会话的计时、或写回晚于其他节点时，不会用较大的旧值覆盖数据库中较小的值
+        StringBuilder sql = new StringBuilder("UPDATE interview_session SET session_time_remaining = CASE session_id");
+        List<Object> args = new ArrayList<>(sessionIds.size() * 4 + 1);
+        for (int i = 0; i < sessionIds.size(); i++) {
+            sql.append(" WHEN ? THEN LEAST(COALESCE(session_time_remaining, ?), ?)");
+            args.add(sessionIds.get(i));
+            args.add(values.get(i));
+            args.add(values.get(i));
+        }
+        sql.append(" END, updated_at = ? WHERE session_id IN (");
+        args.add(Timestamp.valueOf(LocalDateTime.now()));
+        for (int i = 0; i < sessionIds.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+            args.add(sessionIds.get(i));
+        }
+        sql.append(")");
+
+        jdbcTemplate.update(sql.toString(), args.toArray());
+        for (int i = 0; i < flushed.size(); i++) {
+            SessionClock clock = flushed.get(i);
+            synchronized (clock) {
+                // 写回期间又有更新时保持未写回状态，下次继续写回
+                clock.flushedVersion = Math.max(clock.flushedVersion, versions.get(i));
+            }
+        }
+        meterRegistry.counter("interview.session-clock.flushes").increment();
+        meterRegistry.counter("interview.session-clock.flushed-sessions").increment(sessionIds.size());
+        log.debug("写回会话剩余时间: {}个会话", sessionIds.size());
+    }
+
+    /**
+     * 淘汰长时间没有访问且已写回的会话计时
+     */
+    private void evictIdle() {
+        long expireBefore = System.currentTimeMillis() - idleEvictMs;
+        Iterator<Map.Entry<String, SessionClock>> iterator = clocks.entrySet().iterator();
+        while (iterator.hasNext()) {
+            SessionClock clock = iterator.next().getValue();
+            if (clock.lastAccessedAt < expireBefore && !clock.isDirty()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 关闭时写回全部未写回的剩余时间
+     */
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("关闭时写回会话剩余时间失败: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -158,6 +158,14 @@ public class DynamicConfigService {
         return getConfigValue("REPORT", "REPORT_GENERATION_SYSTEM_PROMPT");
     }
 
+    /**
+     * 获取结构化（JSON）报告生成的系统提示词
+     * @return 结构化报告生成系统提示词，如果不存在则返回空
+     */
+    public Optional<String> getReportGenerationJsonSystemPrompt() {
+        return getConfigValue("REPORT", "REPORT_GENERATION_JSON_SYSTEM_PROMPT");
+    }
+
     /**
      * 刷新配置缓存
      */
@@ -12,44 +12,76 @@ import com.aicv.airesume.model.vo.InterviewResponseVO;
 import com.aicv.airesume.model.vo.InterviewSessionVO;
 import com.aicv.airesume.model.vo.ReportChunksVO;
 import com.aicv.airesume.model.vo.InterviewHistoryItemVO;
+import com.aicv.airesume.model.vo.InterviewHistoryListVO;
 import com.aicv.airesume.repository.InterviewSessionRepository;
 import com.aicv.airesume.repository.JobTypeRepository;
 import com.aicv.airesume.repository.InterviewLogRepository;
 import com.aicv.airesume.repository.ResumeRepository;
 import com.aicv.airesume.repository.InterviewReportRepository;
+import com.aicv.airesume.repository.InterviewHistorySummary;
+import com.aicv.airesume.repository.InterviewSessionStreamView;
+import com.aicv.airesume.repository.InterviewSessionSummary;
+import com.aicv.airesume.repository.InterviewTranscriptQuestion;
+import com.aicv.airesume.repository.InterviewTranscriptRound;
+import com.aicv.airesume.service.ConversationContextService;
 import com.aicv.airesume.service.InterviewService;
 import com.aicv.airesume.service.PayService;
 
-import com.aicv.airesume.service.ResumeService;
+import com.aicv.airesume.service.SessionClockService;
+import com.aicv.airesume.service.prompt.ResumePromptRenderer;
+import com.aicv.airesume.service.prompt.ResumeSnapshotStore;
+import com.aicv.airesume.service.report.MarkdownReportParser;
+import com.aicv.airesume.service.report.ReportJobResumer;
+import com.aicv.airesume.service.report.ReportWriteBehindPersister;
+import com.aicv.airesume.service.stream.FirstQuestionPrefetchStore;
+import com.aicv.airesume.service.stream.LlmStreamExecutor;
+import com.aicv.airesume.service.task.InterviewTaskScheduler;
 import com.aicv.airesume.utils.AiServiceUtils;
+import com.aicv.airesume.utils.GlobalContextUtil;
 import com.aicv.airesume.service.ReportGenerationService;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.core.type.TypeReference;
 import lombok.extern.slf4j.Slf4j;
 import com.aicv.airesume.service.config.DynamicConfigService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * 面试服务实现类
  */
 @Service
 @Slf4j
-public class InterviewServiceImpl implements InterviewService {
+public class InterviewServiceImpl implements InterviewService, ReportJobResumer {
+
+    // 面试历史每页最大条数
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+    // 面试记录每页最大轮次数
+    private static final int MAX_TRANSCRIPT_PAGE_SIZE = 200;
+    private static final DateTimeFormatter TRANSCRIPT_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     @Autowired
     private InterviewSessionRepository sessionRepository;
@@ -71,63 +103,104 @@ public class InterviewServiceImpl implements InterviewService {
     
     @Autowired
     private DynamicConfigService dynamicConfigService;
-
-    @Autowired
-    private ResumeService resumeService;
     
     @Autowired
     private ReportGenerationService reportGenerationService;
     
     @Autowired
     private InterviewReportRepository interviewReportRepository;
+
+    @Autowired
+    private ReportWriteBehindPersister reportWriteBehindPersister;
+
+    @Autowired
+    private SessionClockService sessionClockService;
+
+    @Autowired
+    private ResumePromptRenderer resumePromptRenderer;
+
+    @Autowired
+    private ResumeSnapshotStore resumeSnapshotStore;
     
     @Autowired
     private PayService payService;
-    
-    // 线程池，用于处理异步任务
-    private final ExecutorService executorService = java.util.concurrent.Executors.newFixedThreadPool(2);
+
+    @Autowired
+    private ConversationContextService conversationContextService;
+
+    @Autowired
+    private FirstQuestionPrefetchStore firstQuestionPrefetchStore;
+
+    @Autowired
+    private InterviewTaskScheduler interviewTaskScheduler;
+
+    @Autowired
+    private LlmStreamExecutor llmStreamExecutor;
+
+    @Value("${interview.report.stream-timeout-ms:300000}")
+    private long reportStreamTimeoutMs;
+
+    @Value("${interview.report.default-format:markdown}")
+    private String defaultReportFormat;
     
     @Override
     public SseEmitter getFirstQuestionStream(String sessionId) {
         SseEmitter emitter = new SseEmitter(60000L); // 设置60秒超时
+
+        // 开始面试时已预取第一个问题：回放已生成的内容并继续实时输出
+        if (firstQuestionPrefetchStore.attach(sessionId, emitter)) {
+            return emitter;
+        }
         
-        new Thread(() -> {
+        submitStreamTask(sessionId, "first-question", emitter, done -> {
             try {
-                // 查询会话是否存在
-                InterviewSession session = sessionRepository.findBySessionId(sessionId)
+                // 查询会话是否存在，只加载生成问题需要的字段
+                InterviewSessionStreamView session = sessionRepository.findStreamViewBySessionId(sessionId)
                         .orElseThrow(() -> new RuntimeException("会话不存在"));
                 
-                // 获取完整简历内容
-                String resumeContent = getResumeContent(session);
+                // 确保会话引用的简历快照存在
+                ensureResumeSnapshot(session);
+
+                // 预取已生成并保存的第一个问题直接返回
+                Optional<InterviewLog> savedFirstLog = logRepository.findBySessionIdAndRoundNumber(sessionId, 1);
+                if (savedFirstLog.isPresent() && StringUtils.hasText(savedFirstLog.get().getQuestionText())) {
+                    emitter.send(SseEmitter.event().name("question").data(savedFirstLog.get().getQuestionText()));
+                    emitter.send(SseEmitter.event().data("end").name("end").id("2"));
+                    emitter.complete();
+                    done.run();
+                    return;
+                }
                 
-                // 创建第一个问题的日志记录
-                InterviewLog firstQuestionLog = new InterviewLog();
-                firstQuestionLog.setQuestionId(UUID.randomUUID().toString());
+                // 创建第一个问题的日志记录，预取失败时复用已创建的记录
+                InterviewLog firstQuestionLog = savedFirstLog.orElseGet(InterviewLog::new);
+                if (firstQuestionLog.getQuestionId() == null) {
+                    firstQuestionLog.setQuestionId(UUID.randomUUID().toString());
+                }
                 firstQuestionLog.setSessionId(sessionId);
                 firstQuestionLog.setRoundNumber(1);
                 
                 // 保存初始日志记录
                 logRepository.save(firstQuestionLog);
+                conversationContextService.onRoundStarted(sessionId, firstQuestionLog.getRoundNumber());
                 
                 // 调用统一的流式生成问题方法，并传递回调函数
-                generateQuestionStream(session, "", "", emitter); // 首次问题根据情况选择项目或技术问题
+                generateQuestionStream(sessionId, session.getPersonaPrompt(), "", "", emitter, done); // 首次问题根据情况选择项目或技术问题
                 
                 // 获取生成的问题（需要从AI响应中解析，这里简化处理）
                 String firstQuestion = "";
                 
                 // 更新会话问题计数
-                session.setQuestionCount(1);
-    
-                sessionRepository.save(session);
+                sessionRepository.updateQuestionCount(sessionId, 1);
                 
-                log.info("直接生成第一个面试问题并保存，会话ID: {}", session.getSessionId());
+                log.info("直接生成第一个面试问题并保存，会话ID: {}", sessionId);
                 
                 // 注意：问题已经通过generateNewQuestionWithAIStream方法流式发送给客户端了
             } catch (Exception e) {
                 log.error("获取第一个问题失败: {}", e.getMessage(), e);
                 emitter.completeWithError(e);
+                done.run();
             }
-        }).start();
+        });
         
         return emitter;
     }
@@ -136,70 +209,112 @@ public class InterviewServiceImpl implements InterviewService {
     public SseEmitter submitAnswerStream(String sessionId, String userAnswerText, Integer answerDuration, String toneStyle) {
         SseEmitter emitter = new SseEmitter(60000L); // 设置60秒超时
         
-        new Thread(() -> {
+        submitStreamTask(sessionId, "answer", emitter, done -> {
             try {
-                // 1. 获取会话信息
-                InterviewSession session = sessionRepository.findBySessionId(sessionId)
+                // 1. 获取会话信息，只加载提交回答需要的字段
+                InterviewSessionStreamView session = sessionRepository.findStreamViewBySessionId(sessionId)
                         .orElseThrow(() -> new RuntimeException("会话不存在"));
                 
                 // 获取最新的问题日志，需要找到有问题文本的最新记录
-                List<InterviewLog> logs = logRepository.findBySessionIdOrderByRoundNumberAsc(sessionId);
-                if (logs.isEmpty()) {
-                    throw new RuntimeException("问题不存在");
-                }
-                
-                // 找到包含问题文本的最新记录
-                InterviewLog currentLog = null;
-                for (int i = logs.size() - 1; i >= 0; i--) {
-                    InterviewLog log = logs.get(i);
-                    if (StringUtils.hasText(log.getQuestionText())) {
-                        currentLog = log;
-                        break;
-                    }
-                }
-                
-                if (currentLog == null) {
-                    throw new RuntimeException("找不到有问题文本的记录");
-                }
+                InterviewLog currentLog = findLatestQuestionLog(sessionId);
 
                 // 2. 更新当前问题日志
                 currentLog.setUserAnswerText(userAnswerText);
                 currentLog.setAnswerDuration(answerDuration);
                 logRepository.save(currentLog);
+                conversationContextService.onAnswerSaved(sessionId, currentLog.getRoundNumber(), userAnswerText);
 
-                // 3. 计算剩余时间
-                session.setSessionTimeRemaining(session.getSessionTimeRemaining() - answerDuration);
+                // 3. 扣减剩余时间，由会话计时服务批量写回数据库（只会减少，不会被旧值覆盖）
+                sessionClockService.deduct(sessionId, answerDuration);
                 
-                // 获取简历内容
-                String resumeContent = getResumeContent(session);
+                // 确保会话引用的简历快照存在
+                ensureResumeSnapshot(session);
             
                 
                 // 创建下一个问题的日志记录
                 InterviewLog nextQuestionLog = new InterviewLog();
                 nextQuestionLog.setQuestionId(UUID.randomUUID().toString());
                 nextQuestionLog.setSessionId(sessionId);
-                nextQuestionLog.setRoundNumber(session.getQuestionCount() + 1);
+                int questionCount = session.getQuestionCount() + 1;
+                nextQuestionLog.setRoundNumber(questionCount);
                 
                 // 保存新的日志记录
                 logRepository.save(nextQuestionLog);
+                conversationContextService.onRoundStarted(sessionId, nextQuestionLog.getRoundNumber());
                 
                 // 生成下一个问题（流式）
-                generateQuestionStream(session, currentLog.getQuestionText(), userAnswerText, emitter);
+                generateQuestionStream(sessionId, session.getPersonaPrompt(), currentLog.getQuestionText(), userAnswerText, emitter, done);
                 
                 // 7. 更新会话状态（需要从AI响应中获取nextQuestion和stopReason，这里简化处理）
-                session.setQuestionCount(session.getQuestionCount() + 1);
-
-                // 保存会话，确保剩余时间的更新被持久化
-                sessionRepository.save(session);
+                // 只更新问题数，不整行保存会话，避免覆盖并发写入的对话摘要等字段；剩余时间由会话计时服务写回
+                sessionRepository.updateQuestionCount(sessionId, questionCount);
             } catch (Exception e) {
                 log.error("提交回答失败: {}", e.getMessage(), e);
                 emitter.completeWithError(e);
+                done.run();
             }
-        }).start();
+        });
         
         return emitter;
     }
 
+    /**
+     * 把流式问答任务提交到面试任务调度器，排队已满或服务关闭时通知客户端稍后重试
+     * 任务的参数为结束回调，任务持有执行名额直到发起的流式请求结束
+     */
+    private void submitStreamTask(String sessionId, String taskName, SseEmitter emitter, Consumer<Runnable> task) {
+        Runnable busy = () -> {
+            try {
+                emitter.send(SseEmitter.event().data("当前面试人数较多，请稍后重试").name("error").id("error"));
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                log.error("发送错误信息失败：{}", e.getMessage(), e);
+            }
+        };
+        try {
+            interviewTaskScheduler.submitAsync(taskUserKey(sessionId), taskName, task, busy);
+        } catch (RejectedExecutionException e) {
+            log.warn("面试任务被拒绝，sessionId: {}，任务: {}: {}", sessionId, taskName, e.getMessage());
+            busy.run();
+        }
+    }
+
+    /**
+     * 公平调度使用的用户标识，请求线程中没有用户信息时按会话区分
+     */
+    private String taskUserKey(String sessionId) {
+        Long userId = GlobalContextUtil.getUserId();
+        return userId != null ? "user:" + userId : "session:" + sessionId;
+    }
+
+    /**
+     * 查找最新的有问题文本的日志
+     * 优先通过对话上下文定位轮次，只查询一条记录；上下文中没有时回退到全量查询
+     */
+    private InterviewLog findLatestQuestionLog(String sessionId) {
+        Integer latestRound = conversationContextService.getContext(sessionId).getLatestQuestionRound();
+        if (latestRound != null) {
+            Optional<InterviewLog> latestLog = logRepository.findBySessionIdAndRoundNumber(sessionId, latestRound);
+            if (latestLog.isPresent() && StringUtils.hasText(latestLog.get().getQuestionText())) {
+                return latestLog.get();
+            }
+        }
+
+        List<InterviewLog> logs = logRepository.findBySessionIdOrderByRoundNumberAsc(sessionId);
+        if (logs.isEmpty()) {
+            throw new RuntimeException("问题不存在");
+        }
+        
+        // 找到包含问题文本的最新记录
+        for (int i = logs.size() - 1; i >= 0; i--) {
+            InterviewLog log = logs.get(i);
+            if (StringUtils.hasText(log.getQuestionText())) {
+                return log;
+            }
+        }
+        throw new RuntimeException("找不到有问题文本的记录");
+    }
+
     /**
      * 开始面试（支持强制创建新会话）
      * @param userId 用户ID
@@ -227,13 +342,15 @@ public class InterviewServiceImpl implements InterviewService {
             }
             
             // 2. 检查用户是否有未完成的面试会话
-            List<InterviewSession> ongoingSessions = sessionRepository.findByUserIdAndStatusOrderByCreatedAtDesc(userId, "in_progress");
+            List<InterviewSessionSummary> ongoingSessions = sessionRepository.findSummariesByUserIdAndStatusOrderByCreatedAtDesc(userId, "in_progress");
             if (!ongoingSessions.isEmpty() && !Boolean.TRUE.equals(forceNew)) {
                 // 有未完成的面试会话且不强制创建新会话，直接返回最近的一个
-                InterviewSession existingSession = ongoingSessions.get(0);
+                InterviewSessionSummary existingSession = ongoingSessions.get(0);
                 log.info("用户 {} 有未完成的面试会话，直接返回: {}", userId, existingSession.getSessionId());
+                Integer sessionTimeRemaining = sessionClockService.getRemaining(existingSession.getSessionId())
+                        .orElse(existingSession.getSessionTimeRemaining());
                 
-                return buildInterviewResponse(existingSession, "continue_question", existingSession.getJobName());
+                return buildInterviewResponse(existingSession.getSessionId(), sessionTimeRemaining, "continue_question", existingSession.getJobName());
             }
             // 3. 获取行业职位标签
             String industryJobTag = getIndustryJobTag(resumeId);
@@ -244,8 +361,13 @@ public class InterviewServiceImpl implements InterviewService {
             // 5. 保存初始会话 - 这是快速返回的关键
             sessionRepository.save(session);
 
-            // 6. 构建并返回响应对象
-            return buildInterviewResponse(session, "first_question", industryJobTag);
+            // 6. 开启预取时在后台提前生成第一个问题
+            if (firstQuestionPrefetchStore.isEnabled()) {
+                prefetchFirstQuestion(session);
+            }
+
+            // 7. 构建并返回响应对象
+            return buildInterviewResponse(session.getSessionId(), session.getSessionTimeRemaining(), "first_question", industryJobTag);
         } catch (Exception e) {
             // 捕获异常后直接抛出
             log.error("开始面试失败: {}, 详细错误: {}", 
@@ -255,35 +377,72 @@ public class InterviewServiceImpl implements InterviewService {
     }
     
     /**
-     * 获取简历内容的辅助方法
+     * 在后台生成第一个问题并写入预取缓冲区，客户端连接SSE时回放
+     * 预取失败不影响开始面试，客户端连接时会重新生成
      */
-    private String getResumeContent(InterviewSession session) {
-        if (StringUtils.hasText(session.getResumeContent())) {
-            return session.getResumeContent();
-        } else {
-            // 如果简历内容不存在，从数据库获取
-            Map<String, Object> fullResumeData = resumeService.getResumeFullData(session.getResumeId());
-            String resumeContent = convertFullDataToText(fullResumeData);
-            // 保存简历内容到会话中
-            session.setResumeContent(resumeContent);
-            sessionRepository.save(session);
-            return resumeContent;
+    private void prefetchFirstQuestion(InterviewSession session) {
+        String sessionId = session.getSessionId();
+        FirstQuestionPrefetchStore.PrefetchBuffer buffer = firstQuestionPrefetchStore.create(sessionId);
+        if (buffer == null) {
+            return;
+        }
+        try {
+            // 创建第一个问题的日志记录，生成完成后由AiServiceUtils保存问题文本
+            InterviewLog firstQuestionLog = new InterviewLog();
+            firstQuestionLog.setQuestionId(UUID.randomUUID().toString());
+            firstQuestionLog.setSessionId(sessionId);
+            firstQuestionLog.setRoundNumber(1);
+            logRepository.save(firstQuestionLog);
+            conversationContextService.onRoundStarted(sessionId, firstQuestionLog.getRoundNumber());
+
+            session.setQuestionCount(1);
+            sessionRepository.updateQuestionCount(sessionId, 1);
+
+            aiServiceUtils.callDeepSeekApiStream(buildQuestionSystemPrompt(session.getPersonaPrompt()), buildQuestionUserPrompt("", ""),
+                    null, buffer::append, buffer::complete, buffer::fail, sessionId, "question");
+            log.info("已开始预取第一个面试问题，会话ID: {}", sessionId);
+        } catch (Exception e) {
+            log.error("预取第一个问题失败，会话ID: {}: {}", sessionId, e.getMessage(), e);
+            buffer.fail(e);
         }
     }
+
+    /**
+     * 确保会话引用的简历快照存在，返回简历文本
+     * 快照不存在时使用旧会话中保存的全文，全文也不存在时使用简历的渲染结果，保存为快照后会话只记录哈希
+     */
+    private String ensureResumeSnapshot(InterviewSessionStreamView session) {
+        String sessionId = session.getSessionId();
+        if (StringUtils.hasText(session.getResumeContentHash())) {
+            Optional<String> text = resumeSnapshotStore.load(session.getResumeContentHash());
+            if (text.isPresent()) {
+                return text.get();
+            }
+            log.warn("简历快照不存在，sessionId: {}, hash: {}", sessionId, session.getResumeContentHash());
+        }
+        // 只在没有快照时读取简历全文
+        String resumeContent = sessionRepository.findResumeContentBySessionId(sessionId)
+                .filter(StringUtils::hasText)
+                .orElseGet(() -> resumePromptRenderer.render(session.getResumeId()).getText());
+        sessionRepository.updateResumeContentHash(sessionId, resumeSnapshotStore.save(resumeContent));
+        // 已缓存的对话上下文不包含简历内容，需要重新加载
+        conversationContextService.evict(sessionId);
+        return resumeContent;
+    }
     
     /**
      * 构建面试响应对象
      */
-    private InterviewResponseVO buildInterviewResponse(InterviewSession session, String questionType, String industryJobTag) {
+    private InterviewResponseVO buildInterviewResponse(String sessionId, Integer sessionTimeRemaining, String questionType, String industryJobTag) {
         InterviewResponseVO response = new InterviewResponseVO();
-        response.setSessionId(session.getSessionId());
+        response.setSessionId(sessionId);
         response.setQuestion(null);
         response.setQuestionType(questionType);
         response.setFeedback(null);
         response.setNextQuestion(null);
         response.setIsCompleted(false);
         response.setIndustryJobTag(industryJobTag);
-        response.setSessionTimeRemaining(session.getSessionTimeRemaining());
+        response.setSessionTimeRemaining(sessionTimeRemaining);
         return response;
     }
 
@@ -336,34 +495,102 @@ public class InterviewServiceImpl implements InterviewService {
         String personaPrompt = String.format("你是%s风格的面试官。%s\n", session.getPersona(), personaStyle);
         session.setPersonaPrompt(personaPrompt);
         
-        // 获取完整简历内容并提取结构化信息
-        Map<String, Object> fullResumeData = resumeService.getResumeFullData(resumeId);
-        // 保存简历内容到会话中
-        session.setResumeContent(convertFullDataToText(fullResumeData));
+        // 获取简历文本（简历未修改时使用缓存的渲染结果）
+        ResumePromptRenderer.RenderedResume rendered = resumePromptRenderer.render(resumeId);
+        // 保存简历快照（相同内容只保存一次），会话只记录哈希
+        session.setResumeContentHash(resumeSnapshotStore.save(rendered.getText()));
 
         return session;
     }
 
     @Override
     public String startReportGeneration(String sessionId, String lastAnswer) {
+        return startReportGeneration(sessionId, lastAnswer, null);
+    }
+
+    @Override
+    public String startReportGeneration(String sessionId, String lastAnswer, String format) {
         // 生成唯一的reportId
         String reportId = "report_" + UUID.randomUUID().toString().replace("-", "");
+        ReportGenerationService.ReportFormat reportFormat = ReportGenerationService.ReportFormat.of(format);
+        if (reportFormat == null) {
+            reportFormat = ReportGenerationService.ReportFormat.of(defaultReportFormat);
+        }
         
         // 创建报告生成记录
-        ReportGenerationService.ReportGenerationRecord record = reportGenerationService.createReportRecord(reportId);
-        SseEmitter emitter = new SseEmitter(60000L);
-        // 启动异步线程生成报告
-        executorService.submit(() -> {
-            try {
-                // 1. 获取会话信息和所有日志
-                InterviewSession session = sessionRepository.findBySessionId(sessionId)
-                        .orElseThrow(() -> new RuntimeException("会话不存在"));
-                List<InterviewLog> logs = logRepository.findBySessionIdOrderByRoundNumberAsc(sessionId);
-                
+        ReportGenerationService.ReportGenerationRecord record = reportGenerationService.createReportRecord(reportId, sessionId,
+                reportFormat != null ? reportFormat : ReportGenerationService.ReportFormat.MARKDOWN);
+        // 提交到面试任务调度器生成报告
+        Consumer<Runnable> reportTask = done -> generateReport(sessionId, lastAnswer, record, false, done);
+        Runnable cancelled = () -> record.fail("当前生成报告人数较多，请稍后重试");
+        try {
+            interviewTaskScheduler.submitAsync(taskUserKey(sessionId), "report", reportTask, cancelled);
+        } catch (RejectedExecutionException e) {
+            log.warn("报告生成任务被拒绝，sessionId: {}: {}", sessionId, e.getMessage());
+            cancelled.run();
+        }
+        
+        return reportId;
+    }
+
+    /**
+     * 结构化报告的系统提示词，要求输出与面试报告字段对应的JSON对象
+     */
+    private String buildStructuredReportSystemPrompt() {
+        return dynamicConfigService.getReportGenerationJsonSystemPrompt().orElse(
+                "请作为资深技术面试官，全面分析以下面试会话记录，生成一份详细的面试报告。\n" +
+                "请只输出一个JSON对象，不要输出任何其他内容，字段如下：\n" +
+                "{\n" +
+                "  \"totalScore\": 总分（0-100的数字）,\n" +
+                "  \"overallFeedback\": \"总体评价\",\n" +
+                "  \"strengths\": [\"优势1\", \"优势2\"],\n" +
+                "  \"improvements\": [\"改进点1\", \"改进点2\"],\n" +
+                "  \"techDepthEvaluation\": \"技术深度评价\",\n" +
+                "  \"logicExpressionEvaluation\": \"逻辑表达评价\",\n" +
+                "  \"communicationEvaluation\": \"沟通表达评价\",\n" +
+                "  \"answerDepthEvaluation\": \"回答深度评价\",\n" +
+                "  \"detailedImprovementSuggestions\": \"针对候选人的详细改进建议\"\n" +
+                "}\n" +
+                "请按上述顺序输出字段，确保内容具体、针对性强，基于面试中的实际表现，总字数控制在500字左右。\n" +
+                "字符串内容可以使用简单的Markdown格式（如**粗体**），但不要使用标题。\n"
+        );
+    }
+
+    @Override
+    public void resume(ReportGenerationService.ReportGenerationRecord record) {
+        String sessionId = record.getSessionId();
+        Runnable cancelled = () -> record.fail("当前生成报告人数较多，请稍后重试");
+        try {
+            interviewTaskScheduler.submitAsync("session:" + sessionId, "report", done -> generateReport(sessionId, null, record, true, done), cancelled);
+        } catch (RejectedExecutionException e) {
+            log.warn("恢复报告生成任务被拒绝，sessionId: {}: {}", sessionId, e.getMessage());
+            cancelled.run();
+        }
+    }
+
+    /**
+     * 生成面试报告
+     * @param sessionId 会话ID
+     * @param lastAnswer 最后一题的回答内容
+     * @param record 报告生成记录
+     * @param resumed 是否为接管的报告任务：会话已结束，只需从已生成的内容继续生成
+     * @param done 报告生成结束（包括流式请求结束）后的回调，释放任务调度器的执行名额
+     */
+    private void generateReport(String sessionId, String lastAnswer,
+                                ReportGenerationService.ReportGenerationRecord record, boolean resumed, Runnable done) {
+        try {
+            // 1. 获取会话信息和所有日志，会话只需要基本字段
+            InterviewSessionSummary session = sessionRepository.findSummaryBySessionId(sessionId)
+                    .orElseThrow(() -> new RuntimeException("会话不存在"));
+            int questionCount = session.getQuestionCount() != null ? session.getQuestionCount() : 0;
+            List<InterviewLog> logs = logRepository.findBySessionIdOrderByRoundNumberAsc(sessionId);
+            
+            // 接管的报告任务会话已在原节点结束，不再处理最后一题和会话状态
+            if (!resumed) {
                 // 2. 处理最后一题：更新或删除
                 if (!logs.isEmpty()) {
                     InterviewLog lastLog = logs.get(logs.size() - 1);
-                    
+                
                     // 如果有传递最后一题的回答内容
                     if (lastAnswer != null && !lastAnswer.trim().isEmpty()) {
                         log.info("面试时间归零，接收到最后一题回答内容，更新到日志中，sessionId: {}", sessionId);
@@ -376,7 +603,7 @@ public class InterviewServiceImpl implements InterviewService {
                             logRepository.delete(lastLog);
                             logs.remove(logs.size() - 1);
                             // 更新会话的问题计数
-                            session.setQuestionCount(session.getQuestionCount() - 1);
+                            questionCount--;
                         } else {
                             log.info("面试时间归零，最后一题已有回答内容，保留最后一个问题，sessionId: {}", sessionId);
                         }
@@ -384,84 +611,98 @@ public class InterviewServiceImpl implements InterviewService {
                 }
 
                 // 3. 更新会话状态
-                session.setStatus("completed");
-                session.setEndTime(LocalDateTime.now());
-                
-                // 4. 保存会话更新
-                sessionRepository.save(session);
+                // 4. 只更新状态、结束时间和问题数，不整行保存会话
+                sessionRepository.finish(sessionId, "completed", LocalDateTime.now(), questionCount);
+                // 面试已结束，释放对话上下文
+                conversationContextService.evict(sessionId);
+            }
 
-                // 5. 构建完整的面试会话记录
-                StringBuilder sessionContent = new StringBuilder();
-                sessionContent.append("面试职位: " + session.getJobName() + "\n");
-                sessionContent.append("面试会话记录:\n");
-                
-                for (InterviewLog log : logs) {
-                    sessionContent.append("问题 " + log.getRoundNumber() + ": " + log.getQuestionText() + "\n");
-                    sessionContent.append("回答: " + log.getUserAnswerText() + "\n");
-                }
-                
-                // 6. 构建prompt让DeepSeek全面分析面试情况
-                // 从动态配置中获取系统提示词，如果不存在则使用默认值
-                String systemPrompt = dynamicConfigService.getReportGenerationSystemPrompt().orElse(
-                        "请作为资深技术面试官，全面分析以下面试会话记录，生成一份详细的面试报告。\n" +
-                        "报告需要包含以下内容：\n" +
-                        "1. 总体评价和总分\n" +
-                        "2. 优势分析\n" +
-                        "3. 改进点\n" +
-                        "4. 技术深度评价\n" +
-                        "5. 逻辑表达评价\n" +
-                        "6. 沟通表达评价\n" +
-                        "7. 回答深度评价\n" +
-                        "8. 针对候选人的详细改进建议\n" +
-                        "请确保报告内容具体、针对性强，基于面试中的实际表现。\n" +
-                        "请将报告总字数控制在500字左右，确保内容精炼且全面。\n" +
-                        "重要要求：\n" +
-                        "1. 请使用简洁清晰的Markdown格式，避免过度使用格式。\n" +
-                        "2. 标题使用：仅使用##（二级标题）作为各部分标题，例如：## 总体评价和总分\n" +
-                        "3. 列表使用：使用-（减号）作为无序列表标记，例如：- 优势1\n" +
-                        "4. 强调使用：仅对核心关键词使用**（粗体），例如：**核心优势**\n" +
-                        "5. 避免使用：代码块、链接、图片、分割线等复杂格式。\n" +
-                        "6. 内容结构：每部分内容保持简洁，重点突出，避免冗长。\n"
-                );
-                
-                String userPrompt = "面试会话记录：\n" + sessionContent.toString();
-
-                // 7. 使用流式方式调用DeepSeek API，将结果按块存储到reportGenerationService
-                StringBuilder currentChunk = new StringBuilder();
-                aiServiceUtils.callDeepSeekApiStream(systemPrompt, userPrompt, emitter, content -> {
-                    if (content != null && !content.isEmpty()) {
-                        currentChunk.append(content);
-                        // 当当前块超过20字时，存储并清空
-                        if (currentChunk.length() >= 20) {
-                            record.addChunk(currentChunk.toString());
-                            currentChunk.setLength(0);
-                        }
-                        log.debug("当前内容块为：{}", currentChunk.toString());
+            // 5. 构建完整的面试会话记录
+            StringBuilder sessionContent = new StringBuilder();
+            sessionContent.append("面试职位: " + session.getJobName() + "\n");
+            sessionContent.append("面试会话记录:\n");
+            
+            for (InterviewLog log : logs) {
+                sessionContent.append("问题 " + log.getRoundNumber() + ": " + log.getQuestionText() + "\n");
+                sessionContent.append("回答: " + log.getUserAnswerText() + "\n");
+            }
+            
+            // 6. 构建prompt让DeepSeek全面分析面试情况
+            boolean structured = record.getFormat() == ReportGenerationService.ReportFormat.JSON;
+            // 从动态配置中获取系统提示词，如果不存在则使用默认值
+            String systemPrompt = structured ? buildStructuredReportSystemPrompt() : dynamicConfigService.getReportGenerationSystemPrompt().orElse(
+                    "请作为资深技术面试官，全面分析以下面试会话记录，生成一份详细的面试报告。\n" +
+                    "报告需要包含以下内容：\n" +
+                    "1. 总体评价和总分\n" +
+                    "2. 优势分析\n" +
+                    "3. 改进点\n" +
+                    "4. 技术深度评价\n" +
+                    "5. 逻辑表达评价\n" +
+                    "6. 沟通表达评价\n" +
+                    "7. 回答深度评价\n" +
+                    "8. 针对候选人的详细改进建议\n" +
+                    "请确保报告内容具体、针对性强，基于面试中的实际表现。\n" +
+                    "请将报告总字数控制在500字左右，确保内容精炼且全面。\n" +
+                    "重要要求：\n" +
+                    "1. 请使用简洁清晰的Markdown格式，避免过度使用格式。\n" +
+                    "2. 标题使用：仅使用##（二级标题）作为各部分标题，例如：## 总体评价和总分\n" +
+                    "3. 列表使用：使用-（减号）作为无序列表标记，例如：- 优势1\n" +
+                    "4. 强调使用：仅对核心关键词使用**（粗体），例如：**核心优势**\n" +
+                    "5. 避免使用：代码块、链接、图片、分割线等复杂格式。\n" +
+                    "6. 内容结构：每部分内容保持简洁，重点突出，避免冗长。\n"
+            );
+            
+            String userPrompt = "面试会话记录：\n" + sessionContent.toString();
+            if (resumed && record.getChunkCount() > 0) {
+                // 从检查点继续生成，已生成的内容保持不变
+                userPrompt += "\n以下是已生成的报告前半部分，请从中断处继续输出剩余内容，不要重复已输出的内容：\n"
+                        + record.getContent();
+            }
+
+            // 7. 使用流式方式调用DeepSeek API，将结果按块存储到reportGenerationService，同时边生成边解析报告
+            // JSON格式的报告由报告记录边写入边读取字段；继续生成时输出的是JSON的后半部分，不能再要求完整的JSON对象
+            StringBuilder currentChunk = new StringBuilder();
+            MarkdownReportParser reportParser = structured ? null : new MarkdownReportParser();
+            if (resumed && reportParser != null) {
+                reportParser.feed(record.getContent());
+            }
+            String eventName = structured && !resumed ? AiServiceUtils.REPORT_JSON_EVENT : "report";
+            // 报告内容通过报告记录推送给订阅的客户端，不需要SSE发射器
+            aiServiceUtils.callDeepSeekApiStream(systemPrompt, userPrompt, null, content -> {
+                if (content != null && !content.isEmpty()) {
+                    if (reportParser != null) {
+                        reportParser.feed(content);
                     }
-                }, () -> {
-                    try {
-                        // 保存剩余的内容
-                        if (currentChunk.length() > 0) {
-                            record.addChunk(currentChunk.toString());
-                        }
-                        // 标记报告生成完成
-                        record.setStatus(ReportGenerationService.ReportStatus.COMPLETED);
-                        
-                        // 自动保存报告到数据库
-                        saveGeneratedReportToDatabase(sessionId, record);
-                    } catch (Exception e) {
-                        log.error("自动保存报告失败: {}", e.getMessage(), e);
+                    currentChunk.append(content);
+                    // 当当前块超过20字时，存储并清空
+                    if (currentChunk.length() >= 20) {
+                        record.addChunk(currentChunk.toString());
+                        currentChunk.setLength(0);
                     }
-                }, sessionId, "report");
+                    log.debug("当前内容块为：{}", currentChunk.toString());
+                }
+            }, () -> {
+                try {
+                    // 保存剩余的内容
+                    if (currentChunk.length() > 0) {
+                        record.addChunk(currentChunk.toString());
+                    }
+                    // 标记报告生成完成
+                    record.setStatus(ReportGenerationService.ReportStatus.COMPLETED);
+                    
+                    // 自动保存报告到数据库
+                    saveGeneratedReportToDatabase(sessionId, record,
+                            reportParser != null ? reportParser::finish : record::getStructuredReportData);
+                } catch (Exception e) {
+                    log.error("自动保存报告失败: {}", e.getMessage(), e);
+                }
+            }, error -> record.fail("生成面试报告失败: " + error.getMessage()), done, sessionId, eventName);
 
-            } catch (Exception e) {
-                log.error("生成报告失败", e);
-                record.setStatus(ReportGenerationService.ReportStatus.FAILED);
-                record.setErrorMessage("生成面试报告失败: " + e.getMessage());
-            }
-        });
-        
-        return reportId;
+        } catch (Exception e) {
+            log.error("生成报告失败", e);
+            record.fail("生成面试报告失败: " + e.getMessage());
+            done.run();
+        }
     }
 
     @Override
@@ -474,56 +715,95 @@ public class InterviewServiceImpl implements InterviewService {
             return result;
         }
         
-        List<ReportGenerationService.ReportChunk> chunks = reportGenerationService.getReportChunks(reportId, lastIndex);
+        // 先读取状态再读取内容块，保证返回已完成时内容块是完整的
+        ReportGenerationService.ReportStatus status = record.getStatus();
+        int chunkCount = record.getChunkCount();
+        List<ReportGenerationService.ReportChunk> chunks = record.readChunks(lastIndex + 1, chunkCount);
         
-        result.setStatus(record.getStatus().name());
+        result.setStatus(status.name());
         result.setChunks(chunks);
-        result.setLastIndex(record.getChunks().size() - 1);
-        result.setCompleted(record.getStatus() == ReportGenerationService.ReportStatus.COMPLETED);
+        result.setFormat(record.getFormat().name().toLowerCase());
+        result.setFields(record.getFields());
+        result.setLastIndex(Math.max(chunkCount - 1, lastIndex));
+        result.setCompleted(status == ReportGenerationService.ReportStatus.COMPLETED);
         
-        if (record.getStatus() == ReportGenerationService.ReportStatus.FAILED) {
+        if (status == ReportGenerationService.ReportStatus.FAILED) {
             result.setErrorMessage(record.getErrorMessage());
         }
         
         return result;
     }
     
-    /**
-     * 从AI生成的报告中提取指定章节的内容
-     * @param report 完整的报告内容
-     * @param startSection 开始章节标题
-     * @param endSection 结束章节标题
-     * @return 提取的章节内容
-     */
-    private String extractSectionFromReport(String report, String startSection, String endSection) {
-        if (report == null || report.isEmpty()) {
-            return "";
-        }
-        
-        if (startSection == null || startSection.isEmpty()) {
-            return "";
-        }
-        
-        int startIndex = report.indexOf(startSection);
-        if (startIndex == -1) {
-            return "";
-        }
-        
-        startIndex += startSection.length();
-        
-        // 如果endSection为null或空，则直接返回从startIndex到报告结尾的内容
-        if (endSection == null || endSection.isEmpty()) {
-            return report.substring(startIndex).trim();
+    @Override
+    public SseEmitter streamReportChunks(String reportId, int lastIndex) {
+        SseEmitter emitter = new SseEmitter(reportStreamTimeoutMs);
+        ReportGenerationService.ReportGenerationRecord record = reportGenerationService.getReportRecord(reportId);
+        if (record == null) {
+            try {
+                emitter.send(SseEmitter.event().name("error").data("报告不存在"));
+                emitter.complete();
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+            return emitter;
         }
-        
-        int endIndex = report.indexOf(endSection, startIndex); // 从startIndex之后开始查找endSection
-        if (endIndex == -1 || endIndex < startIndex) {
-            return report.substring(startIndex).trim();
+
+        // 报告推送连接有单独的上限，不占用大模型流式请求的存活流名额
+        if (!reportGenerationService.tryOpenPushConnection()) {
+            // 推送连接已满，客户端可回退到轮询接口
+            emitter.completeWithError(new RejectedExecutionException("报告推送连接数已达上限"));
+            return emitter;
         }
-        
-        return report.substring(startIndex, endIndex).trim();
+        // 由共享心跳定时器维持连接
+        AtomicBoolean closed = new AtomicBoolean(false);
+        LlmStreamExecutor.StreamHandle heartbeatHandle = llmStreamExecutor.keepAlive(emitter, closed);
+        AtomicBoolean connectionClosed = new AtomicBoolean(false);
+
+        ReportGenerationService.ReportListener listener = new ReportGenerationService.ReportListener() {
+            @Override
+            public void onChunk(ReportGenerationService.ReportChunk chunk) throws IOException {
+                emitter.send(SseEmitter.event().name("chunk").id(String.valueOf(chunk.getIndex()))
+                        .data(chunk, MediaType.APPLICATION_JSON));
+            }
+
+            @Override
+            public void onField(String name, Object value) throws IOException {
+                Map<String, Object> field = new HashMap<>();
+                field.put("name", name);
+                field.put("value", value);
+                emitter.send(SseEmitter.event().name("field").data(field, MediaType.APPLICATION_JSON));
+            }
+
+            @Override
+            public void onFinished(ReportGenerationService.ReportStatus status, String errorMessage) throws IOException {
+                if (!closed.compareAndSet(false, true)) {
+                    return;
+                }
+                if (status == ReportGenerationService.ReportStatus.COMPLETED) {
+                    emitter.send(SseEmitter.event().name("end").data("end"));
+                } else {
+                    emitter.send(SseEmitter.event().name("error").data(errorMessage != null ? errorMessage : "生成面试报告失败"));
+                }
+                emitter.complete();
+            }
+        };
+        Runnable unsubscribe = () -> {
+            closed.set(true);
+            record.unsubscribe(listener);
+            llmStreamExecutor.release(heartbeatHandle);
+            if (connectionClosed.compareAndSet(false, true)) {
+                reportGenerationService.closePushConnection();
+            }
+        };
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(error -> unsubscribe.run());
+
+        // 回放和后续推送都在报告推送线程上执行，不阻塞当前请求线程和报告生成
+        reportGenerationService.subscribe(record, lastIndex, listener);
+        return emitter;
     }
-    
+
     /**
      * 根据面试官风格ID增强风格描述
      */
@@ -570,21 +850,67 @@ public class InterviewServiceImpl implements InterviewService {
     }
 
     
-    private void generateQuestionStream(InterviewSession session, String previousQuestion, String previousAnswer, SseEmitter emitter) {
+    /**
+     * 流式生成问题
+     * @param sessionId 会话ID
+     * @param personaPrompt 会话保存的面试官风格提示词
+     * @param done 流式请求结束后的回调，释放任务调度器的执行名额
+     */
+    private void generateQuestionStream(String sessionId, String personaPrompt, String previousQuestion, String previousAnswer,
+                                        SseEmitter emitter, Runnable done) {
+        String systemPrompt = buildQuestionSystemPrompt(personaPrompt);
+        String userPrompt = buildQuestionUserPrompt(previousQuestion, previousAnswer);
+        
+        try {
+            // 调用AI服务（流式）
+            log.info("调用Deepseek API生成问题，systemPrompt: {}, userPrompt: {}", systemPrompt, userPrompt);
+            aiServiceUtils.callDeepSeekApiStream(systemPrompt, userPrompt, emitter, null, () -> {
+                                         try {
+                                             emitter.send(SseEmitter.event().data("end").name("end").id("2"));
+                                             emitter.complete();
+                                         } catch (IOException e) {
+                                             log.error("发送结束信号失败：{}", e.getMessage(), e);
+                                             emitter.completeWithError(e);
+                                         }
+                                     }, null, done, sessionId, "question");
+            log.info("调用Deepseek API生成问题完成（流式）");
+        } catch (Exception e) {
+            log.error("生成问题失败：{}", e.getMessage(), e);
+            try {
+                emitter.send(SseEmitter.event().data("生成问题失败，请稍后重试").name("error").id("error"));
+                emitter.complete();
+            } catch (IOException ex) {
+                log.error("发送错误信息失败：{}", ex.getMessage(), ex);
+            }
+            done.run();
+        }
+    }
+
+    /**
+     * 构建生成问题的系统提示词（面试官风格）
+     */
+    private String buildQuestionSystemPrompt(String personaPrompt) {
         // 构建系统提示词（包含固定的指令和要求）
         StringBuilder systemPromptBuilder = new StringBuilder();
         
         // 从session中获取面试官风格提示词，如果存在则使用，否则重新生成
         try {
-            if (StringUtils.hasText(session.getPersonaPrompt())) {
+            if (StringUtils.hasText(personaPrompt)) {
                 // 使用session中保存的风格提示词
                 systemPromptBuilder.append("\n");
-                systemPromptBuilder.append(session.getPersonaPrompt());
+                systemPromptBuilder.append(personaPrompt);
             }
         } catch (Exception e) {
             log.error("从session获取或生成personaPrompt失败: {}", e.getMessage());
         }
         
+        return systemPromptBuilder.toString();
+    }
+
+    /**
+     * 构建生成问题的用户提示词
+     */
+    private String buildQuestionUserPrompt(String previousQuestion, String previousAnswer) {
         // 构建用户提示词（包含动态内容和具体问题要求）
         StringBuilder userPromptBuilder = new StringBuilder();
         
@@ -600,81 +926,122 @@ public class InterviewServiceImpl implements InterviewService {
             userPromptBuilder.append("问题应该有针对性，考察候选人的实际技术能力。\n");
         }
         userPromptBuilder.append("整句话只能有一个问号。\n");
-        String systemPrompt = systemPromptBuilder.toString();
-        String userPrompt = userPromptBuilder.toString();
-        
-        try {
-            // 调用AI服务（流式）
-            log.info("调用Deepseek API生成问题，systemPrompt: {}, userPrompt: {}", systemPrompt, userPrompt);
-            aiServiceUtils.callDeepSeekApiStream(systemPrompt, userPrompt, emitter, () -> {
-                                         try {
-                                             emitter.send(SseEmitter.event().data("end").name("end").id("2"));
-                                             emitter.complete();
-                                         } catch (IOException e) {
-                                             log.error("发送结束信号失败：{}", e.getMessage(), e);
-                                             emitter.completeWithError(e);
-                                         }
-                                     }, session.getSessionId());
-            log.info("调用Deepseek API生成问题完成（流式）");
-        } catch (Exception e) {
-            log.error("生成问题失败：{}", e.getMessage(), e);
-            try {
-                emitter.send(SseEmitter.event().data("生成问题失败，请稍后重试").name("error").id("error"));
-                emitter.complete();
-            } catch (IOException ex) {
-                log.error("发送错误信息失败：{}", ex.getMessage(), ex);
-            }
-        }
+        return userPromptBuilder.toString();
     }
 
     @Override
     public List<InterviewHistoryVO> getInterviewHistory(Long userId) {
-        List<InterviewSession> sessions = sessionRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        return sessions.stream().map(session -> {
+        return toHistoryVOs(sessionRepository.findHistorySummaries(userId, Pageable.unpaged()));
+    }
+
+    @Override
+    public InterviewHistoryListVO getInterviewHistory(Long userId, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+        // 多查一条用于判断是否还有下一页
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        List<InterviewHistorySummary> rows;
+        if (StringUtils.hasText(cursor)) {
+            HistoryCursor position = HistoryCursor.decode(cursor);
+            rows = sessionRepository.findHistorySummariesBefore(userId, position.createdAt, position.id, pageable);
+        } else {
+            rows = sessionRepository.findHistorySummaries(userId, pageable);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+        InterviewHistoryListVO result = new InterviewHistoryListVO(toHistoryVOs(rows));
+        if (hasMore) {
+            InterviewHistorySummary last = rows.get(rows.size() - 1);
+            result.setNextCursor(new HistoryCursor(last.getCreatedAt(), last.getId()).encode());
+        }
+        return result;
+    }
+
+    @Override
+    public long countInterviews(Long userId) {
+        return sessionRepository.countByUserId(userId);
+    }
+
+    private List<InterviewHistoryVO> toHistoryVOs(List<InterviewHistorySummary> rows) {
+        List<InterviewHistoryVO> result = new ArrayList<>(rows.size());
+        for (InterviewHistorySummary row : rows) {
             InterviewHistoryVO vo = new InterviewHistoryVO();
-            vo.setSessionId(session.getId());
-            vo.setUniqueSessionId(session.getSessionId()); // 添加唯一会话ID
-            vo.setTitle(session.getJobName());
-            
-            // 从面试报告获取总评分
-            Optional<InterviewReport> reportOpt = interviewReportRepository.findBySessionId(session.getSessionId());
-            reportOpt.ifPresent(report -> vo.setFinalScore(report.getTotalScore()));
-            
-            vo.setStatus(session.getStatus());
-            
+            vo.setSessionId(row.getId());
+            vo.setUniqueSessionId(row.getSessionId()); // 添加唯一会话ID
+            vo.setTitle(row.getJobName());
+
+            // 报告总分，刚生成还未写入数据库的报告从待写入队列中取
+            Double totalScore = row.getTotalScore();
+            if (totalScore == null) {
+                totalScore = reportWriteBehindPersister.findPending(row.getSessionId())
+                        .map(InterviewReport::getTotalScore)
+                        .orElse(null);
+            }
+            vo.setFinalScore(totalScore);
+
+            vo.setStatus(row.getStatus());
+
             // 转换时间格式
-            if (session.getStartTime() != null) {
-                vo.setStartTime(session.getStartTime().atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli());
+            if (row.getStartTime() != null) {
+                vo.setStartTime(row.getStartTime().atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli());
             }
-            if (session.getEndTime() != null) {
-                vo.setEndTime(session.getEndTime().atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli());
+            if (row.getEndTime() != null) {
+                vo.setEndTime(row.getEndTime().atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli());
             }
-            
-            // 获取问题数量
-            List<InterviewLog> logs = logRepository.findBySessionIdOrderByRoundNumberAsc(session.getSessionId());
-            vo.setQuestionCount(logs.size());
-            
-            return vo;
-        }).collect(Collectors.toList());
+
+            vo.setQuestionCount(row.getQuestionCount() != null ? row.getQuestionCount().intValue() : 0);
+            result.add(vo);
+        }
+        return result;
+    }
+
+    /**
+     * 面试历史分页游标：上一页最后一条的创建时间和会话主键，对客户端不透明
+     */
+    private static final class HistoryCursor {
+        private final LocalDateTime createdAt;
+        private final Long id;
+
+        HistoryCursor(LocalDateTime createdAt, Long id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+
+        String encode() {
+            String raw = createdAt + "," + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static HistoryCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int comma = raw.lastIndexOf(',');
+                return new HistoryCursor(LocalDateTime.parse(raw.substring(0, comma)), Long.parseLong(raw.substring(comma + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("无效的分页游标: " + cursor);
+            }
+        }
     }
     
     @Override
     public InterviewSessionVO checkOngoingInterview(Long userId) {
         // 查找用户的进行中面试会话
-        List<InterviewSession> sessions = sessionRepository.findByUserIdAndStatusOrderByCreatedAtDesc(userId, "in_progress");
+        List<InterviewSessionSummary> sessions = sessionRepository.findSummariesByUserIdAndStatusOrderByCreatedAtDesc(userId, "in_progress");
         
         if (sessions.isEmpty()) {
             return null; // 没有进行中的面试
         }
         
         // 返回最新的进行中面试会话
-        InterviewSession session = sessions.get(0);
+        InterviewSessionSummary session = sessions.get(0);
         return getInterviewDetail(session.getSessionId());
     }
     
     @Override
     public InterviewSessionVO getInterviewDetail(String sessionId) {
-        InterviewSession session = sessionRepository.findBySessionId(sessionId)
+        InterviewSessionSummary session = sessionRepository.findSummaryBySessionId(sessionId)
                 .orElseThrow(() -> new RuntimeException("Interview session not found"));
         InterviewSessionVO vo = new InterviewSessionVO();
         vo.setId(session.getId());
@@ -684,8 +1051,10 @@ public class InterviewServiceImpl implements InterviewService {
         vo.setStatus(session.getStatus());
         vo.setPersona(session.getPersona());
         vo.setSessionSeconds(session.getSessionSeconds());
-        vo.setSessionTimeRemaining(session.getSessionTimeRemaining());
-        vo.setInterviewDuration(session.getSessionSeconds() - session.getSessionTimeRemaining());
+        // 客户端上报的剩余时间可能还未写回数据库
+        Integer sessionTimeRemaining = sessionClockService.getRemaining(sessionId).orElse(session.getSessionTimeRemaining());
+        vo.setSessionTimeRemaining(sessionTimeRemaining);
+        vo.setInterviewDuration(session.getSessionSeconds() - sessionTimeRemaining);
         vo.setCreatedAt(session.getCreatedAt());
         vo.setFinishedAt(session.getEndTime());
         
@@ -726,7 +1095,7 @@ public class InterviewServiceImpl implements InterviewService {
     @Override
     public InterviewReportVO getInterviewReport(String sessionId) {
         // 获取报告信息
-        Optional<InterviewReport> reportOpt = interviewReportRepository.findBySessionId(sessionId);
+        Optional<InterviewReport> reportOpt = findReport(sessionId);
         
         InterviewReportVO vo = new InterviewReportVO();
         vo.setSessionId(sessionId);
@@ -771,392 +1140,168 @@ public class InterviewServiceImpl implements InterviewService {
     }
     
     @Override
-    public void saveReport(String sessionId, Map<String, Object> reportData) {
-        try {
-            // 2. 解析报告数据
-            Double totalScore = reportData.get("totalScore") != null ? Double.parseDouble(reportData.get("totalScore").toString()) : 0.0;
-            Double techScore = reportData.get("techScore") != null ? Double.parseDouble(reportData.get("techScore").toString()) : null;
-            Double logicScore = reportData.get("logicScore") != null ? Double.parseDouble(reportData.get("logicScore").toString()) : null;
-            Double clarityScore = reportData.get("clarityScore") != null ? Double.parseDouble(reportData.get("clarityScore").toString()) : null;
-            Double depthScore = reportData.get("depthScore") != null ? Double.parseDouble(reportData.get("depthScore").toString()) : null;
-            String overallFeedback = reportData.get("overallFeedback") != null ? reportData.get("overallFeedback").toString() : "";
-            
-            // 处理优势列表
-            List<String> strengths = new ArrayList<>();
-            if (reportData.get("strengths") instanceof List) {
-                strengths = (List<String>) reportData.get("strengths");
-            } else if (reportData.get("strengths") != null) {
-                strengths.add(reportData.get("strengths").toString());
-            }
-            String strengthsJson = objectMapper.writeValueAsString(strengths);
-            
-            // 处理改进点列表
-            List<String> improvements = new ArrayList<>();
-            if (reportData.get("improvements") instanceof List) {
-                improvements = (List<String>) reportData.get("improvements");
-            } else if (reportData.get("improvements") != null) {
-                improvements.add(reportData.get("improvements").toString());
+    public StreamingResponseBody streamTranscript(String sessionId, Integer cursor, int size, boolean withAnswers) {
+        int pageSize = Math.max(1, Math.min(size, MAX_TRANSCRIPT_PAGE_SIZE));
+        int afterRound = cursor != null ? cursor : 0;
+        // 多查一条用于判断是否还有下一页；只查询需要的列，查询完成后即释放连接，写出响应时不占用连接
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        List<? extends InterviewTranscriptQuestion> rows = withAnswers
+                ? logRepository.findTranscriptRounds(sessionId, afterRound, pageable)
+                : logRepository.findTranscriptQuestions(sessionId, afterRound, pageable);
+        boolean hasMore = rows.size() > pageSize;
+        List<? extends InterviewTranscriptQuestion> page = hasMore ? rows.subList(0, pageSize) : rows;
+        Integer nextCursor = hasMore ? page.get(page.size() - 1).getRoundNumber() : null;
+
+        return out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+            // 由容器关闭响应流
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            generator.writeNumberField("code", 200);
+            generator.writeStringField("message", "success");
+            generator.writeBooleanField("success", true);
+            generator.writeObjectFieldStart("data");
+            generator.writeStringField("sessionId", sessionId);
+            generator.writeArrayFieldStart("items");
+            for (InterviewTranscriptQuestion row : page) {
+                writeTranscriptItem(generator, row, "question", row.getQuestionText());
+                if (withAnswers) {
+                    String answer = ((InterviewTranscriptRound) row).getUserAnswerText();
+                    if (answer != null && !answer.isEmpty()) {
+                        writeTranscriptItem(generator, row, "answer", answer);
+                    }
+                }
             }
-            String improvementsJson = objectMapper.writeValueAsString(improvements);
-            
-            // 解析新的报告字段
-            String techDepthEvaluation = reportData.get("techDepthEvaluation") != null ? reportData.get("techDepthEvaluation").toString() : "";
-            String logicExpressionEvaluation = reportData.get("logicExpressionEvaluation") != null ? reportData.get("logicExpressionEvaluation").toString() : "";
-            String communicationEvaluation = reportData.get("communicationEvaluation") != null ? reportData.get("communicationEvaluation").toString() : "";
-            String answerDepthEvaluation = reportData.get("answerDepthEvaluation") != null ? reportData.get("answerDepthEvaluation").toString() : "";
-            String detailedImprovementSuggestions = reportData.get("detailedImprovementSuggestions") != null ? reportData.get("detailedImprovementSuggestions").toString() : "";
-            
-            // 3. 保存报告到interview_report表
-            // 检查是否已存在报告
-            Optional<InterviewReport> existingReport = interviewReportRepository.findBySessionId(sessionId);
-            if (existingReport.isPresent()) {
-                // 更新现有报告
-                InterviewReport report = existingReport.get();
-                report.setTotalScore(totalScore);
-                report.setOverallFeedback(overallFeedback);
-                report.setStrengths(strengthsJson);
-                report.setImprovements(improvementsJson);
-                report.setTechDepthEvaluation(techDepthEvaluation);
-                report.setLogicExpressionEvaluation(logicExpressionEvaluation);
-                report.setCommunicationEvaluation(communicationEvaluation);
-                report.setAnswerDepthEvaluation(answerDepthEvaluation);
-                report.setDetailedImprovementSuggestions(detailedImprovementSuggestions);
-                interviewReportRepository.save(report);
+            generator.writeEndArray();
+            if (nextCursor != null) {
+                generator.writeNumberField("nextCursor", nextCursor);
             } else {
-                // 创建新报告
-                InterviewReport report = new InterviewReport();
-                report.setSessionId(sessionId);
-                report.setTotalScore(totalScore);
-                report.setOverallFeedback(overallFeedback);
-                report.setStrengths(strengthsJson);
-                report.setImprovements(improvementsJson);
-                report.setTechDepthEvaluation(techDepthEvaluation);
-                report.setLogicExpressionEvaluation(logicExpressionEvaluation);
-                report.setCommunicationEvaluation(communicationEvaluation);
-                report.setAnswerDepthEvaluation(answerDepthEvaluation);
-                report.setDetailedImprovementSuggestions(detailedImprovementSuggestions);
-                interviewReportRepository.save(report);
+                generator.writeNullField("nextCursor");
             }
-            
-            log.info("保存报告成功，sessionId: {}", sessionId);
-        } catch (Exception e) {
-            log.error("保存报告失败: {}", e.getMessage(), e);
-            throw new RuntimeException("保存报告失败: " + e.getMessage());
+            generator.writeEndObject();
+            generator.writeEndObject();
+            generator.close();
+        };
+    }
+
+    /**
+     * 写出一条面试记录项，字段与InterviewHistoryItemVO一致
+     */
+    private void writeTranscriptItem(JsonGenerator generator, InterviewTranscriptQuestion row, String type, String content) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", row.getId());
+        generator.writeStringField("type", type);
+        generator.writeStringField("content", content);
+        if (row.getCreatedAt() != null) {
+            generator.writeStringField("formattedTime", row.getCreatedAt().format(TRANSCRIPT_TIME_FORMATTER));
         }
+        generator.writeNumberField("roundNumber", row.getRoundNumber());
+        generator.writeEndObject();
     }
     
+    @Override
+    public void saveReport(String sessionId, Map<String, Object> reportData) {
+        saveReport(sessionId, reportData, null);
+    }
+
     /**
-     * dynamicInterviewer模块：生成下一个问题
+     * 保存报告：报告交给延迟写入器批量写入interview_report表，写入前的查询读取待写入的内容
+     * @param onPersisted 写入成功后的回调，可为null
      */
+    private void saveReport(String sessionId, Map<String, Object> reportData, Runnable onPersisted) {
+        try {
+            reportWriteBehindPersister.enqueue(buildReport(sessionId, reportData), onPersisted);
+            log.info("报告已提交保存，sessionId: {}", sessionId);
+        } catch (Exception e) {
+            log.error("保存报告失败: {}", e.getMessage(), e);
+            throw new RuntimeException("保存报告失败: " + e.getMessage());
+        }
+    }
+
     /**
-     * 将完整的简历数据转换为文本格式，用于提取技术项和项目点
-     * @param fullResumeData 完整的简历数据
-     * @return 转换后的文本内容
+     * 将报告数据转换为报告实体
      */
-    private String convertFullDataToText(Map<String, Object> fullResumeData) {
-        StringBuilder content = new StringBuilder();
-        // 添加日志记录，检查传入的数据结构
-        log.info("convertFullDataToText - fullResumeData包含的键: {}", fullResumeData.keySet());
-        if (fullResumeData.containsKey("projectList")) {
-            Object projectList = fullResumeData.get("projectList");
-            if (projectList instanceof List) {
-                log.info("convertFullDataToText - 项目数量: {}", ((List<?>) projectList).size());
-            }
-        }
-        if (fullResumeData.containsKey("skillList")) {
-            Object skillList = fullResumeData.get("skillList");
-            if (skillList instanceof List) {
-                log.info("convertFullDataToText - 技能数量: {}", ((List<?>) skillList).size());
-            }
-        }
-        
-        // 添加个人基本信息
-        Map<String, Object> userInfo = (Map<String, Object>) fullResumeData.get("userInfo");
-        if (userInfo != null) {
-            content.append("个人信息：\n");
-            if (userInfo.containsKey("name")) content.append("姓名：").append(userInfo.get("name")).append("\n");
-            if (userInfo.containsKey("phone")) content.append("电话：").append(userInfo.get("phone")).append("\n");
-            if (userInfo.containsKey("email")) content.append("邮箱：").append(userInfo.get("email")).append("\n");
-            content.append("\n");
-        }
-        
-        // 添加简历基本信息
-        if (fullResumeData.containsKey("jobTitle")) content.append("求职意向：").append(fullResumeData.get("jobTitle")).append("\n\n");
-        if (fullResumeData.containsKey("selfEvaluation")) {
-            content.append("自我评价：\n")
-                  .append(fullResumeData.get("selfEvaluation"))
-                  .append("\n\n");
-        }
-        
-        // 添加教育经历
-        if (fullResumeData.containsKey("educationList")) {
-            Object educationObj = fullResumeData.get("educationList");
-            if (educationObj instanceof List) {
-                List<?> educationList = (List<?>) educationObj;
-                if (!educationList.isEmpty()) {
-                    content.append("教育经历：\n");
-                    for (Object eduObj : educationList) {
-                        if (eduObj instanceof com.aicv.airesume.entity.ResumeEducation) {
-                            com.aicv.airesume.entity.ResumeEducation education = (com.aicv.airesume.entity.ResumeEducation) eduObj;
-                            content.append("- 学校：").append(education.getSchool() != null ? education.getSchool() : "");
-                            content.append(", 专业：").append(education.getMajor() != null ? education.getMajor() : "");
-                            content.append(", 学历：").append(education.getDegree() != null ? education.getDegree() : "");
-                            content.append(", 时间段：")
-                                  .append(education.getStartDate() != null ? education.getStartDate() : "")
-                                  .append(" - ")
-                                  .append(education.getEndDate() != null ? education.getEndDate() : "")
-                                  .append("\n");
-                        }
-                    }
-                    content.append("\n");
-                }
-            }
-        }
-        
-        // 添加工作经历
-        if (fullResumeData.containsKey("workExperienceList")) {
-            Object workExperienceObj = fullResumeData.get("workExperienceList");
-            if (workExperienceObj instanceof List) {
-                List<?> workExperienceList = (List<?>) workExperienceObj;
-                if (!workExperienceList.isEmpty()) {
-                    content.append("工作经历：\n");
-                    for (Object workObj : workExperienceList) {
-                        if (workObj instanceof com.aicv.airesume.entity.ResumeWorkExperience) {
-                            com.aicv.airesume.entity.ResumeWorkExperience work = (com.aicv.airesume.entity.ResumeWorkExperience) workObj;
-                            content.append("- 公司：").append(work.getCompanyName() != null ? work.getCompanyName() : "");
-                            content.append(", 职位：").append(work.getPositionName() != null ? work.getPositionName() : "");
-                            content.append(", 时间段：")
-                                  .append(work.getStartDate() != null ? work.getStartDate() : "")
-                                  .append(" - ")
-                                  .append(work.getEndDate() != null ? work.getEndDate() : "")
-                                  .append("\n");
-                            if (work.getDescription() != null) {
-                                content.append("  工作描述：").append(work.getDescription()).append("\n");
-                            }
-                        }
-                    }
-                    content.append("\n");
-                }
-            }
-        }
-        
-        // 添加项目经历
-        if (fullResumeData.containsKey("projectList")) {
-            Object projectObj = fullResumeData.get("projectList");
-            if (projectObj instanceof List) {
-                List<?> projectList = (List<?>) projectObj;
-                if (!projectList.isEmpty()) {
-                    content.append("项目经历：\n");
-                    for (Object projObj : projectList) {
-                        if (projObj instanceof com.aicv.airesume.entity.ResumeProject) {
-                            com.aicv.airesume.entity.ResumeProject project = (com.aicv.airesume.entity.ResumeProject) projObj;
-                            content.append("- 项目名称：").append(project.getProjectName() != null ? project.getProjectName() : "");
-                            content.append(", 角色：").append(project.getRole() != null ? project.getRole() : "");
-                            content.append(", 时间段：")
-                                  .append(project.getStartDate() != null ? project.getStartDate() : "")
-                                  .append(" - ")
-                                  .append(project.getEndDate() != null ? project.getEndDate() : "")
-                                  .append("\n");
-                            if (project.getTechStack() != null) {
-                                content.append("  技术栈：").append(project.getTechStack()).append("\n");
-                            }
-                            if (project.getDescription() != null) {
-                                content.append("  项目描述：").append(project.getDescription()).append("\n");
-                            }
-                        }
-                    }
-                    content.append("\n");
-                }
-            }
+    @SuppressWarnings("unchecked")
+    private InterviewReport buildReport(String sessionId, Map<String, Object> reportData) throws IOException {
+        Double totalScore = reportData.get("totalScore") != null ? Double.parseDouble(reportData.get("totalScore").toString()) : 0.0;
+        String overallFeedback = reportData.get("overallFeedback") != null ? reportData.get("overallFeedback").toString() : "";
+
+        // 处理优势列表
+        List<String> strengths = new ArrayList<>();
+        if (reportData.get("strengths") instanceof List) {
+            strengths = (List<String>) reportData.get("strengths");
+        } else if (reportData.get("strengths") != null) {
+            strengths.add(reportData.get("strengths").toString());
         }
-        
-        // 添加技能
-        if (fullResumeData.containsKey("skillList")) {
-            Object skillObj = fullResumeData.get("skillList");
-            if (skillObj instanceof List) {
-                List<?> skillList = (List<?>) skillObj;
-                if (!skillList.isEmpty()) {
-                    content.append("技能：\n");
-                    for (Object skillObjItem : skillList) {
-                        if (skillObjItem instanceof com.aicv.airesume.entity.ResumeSkill) {
-                            com.aicv.airesume.entity.ResumeSkill skill = (com.aicv.airesume.entity.ResumeSkill) skillObjItem;
-                            content.append("- ").append(skill.getName() != null ? skill.getName() : "");
-                            if (skill.getLevel() != null) {
-                                content.append(" (熟练度：").append(skill.getLevel()).append(")");
-                            }
-                            content.append("\n");
-                        }
-                    }
-                }
-            }
+        String strengthsJson = objectMapper.writeValueAsString(strengths);
+
+        // 处理改进点列表
+        List<String> improvements = new ArrayList<>();
+        if (reportData.get("improvements") instanceof List) {
+            improvements = (List<String>) reportData.get("improvements");
+        } else if (reportData.get("improvements") != null) {
+            improvements.add(reportData.get("improvements").toString());
         }
-        
-        return content.toString();
+        String improvementsJson = objectMapper.writeValueAsString(improvements);
+
+        // 解析新的报告字段
+        String techDepthEvaluation = reportData.get("techDepthEvaluation") != null ? reportData.get("techDepthEvaluation").toString() : "";
+        String logicExpressionEvaluation = reportData.get("logicExpressionEvaluation") != null ? reportData.get("logicExpressionEvaluation").toString() : "";
+        String communicationEvaluation = reportData.get("communicationEvaluation") != null ? reportData.get("communicationEvaluation").toString() : "";
+        String answerDepthEvaluation = reportData.get("answerDepthEvaluation") != null ? reportData.get("answerDepthEvaluation").toString() : "";
+        String detailedImprovementSuggestions = reportData.get("detailedImprovementSuggestions") != null ? reportData.get("detailedImprovementSuggestions").toString() : "";
+
+        InterviewReport report = new InterviewReport();
+        report.setSessionId(sessionId);
+        report.setTotalScore(totalScore);
+        report.setOverallFeedback(overallFeedback);
+        report.setStrengths(strengthsJson);
+        report.setImprovements(improvementsJson);
+        report.setTechDepthEvaluation(techDepthEvaluation);
+        report.setLogicExpressionEvaluation(logicExpressionEvaluation);
+        report.setCommunicationEvaluation(communicationEvaluation);
+        report.setAnswerDepthEvaluation(answerDepthEvaluation);
+        report.setDetailedImprovementSuggestions(detailedImprovementSuggestions);
+        return report;
     }
 
     /**
-     * 自动保存生成的报告到数据库
-     * @param sessionId 会话ID
-     * @param record 报告生成记录
+     * 查询报告，尚未写入数据库的报告以待写入的内容为准
      */
-    private void saveGeneratedReportToDatabase(String sessionId, ReportGenerationService.ReportGenerationRecord record) {
-        try {
-            // 1. 获取完整报告内容
-            StringBuilder fullReport = new StringBuilder();
-            for (ReportGenerationService.ReportChunk chunk : record.getChunks()) {
-                fullReport.append(chunk.getContent());
-            }
-            String reportContent = fullReport.toString();
-            log.info("自动保存报告，sessionId: {}, 报告内容: {}", sessionId, reportContent);
-            
-            // 2. 解析Markdown报告
-            Map<String, Object> reportData = parseGeneratedReport(reportContent);
-            
-            // 3. 使用现有的saveReport方法保存到数据库
-            saveReport(sessionId, reportData);
-            
-            log.info("自动保存报告成功，sessionId: {}", sessionId);
-        } catch (Exception e) {
-            log.error("自动保存报告到数据库失败: {}", e.getMessage(), e);
-        }
+    private Optional<InterviewReport> findReport(String sessionId) {
+        Optional<InterviewReport> pending = reportWriteBehindPersister.findPending(sessionId);
+        return pending.isPresent() ? pending : interviewReportRepository.findBySessionId(sessionId);
     }
     
     /**
-     * 解析生成的Markdown报告
-     * @param reportContent 报告内容
-     * @return 解析后的报告数据
+     * dynamicInterviewer模块：生成下一个问题
      */
-    private Map<String, Object> parseGeneratedReport(String reportContent) {
-        Map<String, Object> reportData = new HashMap<>();
-        
+    /**
+     * 自动保存生成的报告到数据库
+     * @param sessionId 会话ID
+     * @param record 报告生成记录
+     * @param reportData 报告数据，报告内容已在生成过程中解析
+     */
+    private void saveGeneratedReportToDatabase(String sessionId, ReportGenerationService.ReportGenerationRecord record,
+                                               Supplier<Map<String, Object>> reportData) {
         try {
-            // 1. 提取总分和总体评价
-            String overallSection = extractSectionFromReport(reportContent, "## 总体评价和总分", "## 优势分析");
-            if (StringUtils.hasText(overallSection)) {
-                // 提取总分，查找类似 "总分：85" 或 "总体评分：85" 的模式
-                Pattern scorePattern = Pattern.compile("(总分|总体评分)：?(\\d+\\.?\\d*)");
-                Matcher scoreMatcher = scorePattern.matcher(overallSection);
-                if (scoreMatcher.find()) {
-                    double totalScore = Double.parseDouble(scoreMatcher.group(2));
-                    reportData.put("totalScore", totalScore);
-                }
-                
-                // 提取总体评价
-                reportData.put("overallFeedback", overallSection);
-            } else {
-                // 设置默认值
-                reportData.put("overallFeedback", "**总分：50/100**。候选人表现一般，需要进一步评估。");
-                reportData.put("totalScore", 50.0);
-            }
-            
-            // 2. 提取优势列表
-            String strengthsSection = extractSectionFromReport(reportContent, "## 优势分析", "## 改进点");
-            List<String> strengths = new ArrayList<>();
-            if (StringUtils.hasText(strengthsSection)) {
-                // 匹配以"- "开头的优势项
-                Pattern strengthPattern = Pattern.compile("-\\s+([^\\n]+)", Pattern.MULTILINE);
-                Matcher strengthMatcher = strengthPattern.matcher(strengthsSection);
-                while (strengthMatcher.find()) {
-                    strengths.add(strengthMatcher.group(1).trim());
-                }
-                // 如果没有找到列表项，直接使用整个章节内容
-                if (strengths.isEmpty()) {
-                    strengths.add(strengthsSection.trim());
-                }
-            }
-            
-            // 确保优势列表不为空
-            if (strengths.isEmpty()) {
-                strengths.add("有一定的学习意愿和态度。");
-            }
-            reportData.put("strengths", strengths);
-            
-            // 3. 提取改进点列表
-            String improvementsSection = extractSectionFromReport(reportContent, "## 改进点", "## 技术深度评价");
-            List<String> improvements = new ArrayList<>();
-            if (StringUtils.hasText(improvementsSection)) {
-                // 匹配以"- "开头的改进项
-                Pattern improvementPattern = Pattern.compile("-\\s+([^\\n]+)", Pattern.MULTILINE);
-                Matcher improvementMatcher = improvementPattern.matcher(improvementsSection);
-                while (improvementMatcher.find()) {
-                    improvements.add(improvementMatcher.group(1).trim());
-                }
-                // 如果没有找到列表项，直接使用整个章节内容
-                if (improvements.isEmpty()) {
-                    improvements.add(improvementsSection.trim());
-                }
-            }
-            
-            // 确保改进点列表不为空
-            if (improvements.isEmpty()) {
-                improvements.add("技术知识需要进一步系统化学习。");
-            }
-            reportData.put("improvements", improvements);
-            
-            // 4. 提取技术深度评价并设置默认值
-            String techDepthEvaluationSection = extractSectionFromReport(reportContent, "## 技术深度评价", "## 逻辑表达评价");
-            if (StringUtils.hasText(techDepthEvaluationSection)) {
-                reportData.put("techDepthEvaluation", techDepthEvaluationSection);
-            } else {
-                reportData.put("techDepthEvaluation", "**技术深度一般**。候选人对部分技术有基本了解，但缺乏深入的原理理解和实践经验。");
-            }
-            
-            // 5. 提取逻辑表达评价并设置默认值
-            String logicExpressionEvaluationSection = extractSectionFromReport(reportContent, "## 逻辑表达评价", "## 沟通表达评价");
-            if (StringUtils.hasText(logicExpressionEvaluationSection)) {
-                reportData.put("logicExpressionEvaluation", logicExpressionEvaluationSection);
-            } else {
-                reportData.put("logicExpressionEvaluation", "**逻辑表达基本清晰**。候选人能够组织基本的技术阐述，但在复杂问题上逻辑性有待加强。");
-            }
-            
-            // 6. 提取沟通表达评价并设置默认值
-            String communicationEvaluationSection = extractSectionFromReport(reportContent, "## 沟通表达评价", "## 回答深度评价");
-            if (StringUtils.hasText(communicationEvaluationSection)) {
-                reportData.put("communicationEvaluation", communicationEvaluationSection);
-            } else {
-                reportData.put("communicationEvaluation", "**沟通表达能力一般**。候选人能够基本表达自己的观点，但在主动沟通和澄清问题方面有待提高。");
-            }
-            
-            // 7. 提取回答深度评价并设置默认值
-            String answerDepthEvaluationSection = extractSectionFromReport(reportContent, "## 回答深度评价", "## 针对候选人的详细改进建议");
-            if (StringUtils.hasText(answerDepthEvaluationSection)) {
-                reportData.put("answerDepthEvaluation", answerDepthEvaluationSection);
-            } else {
-                reportData.put("answerDepthEvaluation", "**回答深度中等**。候选人的回答能够覆盖基本知识点，但缺乏深入的分析和拓展。");
+            // 1. 取出解析结果，报告内容已在生成过程中解析
+            Map<String, Object> parsedReport;
+            try {
+                parsedReport = reportData.get();
+                log.info("解析报告成功，sessionId: {}，提取的数据: {}", sessionId, parsedReport);
+            } catch (Exception e) {
+                log.error("解析生成的报告失败: {}", e.getMessage(), e);
+                parsedReport = MarkdownReportParser.defaultReportData("**总分：50/100**。由于报告解析失败，提供默认评价。");
             }
             
-            // 8. 提取针对候选人的详细改进建议并设置默认值
-            String detailedImprovementSuggestionsSection = extractSectionFromReport(reportContent, "## 针对候选人的详细改进建议", null);
-            if (StringUtils.hasText(detailedImprovementSuggestionsSection)) {
-                reportData.put("detailedImprovementSuggestions", detailedImprovementSuggestionsSection);
-            } else {
-                reportData.put("detailedImprovementSuggestions", "1. **系统学习**：建议候选人系统学习核心技术栈的基础理论和实践。\n2. **项目实践**：通过实际项目积累经验，加深对技术的理解。\n3. **深入思考**：面对技术问题时，不仅要知道怎么做，还要理解为什么这么做。");
-            }
+            // 2. 提交保存，写入数据库后内存中的记录可以在保留期后淘汰
+            saveReport(sessionId, parsedReport, record::markPersisted);
             
-            log.info("解析报告成功，提取的数据: {}", reportData);
+            log.info("自动保存报告已提交，sessionId: {}", sessionId);
         } catch (Exception e) {
-            log.error("解析生成的报告失败: {}", e.getMessage(), e);
-            
-            // 异常情况下设置所有字段的默认值
-            reportData.put("overallFeedback", "**总分：50/100**。由于报告解析失败，提供默认评价。");
-            reportData.put("totalScore", 50.0);
-            
-            List<String> defaultStrengths = new ArrayList<>();
-            defaultStrengths.add("有一定的学习意愿和态度。");
-            reportData.put("strengths", defaultStrengths);
-            
-            List<String> defaultImprovements = new ArrayList<>();
-            defaultImprovements.add("技术知识需要进一步系统化学习。");
-            reportData.put("improvements", defaultImprovements);
-            
-            reportData.put("techDepthEvaluation", "**技术深度一般**。候选人对部分技术有基本了解，但缺乏深入的原理理解和实践经验。");
-            reportData.put("logicExpressionEvaluation", "**逻辑表达基本清晰**。候选人能够组织基本的技术阐述，但在复杂问题上逻辑性有待加强。");
-            reportData.put("communicationEvaluation", "**沟通表达能力一般**。候选人能够基本表达自己的观点，但在主动沟通和澄清问题方面有待提高。");
-            reportData.put("answerDepthEvaluation", "**回答深度中等**。候选人的回答能够覆盖基本知识点，但缺乏深入的分析和拓展。");
-            reportData.put("detailedImprovementSuggestions", "1. **系统学习**：建议候选人系统学习核心技术栈的基础理论和实践。\n2. **项目实践**：通过实际项目积累经验，加深对技术的理解。\n3. **深入思考**：面对技术问题时，不仅要知道怎么做，还要理解为什么这么做。");
+            log.error("自动保存报告到数据库失败: {}", e.getMessage(), e);
         }
-        
-        return reportData;
     }
     
     /**
@@ -1170,11 +1315,15 @@ public class InterviewServiceImpl implements InterviewService {
             // 删除该会话下的所有面试日志
             logRepository.deleteBySessionId(sessionId);
             
-            // 删除该会话下的面试报告
+            // 删除该会话下的面试报告，包括尚未写入的报告
+            reportWriteBehindPersister.discard(sessionId);
             interviewReportRepository.deleteBySessionId(sessionId);
             
             // 最后删除面试会话本身
             sessionRepository.deleteBySessionId(sessionId);
+            sessionClockService.remove(sessionId);
+            conversationContextService.evict(sessionId);
+            firstQuestionPrefetchStore.remove(sessionId);
             
             log.info("成功删除面试记录，sessionId: {}", sessionId);
         } catch (Exception e) {
@@ -1184,7 +1333,7 @@ public class InterviewServiceImpl implements InterviewService {
     }
     
     /**
-     * 更新面试剩余时间
+     * 更新面试剩余时间，只更新内存中的会话计时，由会话计时服务定期批量写回数据库
      * @param sessionId 会话ID
      * @param remainingTime 剩余时间（秒）
      * @return 是否更新成功
@@ -1192,16 +1341,9 @@ public class InterviewServiceImpl implements InterviewService {
     @Override
     public boolean updateRemainingTime(String sessionId, Integer remainingTime) {
         try {
-            Optional<InterviewSession> sessionOpt = sessionRepository.findBySessionId(sessionId);
-            if (sessionOpt.isPresent()) {
-                InterviewSession session = sessionOpt.get();
-                session.setSessionTimeRemaining(remainingTime);
-                sessionRepository.save(session);
-                return true;
-            } else {
-                return false;
-            }
+            return sessionClockService.report(sessionId, remainingTime).isPresent();
         } catch (Exception e) {
+            log.warn("更新剩余时间失败，sessionId: {}: {}", sessionId, e.getMessage());
             return false;
         }
     }
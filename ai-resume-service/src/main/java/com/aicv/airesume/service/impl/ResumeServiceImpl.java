@@ -17,6 +17,9 @@ import com.aicv.airesume.service.ResumeService;
 
 
 import com.aicv.airesume.service.UserService;
+import com.aicv.airesume.service.prompt.ResumePromptRenderer;
+import com.aicv.airesume.service.resume.ResumeAggregate;
+import com.aicv.airesume.service.resume.ResumeAggregateCache;
 import com.aicv.airesume.utils.FileUtils;
 import com.aicv.airesume.utils.PdfServiceUtils;
 import com.aicv.airesume.utils.RetryUtils;
@@ -35,7 +38,6 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.*;
-import javax.persistence.EntityNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -71,6 +73,12 @@ public class ResumeServiceImpl implements ResumeService {
     @Autowired
     private RetryUtils retryUtils;
 
+    @Autowired
+    private ResumePromptRenderer resumePromptRenderer;
+
+    @Autowired
+    private ResumeAggregateCache resumeAggregateCache;
+
     // 实现接口的uploadResume方法
     @Override
     public Resume uploadResume(Long userId, String fileName, MultipartFile file) {
@@ -133,6 +141,9 @@ public class ResumeServiceImpl implements ResumeService {
                 // 检查是否是用户自己的简历
                 if (resume.getUserId().equals(userId)) {
                     resumeRepository.delete(resume);
+                    resumePromptRenderer.invalidate(resumeId);
+                    resumeAggregateCache.invalidate(resumeId);
+                    resumeAggregateCache.invalidateUser(userId);
                     return true;
                 }
             }
@@ -221,16 +232,11 @@ public class ResumeServiceImpl implements ResumeService {
 
                     log.info("使用模板: {}", finalTemplateId);
 
-                    // 1. 获取简历数据
-                    Resume resume = resumeRepository.findById(finalResumeId)
-                            .orElseThrow(() -> new EntityNotFoundException(
-                                    "Resume not found with id: " + finalResumeId));
-
-                    // 2. 获取关联数据（你原有的）
-                    Map<String, Object> resumeData = getResumeFullData(finalResumeId);
-                    log.info("获取到简历完整数据，用户ID: {}", resume.getUserId());
+                    // 1. 获取简历及关联数据
+                    ResumeAggregate resumeAggregate = getResumeAggregate(finalResumeId);
+                    log.info("获取到简历完整数据，用户ID: {}", resumeAggregate.getUserId());
                     
-                    byte[] pdfBytes = pdfServiceUtils.generatePdf(resumeData, finalTemplateId);
+                    byte[] pdfBytes = pdfServiceUtils.generatePdf(resumeAggregate.toMap(), finalTemplateId);
 
                     log.info("PDF 导出成功, 大小: {} KB", pdfBytes.length / 1024.0);
 
@@ -278,84 +284,27 @@ public class ResumeServiceImpl implements ResumeService {
 
     @Override
     public Map<String, Object> getLatestResumeData(Long userId) {
-        return retryUtils.executeWithDefaultRetrySupplier(() -> {
-            // 获取用户最新的简历（按创建时间降序排序，取第一个）
-            List<Resume> resumeList = resumeRepository.findByUserIdOrderByCreateTimeDesc(userId);
-            if (resumeList != null && !resumeList.isEmpty()) {
-                Resume latestResume = resumeList.get(0);
-                // 调用现有的getResumeFullData方法获取完整数据
-                return getResumeFullData(latestResume.getId());
-            }
-            // 用户没有简历，返回null
-            return null;
-        });
+        ResumeAggregate latest = getLatestResumeAggregate(userId);
+        // 用户没有简历，返回null
+        return latest != null ? latest.toMap() : null;
+    }
+
+    @Override
+    public ResumeAggregate getLatestResumeAggregate(Long userId) {
+        // 获取用户最新的简历（按创建时间降序排序，取第一个）
+        return retryUtils.executeWithDefaultRetrySupplier(() -> resumeAggregateCache.getLatest(userId).orElse(null));
     }
     
     // createResume方法已移除，使用createResumeWithFullData方法代替
     
     @Override
     public Map<String, Object> getResumeFullData(Long resumeId) {
-        // 创建返回结果Map
-        Map<String, Object> result = new HashMap<>();
-        
-        // 1. 获取简历基本信息
-        Resume resume = resumeRepository.findById(resumeId)
-                .orElseThrow(() -> new EntityNotFoundException("简历不存在: " + resumeId));
-        
-        // 2. 从User表获取个人基本信息
-        User user = userService.getUserById(resume.getUserId())
-                .orElseThrow(() -> new EntityNotFoundException("用户不存在: " + resume.getUserId()));
-        
-        // 3. 获取教育经历列表
-        List<ResumeEducation> educationList = resumeEducationRepository.findByResumeIdOrderByOrderIndexAsc(resumeId);
-        
-        // 4. 获取工作经历列表
-        List<ResumeWorkExperience> workExperienceList = resumeWorkExperienceRepository.findByResumeIdOrderByOrderIndexAsc(resumeId);
-        
-        // 5. 获取项目经历列表
-        List<ResumeProject> projectList = resumeProjectRepository.findByResumeIdOrderByOrderIndexAsc(resumeId);
-        
-        // 6. 获取技能列表
-        List<ResumeSkill> skillList = resumeSkillRepository.findByResumeIdOrderByOrderIndexAsc(resumeId);
-        
-        // 7. 将所有数据添加到返回Map中
-        // 添加简历基本信息
-        result.put("id", resume.getId());
-        result.put("userId", resume.getUserId());
-        result.put("expectedSalary", resume.getExpectedSalary());
-        result.put("startTime", resume.getStartTime());
-        result.put("interests", resume.getInterests());
-        result.put("selfEvaluation", resume.getSelfEvaluation());
-        result.put("jobTitle", resume.getJobTitle());
-        result.put("jobTypeId", resume.getJobTypeId());
-        result.put("status", resume.getStatus());
-        result.put("createTime", resume.getCreateTime());
-        result.put("updateTime", resume.getUpdateTime());
-        
-        // 添加个人基本信息（从User表）
-        result.put("userInfo", new HashMap<String, Object>() {
-            {
-                put("name", user.getName());
-                put("email", user.getEmail());
-                put("phone", user.getPhone());
-                put("address", user.getAddress());
-                put("birthDate", user.getBirthDate());
-                put("nickname", user.getNickname());
-                put("avatarUrl", user.getAvatarUrl());
-                put("gender", user.getGender());
-                put("country", user.getCountry());
-                put("province", user.getProvince());
-                put("city", user.getCity());
-            }
-        });
-        
-        // 添加关联数据
-        result.put("educationList", educationList);
-        result.put("workExperienceList", workExperienceList);
-        result.put("projectList", projectList);
-        result.put("skillList", skillList);
-        
-        return result;
+        return getResumeAggregate(resumeId).toMap();
+    }
+
+    @Override
+    public ResumeAggregate getResumeAggregate(Long resumeId) {
+        return resumeAggregateCache.get(resumeId);
     }
     
     @Override
@@ -438,7 +387,10 @@ public class ResumeServiceImpl implements ResumeService {
             
             // 再次保存简历，确保所有字段都被更新
             resume.setUpdateTime(new Date());
-            return resumeRepository.save(resume);
+            Resume saved = resumeRepository.save(resume);
+            // 用户的最新简历已变化
+            resumeAggregateCache.invalidateUser(userId);
+            return saved;
         } catch (Exception e) {
             log.error("创建简历失败，用户ID：{}", userId, e);
         }
@@ -518,8 +470,11 @@ public class ResumeServiceImpl implements ResumeService {
             // 更新时间戳
             resume.setUpdateTime(new Date());
             
-            // 保存更新后的简历
-            return resumeRepository.save(resume);
+            // 保存更新后的简历，缓存的简历文本失效
+            Resume saved = resumeRepository.save(resume);
+            resumePromptRenderer.invalidate(resumeId);
+            resumeAggregateCache.invalidate(resumeId);
+            return saved;
         });
     }
     
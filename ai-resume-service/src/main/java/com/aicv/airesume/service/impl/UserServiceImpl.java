@@ -3,6 +3,7 @@ package com.aicv.airesume.service.impl;
 import com.aicv.airesume.entity.User;
 import com.aicv.airesume.repository.UserRepository;
 import com.aicv.airesume.service.UserService;
+import com.aicv.airesume.service.resume.ResumeAggregateCache;
 import com.aicv.airesume.utils.RetryUtils;
 import com.aicv.airesume.utils.TokenUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,6 +27,9 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private TokenUtils tokenUtils;
 
+    @Autowired
+    private ResumeAggregateCache resumeAggregateCache;
+
     @Override
     public Optional<User> getUserById(Long userId) {
         try {
@@ -57,7 +61,9 @@ public class UserServiceImpl implements UserService {
     @Override
     public User updateUser(User user) {
         try {
-            return retryUtils.executeWithDefaultRetry(() -> userRepository.save(user));
+            User saved = retryUtils.executeWithDefaultRetry(() -> userRepository.save(user));
+            resumeAggregateCache.invalidateUser(saved.getId());
+            return saved;
         } catch (Exception e) {
             throw new RuntimeException("更新用户失败: " + e.getMessage(), e);
         }
@@ -66,7 +72,9 @@ public class UserServiceImpl implements UserService {
     // 临时方法实现
     public User updateUserInfo(User userInfo) {
         try {
-            return retryUtils.executeWithDefaultRetry(() -> userRepository.save(userInfo));
+            User saved = retryUtils.executeWithDefaultRetry(() -> userRepository.save(userInfo));
+            resumeAggregateCache.invalidateUser(saved.getId());
+            return saved;
         } catch (Exception e) {
             throw new RuntimeException("更新用户信息失败: " + e.getMessage(), e);
         }
@@ -89,8 +97,10 @@ public class UserServiceImpl implements UserService {
                     if (avatarUrl != null && !avatarUrl.isEmpty()) {
                         user.setAvatarUrl(avatarUrl);
                     }
-                    // 保存更新后的用户信息
-                    return userRepository.save(user);
+                    // 保存更新后的用户信息，简历中的个人信息缓存失效
+                    User saved = userRepository.save(user);
+                    resumeAggregateCache.invalidateUser(saved.getId());
+                    return saved;
                 } else {
                     // 用户不存在，创建新用户
                     User newUser = new User();
@@ -133,7 +143,9 @@ public class UserServiceImpl implements UserService {
                 // 更新用户信息
                 User updatedUser = existingUser.get();
                 // 这里应该设置需要更新的字段
-                return retryUtils.executeWithDefaultRetry(() -> userRepository.save(updatedUser));
+                User saved = retryUtils.executeWithDefaultRetry(() -> userRepository.save(updatedUser));
+                resumeAggregateCache.invalidateUser(saved.getId());
+                return saved;
             } else {
                 throw new RuntimeException("用户不存在");
             }
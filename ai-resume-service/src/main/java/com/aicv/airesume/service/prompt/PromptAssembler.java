@@ -0,0 +1,153 @@
+package com.aicv.airesume.service.prompt;
+
+import com.aicv.airesume.service.ConversationContextService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 面试提示词组装器
+ * 按token预算组装发送给DeepSeek的消息：预算内发送完整对话；超出预算时保留最近N轮原文，
+ * 更早的轮次使用会话的滚动摘要代替，尚未被摘要覆盖的轮次在预算允许范围内按从新到旧保留。
+ * 消息顺序由 {@link PromptLayout} 决定，保证请求前缀稳定。
+ */
+@Slf4j
+@Component
+public class PromptAssembler {
+
+    @Value("${interview.prompt.max-context-tokens:6000}")
+    private int maxContextTokens;
+
+    @Value("${interview.prompt.keep-recent-rounds:4}")
+    private int keepRecentRounds;
+
+    @Autowired
+    private TranscriptSummarizer transcriptSummarizer;
+
+    /**
+     * 组装结果
+     */
+    public static class AssembledPrompt {
+        private final List<Map<String, String>> messages;
+        private final int estimatedTokens;
+        private final boolean compacted;
+
+        public AssembledPrompt(List<Map<String, String>> messages, int estimatedTokens, boolean compacted) {
+            this.messages = messages;
+            this.estimatedTokens = estimatedTokens;
+            this.compacted = compacted;
+        }
+
+        public List<Map<String, String>> getMessages() {
+            return messages;
+        }
+
+        public int getEstimatedTokens() {
+            return estimatedTokens;
+        }
+
+        /**
+         * 是否因超出预算而压缩了对话历史
+         */
+        public boolean isCompacted() {
+            return compacted;
+        }
+    }
+
+    /**
+     * 组装一次面试问答的消息列表
+     * @param context 对话上下文
+     * @param systemPrompt 本次调用的系统提示词
+     * @param userPrompt 当前用户输入
+     * @return 组装结果
+     */
+    public AssembledPrompt assemble(ConversationContextService.ConversationContext context, String systemPrompt, String userPrompt) {
+        // 从静态到动态排列：全局规则 -> 面试官风格 -> 简历 -> 对话历史 -> 本轮指令
+        PromptLayout layout = new PromptLayout();
+        ConversationContextService.GlobalMessages globalMessages = context.getGlobalMessages();
+        layout.addAll(PromptLayout.Tier.GLOBAL, globalMessages.getMessages(), globalMessages.getTokens());
+        // 添加自定义系统提示词（仅在会话存在时添加）
+        if (context.isSessionFound()) {
+            layout.add(PromptLayout.Tier.PERSONA, "system", systemPrompt);
+        }
+        layout.addAll(PromptLayout.Tier.SESSION, context.getSessionMessages(), context.getSessionTokens());
+        layout.add(PromptLayout.Tier.TURN, "user", userPrompt);
+
+        List<ConversationContextService.Round> rounds = context.getRounds();
+        int transcriptTokens = 0;
+        for (ConversationContextService.Round round : rounds) {
+            transcriptTokens += round.getTokens();
+        }
+
+        // 预算内或轮次不多时发送完整对话
+        if (layout.getEstimatedTokens() + transcriptTokens <= maxContextTokens || rounds.size() <= keepRecentRounds) {
+            appendRounds(layout, rounds);
+            return new AssembledPrompt(layout.toMessages(), layout.getEstimatedTokens(), false);
+        }
+
+        int recentStart = rounds.size() - keepRecentRounds;
+        List<ConversationContextService.Round> recentRounds = rounds.subList(recentStart, rounds.size());
+        int tokens = layout.getEstimatedTokens();
+        for (ConversationContextService.Round round : recentRounds) {
+            tokens += round.getTokens();
+        }
+
+        // 早期轮次使用滚动摘要，摘要只在重新生成时变化，放在对话历史最前面
+        String summary = context.getTranscriptSummary();
+        int summaryRoundNumber = StringUtils.hasText(summary) ? context.getSummaryRoundNumber() : 0;
+        if (StringUtils.hasText(summary)) {
+            String summaryContent = "此前面试对话摘要（第1-" + summaryRoundNumber + "轮）：\n" + summary;
+            layout.add(PromptLayout.Tier.HISTORY, "system", summaryContent);
+            tokens += TokenEstimator.estimateMessage(summaryContent);
+        }
+
+        // 未被摘要覆盖的早期轮次，在预算内从新到旧保留
+        List<ConversationContextService.Round> unsummarized = new ArrayList<>();
+        for (ConversationContextService.Round round : rounds.subList(0, recentStart)) {
+            if (round.getRoundNumber() > summaryRoundNumber) {
+                unsummarized.add(round);
+            }
+        }
+        List<ConversationContextService.Round> keptRounds = new ArrayList<>();
+        for (int i = unsummarized.size() - 1; i >= 0; i--) {
+            ConversationContextService.Round round = unsummarized.get(i);
+            if (tokens + round.getTokens() > maxContextTokens) {
+                break;
+            }
+            keptRounds.add(round);
+            tokens += round.getTokens();
+        }
+        Collections.reverse(keptRounds);
+        appendRounds(layout, keptRounds);
+        appendRounds(layout, recentRounds);
+
+        // 把尚未摘要的早期轮次合并进滚动摘要，供后续轮次使用
+        if (!unsummarized.isEmpty()) {
+            transcriptSummarizer.summarizeAsync(context, unsummarized);
+        }
+
+        log.info("对话历史超出预算已压缩，sessionId: {}，总轮次: {}，摘要覆盖: {}，保留早期轮次: {}，估算token: {}",
+                context.getSessionId(), rounds.size(), summaryRoundNumber, keptRounds.size(), layout.getEstimatedTokens());
+        return new AssembledPrompt(layout.toMessages(), layout.getEstimatedTokens(), true);
+    }
+
+    private void appendRounds(PromptLayout layout, List<ConversationContextService.Round> rounds) {
+        for (ConversationContextService.Round round : rounds) {
+            // 本轮token数整体计入问题消息
+            if (round.getQuestionMessage() != null) {
+                layout.add(PromptLayout.Tier.HISTORY, round.getQuestionMessage(), round.getTokens());
+            }
+            if (round.getAnswerMessage() != null) {
+                layout.add(PromptLayout.Tier.HISTORY, round.getAnswerMessage(),
+                        round.getQuestionMessage() != null ? 0 : round.getTokens());
+            }
+        }
+    }
+}
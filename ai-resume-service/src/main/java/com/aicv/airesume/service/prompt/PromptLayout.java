@@ -0,0 +1,79 @@
+package com.aicv.airesume.service.prompt;
+
+import com.aicv.airesume.service.ConversationContextService;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 提示词布局
+ * 按内容的稳定程度从静态到动态排列消息，使同一会话的各轮请求以及不同会话之间
+ * 拥有尽可能长的逐字节相同前缀，便于命中服务端的提示词前缀缓存。
+ */
+public class PromptLayout {
+
+    /**
+     * 消息层级，按声明顺序输出
+     */
+    public enum Tier {
+        /** 全局配置：面试要求、通用规则，所有会话相同 */
+        GLOBAL,
+        /** 面试官风格，相同风格的会话相同 */
+        PERSONA,
+        /** 会话级内容：简历，同一会话内不变 */
+        SESSION,
+        /** 对话历史：滚动摘要和问答记录，只在末尾追加 */
+        HISTORY,
+        /** 本轮指令，每次请求都可能不同 */
+        TURN
+    }
+
+    private final Map<Tier, List<Map<String, String>>> tiers = new EnumMap<>(Tier.class);
+    private int estimatedTokens;
+
+    /**
+     * 添加一条消息，内容为空时忽略
+     */
+    public PromptLayout add(Tier tier, String role, String content) {
+        if (StringUtils.hasText(content)) {
+            add(tier, ConversationContextService.message(role, content), TokenEstimator.estimateMessage(content));
+        }
+        return this;
+    }
+
+    /**
+     * 添加一条已构建的消息及其估算token数
+     */
+    public PromptLayout add(Tier tier, Map<String, String> message, int tokens) {
+        tiers.computeIfAbsent(tier, key -> new ArrayList<>()).add(message);
+        estimatedTokens += tokens;
+        return this;
+    }
+
+    /**
+     * 批量添加已构建的消息
+     */
+    public PromptLayout addAll(Tier tier, List<Map<String, String>> messages, int tokens) {
+        tiers.computeIfAbsent(tier, key -> new ArrayList<>()).addAll(messages);
+        estimatedTokens += tokens;
+        return this;
+    }
+
+    public int getEstimatedTokens() {
+        return estimatedTokens;
+    }
+
+    /**
+     * 按层级顺序输出消息列表
+     */
+    public List<Map<String, String>> toMessages() {
+        List<Map<String, String>> messages = new ArrayList<>();
+        for (List<Map<String, String>> tierMessages : tiers.values()) {
+            messages.addAll(tierMessages);
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,289 @@
+package com.aicv.airesume.service.prompt;
+
+import com.aicv.airesume.repository.ResumeRepository;
+import com.aicv.airesume.repository.ResumeVersion;
+import com.aicv.airesume.service.ResumeService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityNotFoundException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 简历提示词渲染器
+ * 把简历完整数据渲染为发送给大模型的简历文本，并按简历ID缓存渲染结果。
+ * 缓存以简历版本（简历和用户的最后修改时间）校验，命中时只需一次轻量查询，
+ * 不再每次开始面试都查询简历、用户、教育、工作、项目、技能六张表；简历更新时主动失效。
+ * 渲染结果附带内容哈希，面试会话以哈希引用简历文本。
+ */
+@Slf4j
+@Component
+public class ResumePromptRenderer {
+
+    @Value("${interview.resume-prompt.cache.max-entries:1000}")
+    private int maxEntries;
+
+    @Autowired
+    private ResumeRepository resumeRepository;
+
+    // 简历服务依赖本渲染器做缓存失效，延迟获取避免循环依赖
+    @Autowired
+    private ObjectProvider<ResumeService> resumeService;
+
+    private final Map<Long, RenderedResume> cache = new ConcurrentHashMap<>();
+
+    /**
+     * 简历渲染结果
+     */
+    public static final class RenderedResume {
+        private final String version;
+        private final String text;
+        private final String contentHash;
+        private volatile long lastAccessedAt = System.currentTimeMillis();
+
+        RenderedResume(String version, String text) {
+            this.version = version;
+            this.text = text;
+            this.contentHash = contentHash(text);
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * 简历文本的SHA-256哈希（十六进制）
+         */
+        public String getContentHash() {
+            return contentHash;
+        }
+    }
+
+    /**
+     * 获取简历的渲染结果，缓存的版本与简历当前版本一致时直接返回
+     * @param resumeId 简历ID
+     * @return 渲染结果
+     */
+    public RenderedResume render(Long resumeId) {
+        ResumeVersion current = resumeRepository.findVersionById(resumeId)
+                .orElseThrow(() -> new EntityNotFoundException("简历不存在: " + resumeId));
+        String version = version(current);
+        RenderedResume cached = cache.get(resumeId);
+        if (cached != null && cached.version.equals(version)) {
+            cached.lastAccessedAt = System.currentTimeMillis();
+            return cached;
+        }
+
+        Map<String, Object> fullResumeData = resumeService.getObject().getResumeFullData(resumeId);
+        RenderedResume rendered = new RenderedResume(version, convertFullDataToText(fullResumeData));
+        cache.put(resumeId, rendered);
+        if (cache.size() > maxEntries) {
+            evictLeastRecentlyUsed();
+        }
+        return rendered;
+    }
+
+    /**
+     * 简历更新或删除后使缓存失效
+     */
+    public void invalidate(Long resumeId) {
+        if (resumeId != null) {
+            cache.remove(resumeId);
+        }
+    }
+
+    /**
+     * 计算文本的SHA-256哈希（十六进制）
+     */
+    public static String contentHash(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    private static String version(ResumeVersion version) {
+        return time(version.getResumeUpdateTime()) + ":" + time(version.getUserUpdateTime());
+    }
+
+    private static long time(Date date) {
+        return date != null ? date.getTime() : 0L;
+    }
+
+    /**
+     * 超出容量时淘汰最久未访问的十分之一
+     */
+    private void evictLeastRecentlyUsed() {
+        int toEvict = Math.max(1, cache.size() - maxEntries + maxEntries / 10);
+        cache.entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().lastAccessedAt))
+                .limit(toEvict)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList())
+                .forEach(cache::remove);
+    }
+
+    /**
+     * 将完整的简历数据转换为文本格式，用于提取技术项和项目点
+     * @param fullResumeData 完整的简历数据
+     * @return 转换后的文本内容
+     */
+    @SuppressWarnings("unchecked")
+    private String convertFullDataToText(Map<String, Object> fullResumeData) {
+        StringBuilder content = new StringBuilder();
+        // 添加日志记录，检查传入的数据结构
+        log.info("convertFullDataToText - fullResumeData包含的键: {}", fullResumeData.keySet());
+        if (fullResumeData.containsKey("projectList")) {
+            Object projectList = fullResumeData.get("projectList");
+            if (projectList instanceof List) {
+                log.info("convertFullDataToText - 项目数量: {}", ((List<?>) projectList).size());
+            }
+        }
+        if (fullResumeData.containsKey("skillList")) {
+            Object skillList = fullResumeData.get("skillList");
+            if (skillList instanceof List) {
+                log.info("convertFullDataToText - 技能数量: {}", ((List<?>) skillList).size());
+            }
+        }
+        
+        // 添加个人基本信息
+        Map<String, Object> userInfo = (Map<String, Object>) fullResumeData.get("userInfo");
+        if (userInfo != null) {
+            content.append("个人信息：\n");
+            if (userInfo.containsKey("name")) content.append("姓名：").append(userInfo.get("name")).append("\n");
+            if (userInfo.containsKey("phone")) content.append("电话：").append(userInfo.get("phone")).append("\n");
+            if (userInfo.containsKey("email")) content.append("邮箱：").append(userInfo.get("email")).append("\n");
+            content.append("\n");
+        }
+        
+        // 添加简历基本信息
+        if (fullResumeData.containsKey("jobTitle")) content.append("求职意向：").append(fullResumeData.get("jobTitle")).append("\n\n");
+        if (fullResumeData.containsKey("selfEvaluation")) {
+            content.append("自我评价：\n")
+                  .append(fullResumeData.get("selfEvaluation"))
+                  .append("\n\n");
+        }
+        
+        // 添加教育经历
+        if (fullResumeData.containsKey("educationList")) {
+            Object educationObj = fullResumeData.get("educationList");
+            if (educationObj instanceof List) {
+                List<?> educationList = (List<?>) educationObj;
+                if (!educationList.isEmpty()) {
+                    content.append("教育经历：\n");
+                    for (Object eduObj : educationList) {
+                        if (eduObj instanceof com.aicv.airesume.entity.ResumeEducation) {
+                            com.aicv.airesume.entity.ResumeEducation education = (com.aicv.airesume.entity.ResumeEducation) eduObj;
+                            content.append("- 学校：").append(education.getSchool() != null ? education.getSchool() : "");
+                            content.append(", 专业：").append(education.getMajor() != null ? education.getMajor() : "");
+                            content.append(", 学历：").append(education.getDegree() != null ? education.getDegree() : "");
+                            content.append(", 时间段：")
+                                  .append(education.getStartDate() != null ? education.getStartDate() : "")
+                                  .append(" - ")
+                                  .append(education.getEndDate() != null ? education.getEndDate() : "")
+                                  .append("\n");
+                        }
+                    }
+                    content.append("\n");
+                }
+            }
+        }
+        
+        // 添加工作经历
+        if (fullResumeData.containsKey("workExperienceList")) {
+            Object workExperienceObj = fullResumeData.get("workExperienceList");
+            if (workExperienceObj instanceof List) {
+                List<?> workExperienceList = (List<?>) workExperienceObj;
+                if (!workExperienceList.isEmpty()) {
+                    content.append("工作经历：\n");
+                    for (Object workObj : workExperienceList) {
+                        if (workObj instanceof com.aicv.airesume.entity.ResumeWorkExperience) {
+                            com.aicv.airesume.entity.ResumeWorkExperience work = (com.aicv.airesume.entity.ResumeWorkExperience) workObj;
+                            content.append("- 公司：").append(work.getCompanyName() != null ? work.getCompanyName() : "");
+                            content.append(", 职位：").append(work.getPositionName() != null ? work.getPositionName() : "");
+                            content.append(", 时间段：")
+                                  .append(work.getStartDate() != null ? work.getStartDate() : "")
+                                  .append(" - ")
+                                  .append(work.getEndDate() != null ? work.getEndDate() : "")
+                                  .append("\n");
+                            if (work.getDescription() != null) {
+                                content.append("  工作描述：").append(work.getDescription()).append("\n");
+                            }
+                        }
+                    }
+                    content.append("\n");
+                }
+            }
+        }
+        
+        // 添加项目经历
+        if (fullResumeData.containsKey("projectList")) {
+            Object projectObj = fullResumeData.get("projectList");
+            if (projectObj instanceof List) {
+                List<?> projectList = (List<?>) projectObj;
+                if (!projectList.isEmpty()) {
+                    content.append("项目经历：\n");
+                    for (Object projObj : projectList) {
+                        if (projObj instanceof com.aicv.airesume.entity.ResumeProject) {
+                            com.aicv.airesume.entity.ResumeProject project = (com.aicv.airesume.entity.ResumeProject) projObj;
+                            content.append("- 项目名称：").append(project.getProjectName() != null ? project.getProjectName() : "");
+                            content.append(", 角色：").append(project.getRole() != null ? project.getRole() : "");
+                            content.append(", 时间段：")
+                                  .append(project.getStartDate() != null ? project.getStartDate() : "")
+                                  .append(" - ")
+                                  .append(project.getEndDate() != null ? project.getEndDate() : "")
+                                  .append("\n");
+                            if (project.getTechStack() != null) {
+                                content.append("  技术栈：").append(project.getTechStack()).append("\n");
+                            }
+                            if (project.getDescription() != null) {
+                                content.append("  项目描述：").append(project.getDescription()).append("\n");
+                            }
+                        }
+                    }
+                    content.append("\n");
+                }
+            }
+        }
+        
+        // 添加技能
+        if (fullResumeData.containsKey("skillList")) {
+            Object skillObj = fullResumeData.get("skillList");
+            if (skillObj instanceof List) {
+                List<?> skillList = (List<?>) skillObj;
+                if (!skillList.isEmpty()) {
+                    content.append("技能：\n");
+                    for (Object skillObjItem : skillList) {
+                        if (skillObjItem instanceof com.aicv.airesume.entity.ResumeSkill) {
+                            com.aicv.airesume.entity.ResumeSkill skill = (com.aicv.airesume.entity.ResumeSkill) skillObjItem;
+                            content.append("- ").append(skill.getName() != null ? skill.getName() : "");
+                            if (skill.getLevel() != null) {
+                                content.append(" (熟练度：").append(skill.getLevel()).append(")");
+                            }
+                            content.append("\n");
+                        }
+                    }
+                }
+            }
+        }
+        
+        return content.toString();
+    }
+}
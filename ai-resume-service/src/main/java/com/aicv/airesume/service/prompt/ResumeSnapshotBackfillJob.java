@@ -0,0 +1,170 @@
+package com.aicv.airesume.service.prompt;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 简历快照迁移任务
+ * 把旧会话中保存的简历全文迁移到resume_snapshot表，分两个阶段，由运维在单个节点上显式配置执行，默认不执行：
+ * 1. hash：按主键分批读取有全文但没有哈希的会话，保存快照（相同内容只保存一次）后只写入哈希，不修改全文；
+ * 2. clear：确认快照可以读出且内容与会话中的全文一致后，才清空会话中的全文。
+ * 第二阶段会删除数据，应在第一阶段完成并核对快照之后单独执行。每一步都是幂等的，中途重启不影响结果。
+ */
+@Slf4j
+@Component
+public class ResumeSnapshotBackfillJob {
+
+    static final String PHASE_HASH = "hash";
+    static final String PHASE_CLEAR = "clear";
+
+    private static final String SELECT_UNHASHED_SQL = "SELECT id, resume_content FROM interview_session " +
+            "WHERE id > ? AND resume_content IS NOT NULL AND resume_content_hash IS NULL ORDER BY id LIMIT ?";
+    private static final String UPDATE_HASH_SQL = "UPDATE interview_session SET resume_content_hash = ? " +
+            "WHERE id = ? AND resume_content_hash IS NULL";
+    private static final String SELECT_HASHED_SQL = "SELECT id, resume_content, resume_content_hash FROM interview_session " +
+            "WHERE id > ? AND resume_content IS NOT NULL AND resume_content_hash IS NOT NULL ORDER BY id LIMIT ?";
+    private static final String CLEAR_SQL = "UPDATE interview_session SET resume_content = NULL " +
+            "WHERE id = ? AND resume_content_hash = ?";
+
+    // 要执行的迁移阶段：hash 或 clear，为空时不执行
+    @Value("${interview.resume-snapshot.backfill.phase:}")
+    private String phase;
+
+    @Value("${interview.resume-snapshot.backfill.initial-delay-ms:60000}")
+    private long initialDelayMs;
+
+    @Value("${interview.resume-snapshot.backfill.batch-size:200}")
+    private int batchSize;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ResumeSnapshotStore resumeSnapshotStore;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "resume-snapshot-backfill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean stopped;
+
+    @PostConstruct
+    public void init() {
+        if (!StringUtils.hasText(phase)) {
+            return;
+        }
+        if (!PHASE_HASH.equals(phase) && !PHASE_CLEAR.equals(phase)) {
+            log.warn("未知的简历快照迁移阶段: {}，可选值: {}、{}", phase, PHASE_HASH, PHASE_CLEAR);
+            return;
+        }
+        log.info("已配置简历快照迁移，阶段: {}，{}毫秒后执行", phase, initialDelayMs);
+        executor.schedule(this::runSafely, initialDelayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void runSafely() {
+        try {
+            if (PHASE_HASH.equals(phase)) {
+                backfillHashes();
+            } else {
+                clearVerifiedContent();
+            }
+        } catch (Exception e) {
+            log.error("简历快照迁移失败，阶段: {}: {}", phase, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 第一阶段：保存快照并写入哈希，会话中的全文保持不变
+     * @return 写入哈希的会话数
+     */
+    public int backfillHashes() {
+        long lastId = 0;
+        int migrated = 0;
+        while (!stopped) {
+            List<Object[]> rows = jdbcTemplate.query(SELECT_UNHASHED_SQL,
+                    (rs, rowNum) -> new Object[]{rs.getLong("id"), rs.getString("resume_content")},
+                    lastId, batchSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+            List<Object[]> updates = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                String content = (String) row[1];
+                if (content != null && !content.isEmpty()) {
+                    updates.add(new Object[]{resumeSnapshotStore.save(content), row[0]});
+                }
+                lastId = (Long) row[0];
+            }
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_HASH_SQL, updates);
+                migrated += updates.size();
+            }
+            if (rows.size() < batchSize) {
+                break;
+            }
+        }
+        log.info("简历快照迁移第一阶段完成，写入哈希的会话数: {}", migrated);
+        return migrated;
+    }
+
+    /**
+     * 第二阶段：逐条核对快照内容与会话中的全文一致后清空全文，核对失败的会话保留全文
+     * @return 清空全文的会话数
+     */
+    public int clearVerifiedContent() {
+        long lastId = 0;
+        int cleared = 0;
+        int mismatched = 0;
+        while (!stopped) {
+            List<Object[]> rows = jdbcTemplate.query(SELECT_HASHED_SQL,
+                    (rs, rowNum) -> new Object[]{rs.getLong("id"), rs.getString("resume_content"), rs.getString("resume_content_hash")},
+                    lastId, batchSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+            List<Object[]> updates = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                String content = (String) row[1];
+                String hash = (String) row[2];
+                Optional<String> snapshot = resumeSnapshotStore.load(hash);
+                if (snapshot.isPresent() && snapshot.get().equals(content)) {
+                    updates.add(new Object[]{row[0], hash});
+                } else {
+                    mismatched++;
+                    log.warn("简历快照与会话全文不一致，保留全文，id: {}, hash: {}", row[0], hash);
+                }
+                lastId = (Long) row[0];
+            }
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(CLEAR_SQL, updates);
+                cleared += updates.size();
+            }
+            if (rows.size() < batchSize) {
+                break;
+            }
+        }
+        log.info("简历快照迁移第二阶段完成，清空全文的会话数: {}，核对失败保留全文的会话数: {}", cleared, mismatched);
+        return cleared;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopped = true;
+        executor.shutdownNow();
+    }
+}
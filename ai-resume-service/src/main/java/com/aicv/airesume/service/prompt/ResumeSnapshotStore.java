@@ -0,0 +1,127 @@
+package com.aicv.airesume.service.prompt;
+
+import com.aicv.airesume.entity.InterviewSession;
+import com.aicv.airesume.repository.ResumeSnapshotRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 简历快照存储
+ * 面试会话不再各自保存一份简历全文，而是保存文本哈希并引用resume_snapshot表中的快照。
+ * 快照内容不可变，读取结果按哈希缓存在内存中。
+ */
+@Slf4j
+@Component
+public class ResumeSnapshotStore {
+
+    private static final String INSERT_SQL = "INSERT IGNORE INTO resume_snapshot (content_hash, content, content_length, created_at) VALUES (?, ?, ?, ?)";
+
+    @Value("${interview.resume-snapshot.cache.max-entries:500}")
+    private int maxEntries;
+
+    @Autowired
+    private ResumeSnapshotRepository resumeSnapshotRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // 已确认保存的快照文本，按最近访问顺序淘汰
+    private Map<String, String> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Collections.synchronizedMap(new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * 保存简历文本，已存在相同内容时不重复保存
+     * @param text 简历文本
+     * @return 文本哈希
+     */
+    public String save(String text) {
+        String hash = ResumePromptRenderer.contentHash(text);
+        if (cache.containsKey(hash)) {
+            return hash;
+        }
+        jdbcTemplate.update(INSERT_SQL, hash, compress(text), text.length(), Timestamp.valueOf(LocalDateTime.now()));
+        cache.put(hash, text);
+        return hash;
+    }
+
+    /**
+     * 按哈希读取简历文本
+     */
+    public Optional<String> load(String hash) {
+        String text = cache.get(hash);
+        if (text != null) {
+            return Optional.of(text);
+        }
+        Optional<String> loaded = resumeSnapshotRepository.findById(hash).map(snapshot -> decompress(snapshot.getContent()));
+        loaded.ifPresent(value -> cache.put(hash, value));
+        return loaded;
+    }
+
+    /**
+     * 读取会话使用的简历文本：优先使用快照，尚未迁移的旧会话使用会话中保存的全文
+     * @return 简历文本，会话没有简历内容时为null
+     */
+    public String resolve(InterviewSession session) {
+        if (StringUtils.hasText(session.getResumeContentHash())) {
+            Optional<String> text = load(session.getResumeContentHash());
+            if (text.isPresent()) {
+                return text.get();
+            }
+            log.warn("简历快照不存在，sessionId: {}, hash: {}", session.getSessionId(), session.getResumeContentHash());
+        }
+        return StringUtils.hasText(session.getResumeContent()) ? session.getResumeContent() : null;
+    }
+
+    static byte[] compress(String text) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(text.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static String decompress(byte[] content) {
+        try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length * 4);
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = gzip.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.aicv.airesume.service.prompt;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Token数估算工具类
+ * 按DeepSeek分词器的经验比例估算：中文约0.6 token/字，英文和数字约0.3 token/字符
+ */
+public final class TokenEstimator {
+
+    // 每条消息的角色和格式开销
+    private static final int MESSAGE_OVERHEAD = 4;
+
+    private TokenEstimator() {
+    }
+
+    /**
+     * 估算文本的token数
+     */
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        double tokens = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                tokens += 0.3;
+            } else if (Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN) {
+                tokens += 0.6;
+            } else {
+                tokens += 1.0;
+            }
+        }
+        return (int) Math.ceil(tokens);
+    }
+
+    /**
+     * 估算单条消息的token数（含消息开销）
+     */
+    public static int estimateMessage(String content) {
+        return estimate(content) + MESSAGE_OVERHEAD;
+    }
+
+    /**
+     * 估算消息列表的token数
+     */
+    public static int estimateMessages(List<Map<String, String>> messages) {
+        int tokens = 0;
+        for (Map<String, String> message : messages) {
+            tokens += estimateMessage(message.get("content"));
+        }
+        return tokens;
+    }
+}
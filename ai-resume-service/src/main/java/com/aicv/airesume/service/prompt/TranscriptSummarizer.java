@@ -0,0 +1,107 @@
+package com.aicv.airesume.service.prompt;
+
+import com.aicv.airesume.repository.InterviewSessionRepository;
+import com.aicv.airesume.service.ConversationContextService;
+import com.alibaba.fastjson.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 面试对话滚动摘要生成器
+ * 将早期轮次的问答与已有摘要合并为新的摘要，异步调用DeepSeek生成并保存到面试会话
+ */
+@Slf4j
+@Component
+public class TranscriptSummarizer {
+
+    private static final String SUMMARY_SYSTEM_PROMPT = "你是面试记录整理助手。请将已有摘要和新增的面试问答合并为一份简洁的摘要，"
+            + "保留已考察的技术点、候选人回答的要点以及表现评价，避免遗漏已问过的问题，总字数不超过400字。只输出摘要内容。";
+
+    @Value("${deepseek.api-key}")
+    private String deepseekApiKey;
+
+    @Value("${deepseek.api-url:https://api.deepseek.com/v1/chat/completions}")
+    private String deepseekApiUrl;
+
+    @Value("${interview.prompt.summary-max-tokens:800}")
+    private int summaryMaxTokens;
+
+    @Autowired
+    private WebClient deepSeekWebClient;
+
+    @Autowired
+    private InterviewSessionRepository sessionRepository;
+
+    /**
+     * 异步把指定轮次合并进滚动摘要，同一会话同时只有一个摘要任务
+     * @param context 对话上下文
+     * @param rounds 需要合并进摘要的轮次（按轮次升序）
+     */
+    public void summarizeAsync(ConversationContextService.ConversationContext context,
+                               List<ConversationContextService.Round> rounds) {
+        if (rounds.isEmpty() || !context.tryStartSummarizing()) {
+            return;
+        }
+        String sessionId = context.getSessionId();
+        int upToRound = rounds.get(rounds.size() - 1).getRoundNumber();
+
+        StringBuilder userPrompt = new StringBuilder();
+        if (StringUtils.hasText(context.getTranscriptSummary())) {
+            userPrompt.append("已有摘要：\n").append(context.getTranscriptSummary()).append("\n\n");
+        }
+        userPrompt.append("新增面试问答：\n");
+        for (ConversationContextService.Round round : rounds) {
+            if (round.getQuestionMessage() != null) {
+                userPrompt.append("问题 ").append(round.getRoundNumber()).append(": ")
+                        .append(round.getQuestionMessage().get("content")).append("\n");
+            }
+            if (round.getAnswerMessage() != null) {
+                userPrompt.append("回答: ").append(round.getAnswerMessage().get("content")).append("\n");
+            }
+        }
+
+        List<Map<String, String>> messages = new ArrayList<>();
+        messages.add(ConversationContextService.message("system", SUMMARY_SYSTEM_PROMPT));
+        messages.add(ConversationContextService.message("user", userPrompt.toString()));
+
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", "deepseek-chat");
+        requestBody.put("stream", false);
+        requestBody.put("messages", messages);
+        requestBody.put("temperature", 0.3);
+        requestBody.put("max_tokens", summaryMaxTokens);
+
+        deepSeekWebClient.post()
+                .uri(deepseekApiUrl)
+                .header("Authorization", "Bearer " + deepseekApiKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(JSONObject.toJSONString(requestBody))
+                .retrieve()
+                .bodyToMono(String.class)
+                // 保存摘要涉及数据库操作，切换到弹性线程池执行
+                .publishOn(Schedulers.boundedElastic())
+                .doFinally(signal -> context.finishSummarizing())
+                .subscribe(response -> {
+                    String summary = JSONObject.parseObject(response)
+                            .getJSONArray("choices").getJSONObject(0)
+                            .getJSONObject("message").getString("content");
+                    if (!StringUtils.hasText(summary)) {
+                        return;
+                    }
+                    context.updateSummary(summary.trim(), upToRound);
+                    sessionRepository.updateTranscriptSummary(sessionId, summary.trim(), upToRound);
+                    log.info("面试对话摘要已更新，sessionId: {}，覆盖到第{}轮", sessionId, upToRound);
+                }, error -> log.error("生成面试对话摘要失败，sessionId: {}: {}", sessionId, error.getMessage(), error));
+    }
+}
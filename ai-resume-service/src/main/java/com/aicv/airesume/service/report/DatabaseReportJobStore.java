@@ -0,0 +1,72 @@
+package com.aicv.airesume.service.report;
+
+import com.aicv.airesume.entity.ReportGenerationJob;
+import com.aicv.airesume.repository.ReportGenerationJobRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 数据库报告任务存储
+ * 任务保存在MySQL中，多节点部署时任意节点都能读取生成中的报告，并在负责节点失联后接管生成。
+ */
+@Component
+@ConditionalOnProperty(name = "interview.report.job-store", havingValue = "database")
+public class DatabaseReportJobStore implements ReportJobStore {
+
+    @Autowired
+    private ReportGenerationJobRepository jobRepository;
+
+    @Override
+    public void create(ReportGenerationJob job) {
+        job.setHeartbeatAt(currentTime());
+        jobRepository.save(job);
+    }
+
+    @Override
+    public LocalDateTime currentTime() {
+        return jobRepository.currentTimestamp().toLocalDateTime();
+    }
+
+    @Override
+    public ReportGenerationJob load(String reportId) {
+        return jobRepository.findById(reportId).orElse(null);
+    }
+
+    @Override
+    public boolean checkpoint(String reportId, String ownerNode, String content, String chunkEnds) {
+        if (content == null) {
+            return jobRepository.heartbeat(reportId, ownerNode) > 0;
+        }
+        return jobRepository.checkpoint(reportId, ownerNode, content, chunkEnds) > 0;
+    }
+
+    @Override
+    public boolean finish(String reportId, String ownerNode, String status, String errorMessage, String content, String chunkEnds) {
+        return jobRepository.finish(reportId, ownerNode, status, errorMessage, content, chunkEnds) > 0;
+    }
+
+    @Override
+    public List<String> findOrphaned(LocalDateTime staleBefore, int limit) {
+        return jobRepository.findOrphanedReportIds(staleBefore, PageRequest.of(0, limit));
+    }
+
+    @Override
+    public boolean claim(String reportId, String ownerNode, LocalDateTime staleBefore) {
+        return jobRepository.claim(reportId, ownerNode, staleBefore) > 0;
+    }
+
+    @Override
+    public void release(String reportId) {
+        // 任务保存在数据库中，不占用本节点内存，保留到过期清理
+    }
+
+    @Override
+    public int purgeFinishedBefore(LocalDateTime before) {
+        return jobRepository.deleteFinishedBefore(before);
+    }
+}
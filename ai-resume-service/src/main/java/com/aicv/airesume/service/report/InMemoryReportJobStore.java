@@ -0,0 +1,139 @@
+package com.aicv.airesume.service.report;
+
+import com.aicv.airesume.entity.ReportGenerationJob;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * 内存报告任务存储
+ * 单节点部署的默认实现，也可作为本地调试时数据库存储的替代；进程重启后任务丢失。
+ */
+@Component
+@ConditionalOnProperty(name = "interview.report.job-store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryReportJobStore implements ReportJobStore {
+
+    private static final String GENERATING = "GENERATING";
+
+    private final Map<String, ReportGenerationJob> jobs = new ConcurrentHashMap<>();
+
+    @Override
+    public void create(ReportGenerationJob job) {
+        ReportGenerationJob copy = copy(job);
+        if (copy.getCreatedAt() == null) {
+            copy.setCreatedAt(LocalDateTime.now());
+        }
+        copy.setHeartbeatAt(currentTime());
+        jobs.put(job.getReportId(), copy);
+    }
+
+    @Override
+    public LocalDateTime currentTime() {
+        return LocalDateTime.now();
+    }
+
+    @Override
+    public ReportGenerationJob load(String reportId) {
+        ReportGenerationJob job = jobs.get(reportId);
+        return job != null ? copy(job) : null;
+    }
+
+    @Override
+    public boolean checkpoint(String reportId, String ownerNode, String content, String chunkEnds) {
+        AtomicBoolean updated = new AtomicBoolean(false);
+        jobs.computeIfPresent(reportId, (id, job) -> {
+            if (!GENERATING.equals(job.getStatus()) || !ownerNode.equals(job.getOwnerNode())) {
+                return job;
+            }
+            ReportGenerationJob next = copy(job);
+            if (content != null) {
+                next.setContent(content);
+                next.setChunkEnds(chunkEnds);
+            }
+            next.setHeartbeatAt(LocalDateTime.now());
+            updated.set(true);
+            return next;
+        });
+        return updated.get();
+    }
+
+    @Override
+    public boolean finish(String reportId, String ownerNode, String status, String errorMessage, String content, String chunkEnds) {
+        AtomicBoolean updated = new AtomicBoolean(false);
+        jobs.computeIfPresent(reportId, (id, job) -> {
+            if (!GENERATING.equals(job.getStatus()) || !ownerNode.equals(job.getOwnerNode())) {
+                return job;
+            }
+            ReportGenerationJob next = copy(job);
+            next.setStatus(status);
+            next.setErrorMessage(errorMessage);
+            next.setContent(content);
+            next.setChunkEnds(chunkEnds);
+            next.setHeartbeatAt(LocalDateTime.now());
+            updated.set(true);
+            return next;
+        });
+        return updated.get();
+    }
+
+    @Override
+    public List<String> findOrphaned(LocalDateTime staleBefore, int limit) {
+        return jobs.values().stream()
+                .filter(job -> GENERATING.equals(job.getStatus()) && job.getHeartbeatAt().isBefore(staleBefore))
+                .map(ReportGenerationJob::getReportId)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean claim(String reportId, String ownerNode, LocalDateTime staleBefore) {
+        AtomicBoolean claimed = new AtomicBoolean(false);
+        jobs.computeIfPresent(reportId, (id, job) -> {
+            if (!GENERATING.equals(job.getStatus()) || !job.getHeartbeatAt().isBefore(staleBefore)) {
+                return job;
+            }
+            ReportGenerationJob next = copy(job);
+            next.setOwnerNode(ownerNode);
+            next.setHeartbeatAt(LocalDateTime.now());
+            claimed.set(true);
+            return next;
+        });
+        return claimed.get();
+    }
+
+    @Override
+    public void release(String reportId) {
+        jobs.computeIfPresent(reportId, (id, job) -> GENERATING.equals(job.getStatus()) ? job : null);
+    }
+
+    @Override
+    public int purgeFinishedBefore(LocalDateTime before) {
+        int size = jobs.size();
+        jobs.values().removeIf(job -> !GENERATING.equals(job.getStatus()) && job.getHeartbeatAt().isBefore(before));
+        return size - jobs.size();
+    }
+
+    /**
+     * 存储和返回的都是副本，避免调用方修改影响存储中的任务
+     */
+    private static ReportGenerationJob copy(ReportGenerationJob job) {
+        ReportGenerationJob copy = new ReportGenerationJob();
+        copy.setReportId(job.getReportId());
+        copy.setSessionId(job.getSessionId());
+        copy.setStatus(job.getStatus());
+        copy.setFormat(job.getFormat());
+        copy.setContent(job.getContent());
+        copy.setChunkEnds(job.getChunkEnds());
+        copy.setErrorMessage(job.getErrorMessage());
+        copy.setOwnerNode(job.getOwnerNode());
+        copy.setHeartbeatAt(job.getHeartbeatAt());
+        copy.setCreatedAt(job.getCreatedAt());
+        return copy;
+    }
+}
@@ -0,0 +1,180 @@
+package com.aicv.airesume.service.report;
+
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 流式Markdown报告解析器
+ * 随大模型输出逐段喂入内容，按行识别二级标题切换章节，同时提取总分和优势、改进点列表，
+ * 一次遍历完成解析；输出结束时即可得到报告数据，不需要再对完整报告做多次查找。
+ * 非线程安全，每份报告使用一个实例，由生成线程调用。
+ */
+public class MarkdownReportParser {
+
+    private static final Pattern SCORE_PATTERN = Pattern.compile("(总分|总体评分)：?(\\d+\\.?\\d*)");
+    private static final Pattern LIST_ITEM_PATTERN = Pattern.compile("-\\s+([^\\n]+)");
+
+    /**
+     * 报告章节，标题与报告生成提示词中要求的二级标题一致
+     */
+    enum Section {
+        OVERALL("总体评价和总分", "overallFeedback"),
+        STRENGTHS("优势分析", "strengths"),
+        IMPROVEMENTS("改进点", "improvements"),
+        TECH_DEPTH("技术深度评价", "techDepthEvaluation"),
+        LOGIC_EXPRESSION("逻辑表达评价", "logicExpressionEvaluation"),
+        COMMUNICATION("沟通表达评价", "communicationEvaluation"),
+        ANSWER_DEPTH("回答深度评价", "answerDepthEvaluation"),
+        SUGGESTIONS("针对候选人的详细改进建议", "detailedImprovementSuggestions");
+
+        private final String title;
+        private final String field;
+
+        Section(String title, String field) {
+            this.title = title;
+            this.field = field;
+        }
+
+        static Section ofHeading(String heading) {
+            for (Section section : values()) {
+                if (heading.startsWith(section.title)) {
+                    return section;
+                }
+            }
+            return null;
+        }
+    }
+
+    // 未结束的行
+    private final StringBuilder pendingLine = new StringBuilder();
+    private final Map<Section, StringBuilder> sections = new EnumMap<>(Section.class);
+    private final List<String> strengths = new ArrayList<>();
+    private final List<String> improvements = new ArrayList<>();
+    private Section currentSection;
+    private Double totalScore;
+
+    /**
+     * 喂入一段新生成的内容
+     */
+    public void feed(String delta) {
+        if (delta == null || delta.isEmpty()) {
+            return;
+        }
+        int start = 0;
+        int newline;
+        while ((newline = delta.indexOf('\n', start)) >= 0) {
+            pendingLine.append(delta, start, newline);
+            processLine(pendingLine.toString());
+            pendingLine.setLength(0);
+            start = newline + 1;
+        }
+        pendingLine.append(delta, start, delta.length());
+    }
+
+    /**
+     * 输出结束，返回报告数据；缺失的章节使用默认内容
+     */
+    public Map<String, Object> finish() {
+        if (pendingLine.length() > 0) {
+            processLine(pendingLine.toString());
+            pendingLine.setLength(0);
+        }
+
+        Map<String, Object> reportData = new HashMap<>();
+        String overall = sectionText(Section.OVERALL);
+        if (StringUtils.hasText(overall)) {
+            if (totalScore != null) {
+                reportData.put("totalScore", totalScore);
+            }
+            reportData.put("overallFeedback", overall);
+        } else {
+            reportData.put("overallFeedback", ReportDefaults.OVERALL_FEEDBACK);
+            reportData.put("totalScore", ReportDefaults.TOTAL_SCORE);
+        }
+        reportData.put("strengths", listOrDefault(Section.STRENGTHS, strengths, ReportDefaults.STRENGTH));
+        reportData.put("improvements", listOrDefault(Section.IMPROVEMENTS, improvements, ReportDefaults.IMPROVEMENT));
+        putText(reportData, Section.TECH_DEPTH, ReportDefaults.TECH_DEPTH);
+        putText(reportData, Section.LOGIC_EXPRESSION, ReportDefaults.LOGIC_EXPRESSION);
+        putText(reportData, Section.COMMUNICATION, ReportDefaults.COMMUNICATION);
+        putText(reportData, Section.ANSWER_DEPTH, ReportDefaults.ANSWER_DEPTH);
+        putText(reportData, Section.SUGGESTIONS, ReportDefaults.SUGGESTIONS);
+        return reportData;
+    }
+
+    /**
+     * 解析失败时使用的默认报告数据
+     */
+    public static Map<String, Object> defaultReportData(String overallFeedback) {
+        Map<String, Object> reportData = new MarkdownReportParser().finish();
+        reportData.put("overallFeedback", overallFeedback);
+        return reportData;
+    }
+
+    private void processLine(String line) {
+        String trimmed = line.trim();
+        if (headingLevel(trimmed) == 2) {
+            // 只有二级标题切换章节，不认识的章节内容忽略；三级及以下标题作为当前章节的内容
+            String heading = trimmed.substring(2).trim();
+            currentSection = Section.ofHeading(heading);
+            if (currentSection != null && !sections.containsKey(currentSection)) {
+                sections.put(currentSection, new StringBuilder());
+            }
+            return;
+        }
+        if (currentSection == null) {
+            return;
+        }
+        StringBuilder text = sections.get(currentSection);
+        text.append(line).append('\n');
+
+        if (currentSection == Section.OVERALL && totalScore == null) {
+            Matcher matcher = SCORE_PATTERN.matcher(line);
+            if (matcher.find()) {
+                totalScore = Double.parseDouble(matcher.group(2));
+            }
+        } else if (currentSection == Section.STRENGTHS || currentSection == Section.IMPROVEMENTS) {
+            Matcher matcher = LIST_ITEM_PATTERN.matcher(line);
+            if (matcher.find()) {
+                (currentSection == Section.STRENGTHS ? strengths : improvements).add(matcher.group(1).trim());
+            }
+        }
+    }
+
+    /**
+     * Markdown标题级别，即行首连续#的数量，不是标题时返回0
+     */
+    private static int headingLevel(String trimmed) {
+        int level = 0;
+        while (level < trimmed.length() && trimmed.charAt(level) == '#') {
+            level++;
+        }
+        return level;
+    }
+
+    private String sectionText(Section section) {
+        StringBuilder text = sections.get(section);
+        return text != null ? text.toString().trim() : "";
+    }
+
+    private List<String> listOrDefault(Section section, List<String> items, String defaultItem) {
+        List<String> result = new ArrayList<>(items);
+        if (result.isEmpty()) {
+            // 没有找到列表项时使用整个章节内容
+            String text = sectionText(section);
+            result.add(StringUtils.hasText(text) ? text : defaultItem);
+        }
+        return result;
+    }
+
+    private void putText(Map<String, Object> reportData, Section section, String defaultText) {
+        String text = sectionText(section);
+        reportData.put(section.field, StringUtils.hasText(text) ? text : defaultText);
+    }
+}
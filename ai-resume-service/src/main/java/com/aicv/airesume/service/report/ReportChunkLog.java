@@ -0,0 +1,176 @@
+package com.aicv.airesume.service.report;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 报告内容块日志
+ * 单写多读的只追加日志：所有内容块连续存放在一个可增长的char数组中，另用int数组记录每个块的结束偏移。
+ * 写入方先写数据，再通过volatile发布存储和已提交块数；读取方先读已提交块数再读存储，
+ * 不加锁即可从任意位置读取，也不会阻塞写入方。
+ * 只允许一个线程写入（一个报告只有一个生成流）。
+ */
+public class ReportChunkLog {
+
+    private static final int INITIAL_CHARS = 1024;
+    private static final int INITIAL_CHUNKS = 64;
+
+    /**
+     * 存储，扩容时整体替换；已提交的内容写入后不再修改
+     */
+    private static final class Storage {
+        private final char[] chars;
+        private final int[] ends;
+
+        Storage(char[] chars, int[] ends) {
+            this.chars = chars;
+            this.ends = ends;
+        }
+    }
+
+    private volatile Storage storage = new Storage(new char[INITIAL_CHARS], new int[INITIAL_CHUNKS]);
+    // 已提交的块数，发布点：读取方只读取该数量以内的块
+    private volatile int committedCount;
+    // 已提交的字符数，只由写入方修改
+    private volatile int committedChars;
+
+    /**
+     * 追加内容块（仅限写入线程调用）
+     * @param content 内容
+     * @return 内容块索引
+     */
+    public int append(String content) {
+        int count = committedCount;
+        int start = committedChars;
+        int end = start + content.length();
+        Storage current = storage;
+        if (end > current.chars.length || count >= current.ends.length) {
+            char[] chars = end > current.chars.length
+                    ? Arrays.copyOf(current.chars, Math.max(end, current.chars.length * 2))
+                    : current.chars;
+            int[] ends = count >= current.ends.length
+                    ? Arrays.copyOf(current.ends, current.ends.length * 2)
+                    : current.ends;
+            current = new Storage(chars, ends);
+        }
+        content.getChars(0, content.length(), current.chars, start);
+        current.ends[count] = end;
+        // 先发布存储再发布块数，读取方看到新块数时一定能看到对应的数据
+        storage = current;
+        committedChars = end;
+        committedCount = count + 1;
+        return count;
+    }
+
+    /**
+     * 已提交的内容块数
+     */
+    public int size() {
+        return committedCount;
+    }
+
+    /**
+     * 已提交的字符数
+     */
+    public int length() {
+        return committedChars;
+    }
+
+    /**
+     * 存储占用的字节数（按已分配容量估算）
+     */
+    public long capacityBytes() {
+        Storage current = storage;
+        return current.chars.length * 2L + current.ends.length * 4L;
+    }
+
+    /**
+     * 读取指定索引的内容块
+     */
+    public String get(int index) {
+        int count = committedCount;
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + count);
+        }
+        Storage current = storage;
+        int start = index == 0 ? 0 : current.ends[index - 1];
+        return new String(current.chars, start, current.ends[index] - start);
+    }
+
+    /**
+     * 读取从指定索引开始的所有已提交内容块
+     * @param fromIndex 起始索引
+     * @return 内容块，没有新内容时返回空列表
+     */
+    public List<String> readFrom(int fromIndex) {
+        return readRange(fromIndex, committedCount);
+    }
+
+    /**
+     * 读取[fromIndex, toIndex)范围内的内容块，toIndex不能超过调用前读取的已提交块数
+     */
+    public List<String> readRange(int fromIndex, int toIndex) {
+        int from = Math.max(fromIndex, 0);
+        if (from >= toIndex) {
+            return Collections.emptyList();
+        }
+        Storage current = storage;
+        List<String> chunks = new ArrayList<>(toIndex - from);
+        int start = from == 0 ? 0 : current.ends[from - 1];
+        for (int i = from; i < toIndex; i++) {
+            int end = current.ends[i];
+            chunks.add(new String(current.chars, start, end - start));
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * 读取一致的快照：全部已提交内容及各内容块的结束偏移，用于写入检查点
+     */
+    public Snapshot snapshot() {
+        int count = committedCount;
+        Storage current = storage;
+        int length = count == 0 ? 0 : current.ends[count - 1];
+        return new Snapshot(new String(current.chars, 0, length), Arrays.copyOf(current.ends, count));
+    }
+
+    /**
+     * 内容快照
+     */
+    public static final class Snapshot {
+        private final String content;
+        private final int[] chunkEnds;
+
+        Snapshot(String content, int[] chunkEnds) {
+            this.content = content;
+            this.chunkEnds = chunkEnds;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        public int[] getChunkEnds() {
+            return chunkEnds;
+        }
+
+        public int getChunkCount() {
+            return chunkEnds.length;
+        }
+    }
+
+    /**
+     * 读取全部已提交内容
+     */
+    public String contentSnapshot() {
+        int count = committedCount;
+        if (count == 0) {
+            return "";
+        }
+        Storage current = storage;
+        return new String(current.chars, 0, current.ends[count - 1]);
+    }
+}
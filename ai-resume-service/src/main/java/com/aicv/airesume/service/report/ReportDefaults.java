@@ -0,0 +1,20 @@
+package com.aicv.airesume.service.report;
+
+/**
+ * 报告字段的默认内容，大模型输出缺失对应字段时使用
+ */
+final class ReportDefaults {
+
+    static final String OVERALL_FEEDBACK = "**总分：50/100**。候选人表现一般，需要进一步评估。";
+    static final double TOTAL_SCORE = 50.0;
+    static final String STRENGTH = "有一定的学习意愿和态度。";
+    static final String IMPROVEMENT = "技术知识需要进一步系统化学习。";
+    static final String TECH_DEPTH = "**技术深度一般**。候选人对部分技术有基本了解，但缺乏深入的原理理解和实践经验。";
+    static final String LOGIC_EXPRESSION = "**逻辑表达基本清晰**。候选人能够组织基本的技术阐述，但在复杂问题上逻辑性有待加强。";
+    static final String COMMUNICATION = "**沟通表达能力一般**。候选人能够基本表达自己的观点，但在主动沟通和澄清问题方面有待提高。";
+    static final String ANSWER_DEPTH = "**回答深度中等**。候选人的回答能够覆盖基本知识点，但缺乏深入的分析和拓展。";
+    static final String SUGGESTIONS = "1. **系统学习**：建议候选人系统学习核心技术栈的基础理论和实践。\n2. **项目实践**：通过实际项目积累经验，加深对技术的理解。\n3. **深入思考**：面对技术问题时，不仅要知道怎么做，还要理解为什么这么做。";
+
+    private ReportDefaults() {
+    }
+}
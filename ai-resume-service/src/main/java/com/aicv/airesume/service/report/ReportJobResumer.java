@@ -0,0 +1,16 @@
+package com.aicv.airesume.service.report;
+
+import com.aicv.airesume.service.ReportGenerationService;
+
+/**
+ * 报告任务恢复器
+ * 接管失联节点的报告任务后，从已生成的内容继续生成剩余部分
+ */
+public interface ReportJobResumer {
+
+    /**
+     * 继续生成报告
+     * @param record 已恢复检查点内容的报告记录
+     */
+    void resume(ReportGenerationService.ReportGenerationRecord record);
+}
@@ -0,0 +1,65 @@
+package com.aicv.airesume.service.report;
+
+import com.aicv.airesume.entity.ReportGenerationJob;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 报告生成任务存储
+ * 通过 interview.report.job-store 选择实现：memory（默认，单节点）或 database（多节点共享MySQL）
+ */
+public interface ReportJobStore {
+
+    /**
+     * 创建任务，心跳时间以存储的当前时间为准
+     */
+    void create(ReportGenerationJob job);
+
+    /**
+     * 存储的当前时间，任务租约和过期清理都以此计算
+     * 数据库存储使用数据库时钟，各节点时钟有偏差时也不会提前接管其他节点的任务
+     */
+    LocalDateTime currentTime();
+
+    /**
+     * 加载任务，不存在时返回null
+     */
+    ReportGenerationJob load(String reportId);
+
+    /**
+     * 写入检查点并更新心跳
+     * @param content 已生成内容，为null时只更新心跳
+     * @param chunkEnds 内容块结束偏移，content为null时忽略
+     * @return 是否写入成功，失败表示任务已被其他节点接管或已结束
+     */
+    boolean checkpoint(String reportId, String ownerNode, String content, String chunkEnds);
+
+    /**
+     * 写入最终结果
+     * @return 是否写入成功
+     */
+    boolean finish(String reportId, String ownerNode, String status, String errorMessage, String content, String chunkEnds);
+
+    /**
+     * 查询心跳早于指定时间的生成中任务
+     */
+    List<String> findOrphaned(LocalDateTime staleBefore, int limit);
+
+    /**
+     * 接管心跳早于指定时间的生成中任务
+     * @return 是否接管成功
+     */
+    boolean claim(String reportId, String ownerNode, LocalDateTime staleBefore);
+
+    /**
+     * 本节点已从内存中淘汰该报告：内存存储随之释放任务内容，数据库存储保留供其他节点读取
+     */
+    void release(String reportId);
+
+    /**
+     * 清理指定时间之前已结束的任务
+     * @return 清理的任务数
+     */
+    int purgeFinishedBefore(LocalDateTime before);
+}
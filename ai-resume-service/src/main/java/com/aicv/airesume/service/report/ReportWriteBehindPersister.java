@@ -0,0 +1,333 @@
+package com.aicv.airesume.service.report;
+
+import com.aicv.airesume.entity.InterviewReport;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 面试报告延迟写入器
+ * 报告先进入待写入队列，由后台线程定期批量写入interview_report表，每条报告一条
+ * INSERT ... ON DUPLICATE KEY UPDATE语句，不再先查询再保存；同一会话在写入前的多次保存合并为一次。
+ * 写入前的查询通过 {@link #findPending(String)} 读取队列中的最新内容，服务关闭时写完队列中的全部报告。
+ * 批量写入失败时逐条写入，单条报告的数据错误超过重试次数后丢弃，不影响同批的其他报告；
+ * 会话删除后记录删除标记，正在写入的报告写入后立即删除，之后提交的报告不再写入。
+ */
+@Slf4j
+@Component
+public class ReportWriteBehindPersister {
+
+    private static final String UPSERT_SQL = "INSERT INTO interview_report (session_id, total_score, overall_feedback, strengths, improvements, " +
+            "tech_depth_evaluation, logic_expression_evaluation, communication_evaluation, answer_depth_evaluation, " +
+            "detailed_improvement_suggestions, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE total_score = VALUES(total_score), overall_feedback = VALUES(overall_feedback), " +
+            "strengths = VALUES(strengths), improvements = VALUES(improvements), " +
+            "tech_depth_evaluation = VALUES(tech_depth_evaluation), logic_expression_evaluation = VALUES(logic_expression_evaluation), " +
+            "communication_evaluation = VALUES(communication_evaluation), answer_depth_evaluation = VALUES(answer_depth_evaluation), " +
+            "detailed_improvement_suggestions = VALUES(detailed_improvement_suggestions), updated_at = VALUES(updated_at)";
+
+    // 服务关闭时写入剩余报告的最大尝试次数
+    private static final int SHUTDOWN_FLUSH_ATTEMPTS = 3;
+
+    // 单条报告因数据错误写入失败的最大次数，超过后丢弃
+    private static final int MAX_ROW_ATTEMPTS = 3;
+
+    // 已删除会话的删除标记保留时间（毫秒），会话ID不会复用，只需覆盖删除时仍在生成和写入的报告
+    private static final long DELETED_SESSION_RETENTION_MS = 10 * 60 * 1000;
+
+    private static final String DELETE_SQL = "DELETE FROM interview_report WHERE session_id = ?";
+
+    @Value("${interview.report.persist.batch-size:50}")
+    private int batchSize;
+
+    @Value("${interview.report.persist.flush-interval-ms:500}")
+    private long flushIntervalMs;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 待写入的报告，按会话ID合并
+    private final Map<String, PendingReport> pending = new ConcurrentHashMap<>();
+
+    // 已删除的会话ID -> 删除时间
+    private final Map<String, Long> deletedSessions = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "report-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 待写入的报告及写入成功后的回调
+     */
+    private static class PendingReport {
+        private final InterviewReport report;
+        private final List<Runnable> callbacks = new ArrayList<>();
+        // 因数据错误写入失败的次数，只由写入线程访问
+        private int failedAttempts;
+
+        PendingReport(InterviewReport report, Runnable onPersisted) {
+            this.report = report;
+            if (onPersisted != null) {
+                callbacks.add(onPersisted);
+            }
+        }
+
+        /**
+         * 合并同一会话的两次保存：保留本次的报告内容，两次的回调都在写入后执行
+         */
+        PendingReport mergeCallbacks(PendingReport older) {
+            callbacks.addAll(0, older.callbacks);
+            return this;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        flushExecutor.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        Gauge.builder("interview.report.persist.pending", pending, Map::size)
+                .description("等待写入的面试报告数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 提交报告，后台批量写入
+     * @param report 报告，以会话ID为唯一键
+     * @param onPersisted 写入成功后的回调，可为null
+     */
+    public void enqueue(InterviewReport report, Runnable onPersisted) {
+        if (deletedSessions.containsKey(report.getSessionId())) {
+            log.info("会话已删除，不再写入面试报告，sessionId: {}", report.getSessionId());
+            return;
+        }
+        PendingReport entry = new PendingReport(report, onPersisted);
+        // 在map的原子操作内合并回调，写入线程取出后回调列表不再变化
+        boolean[] coalesced = new boolean[1];
+        pending.compute(report.getSessionId(), (sessionId, older) -> {
+            if (older != null) {
+                coalesced[0] = true;
+                entry.mergeCallbacks(older);
+            }
+            return entry;
+        });
+        if (coalesced[0]) {
+            meterRegistry.counter("interview.report.persist.coalesced").increment();
+        }
+        if (pending.size() >= batchSize) {
+            try {
+                flushExecutor.execute(this::flushSafely);
+            } catch (RejectedExecutionException e) {
+                // 正在关闭，剩余报告由关闭流程写入
+            }
+        }
+    }
+
+    /**
+     * 查询尚未写入的报告
+     */
+    public Optional<InterviewReport> findPending(String sessionId) {
+        PendingReport entry = pending.get(sessionId);
+        return entry != null ? Optional.of(entry.report) : Optional.empty();
+    }
+
+    /**
+     * 丢弃尚未写入的报告（会话被删除时），并记录删除标记：正在写入的报告写入后删除，之后提交的报告不再写入
+     */
+    public void discard(String sessionId) {
+        Long deletedAt = System.currentTimeMillis();
+        deletedSessions.put(sessionId, deletedAt);
+        pending.remove(sessionId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 删除事务回滚时会话仍然存在，撤销删除标记
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        deletedSessions.remove(sessionId, deletedAt);
+                    }
+                }
+            });
+        }
+    }
+
+    private void flushSafely() {
+        long expireBefore = System.currentTimeMillis() - DELETED_SESSION_RETENTION_MS;
+        deletedSessions.values().removeIf(deletedAt -> deletedAt < expireBefore);
+        try {
+            while (flush() >= batchSize) {
+                // 一批写满说明还有积压，继续写入
+            }
+        } catch (Exception e) {
+            log.error("批量写入面试报告失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 取出一批待写入的报告并写入
+     * @return 本批取出的报告数
+     */
+    private int flush() {
+        List<PendingReport> batch = new ArrayList<>();
+        Iterator<String> iterator = pending.keySet().iterator();
+        while (iterator.hasNext() && batch.size() < batchSize) {
+            PendingReport entry = pending.remove(iterator.next());
+            if (entry != null && !deletedSessions.containsKey(entry.report.getSessionId())) {
+                batch.add(entry);
+            }
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<PendingReport> written;
+        try {
+            List<Object[]> args = new ArrayList<>(batch.size());
+            for (PendingReport entry : batch) {
+                args.add(toArgs(entry.report, now));
+            }
+            jdbcTemplate.batchUpdate(UPSERT_SQL, args);
+            written = batch;
+            meterRegistry.counter("interview.report.persist.batches").increment();
+        } catch (Exception e) {
+            meterRegistry.counter("interview.report.persist.failures").increment();
+            log.warn("批量写入面试报告失败，改为逐条写入，本批: {}条: {}", batch.size(), e.getMessage());
+            written = flushEachRow(batch, now);
+        }
+
+        // 写入期间会话被删除时，删除刚写入的报告，避免留下孤立记录
+        for (PendingReport entry : written) {
+            String sessionId = entry.report.getSessionId();
+            if (deletedSessions.containsKey(sessionId)) {
+                try {
+                    jdbcTemplate.update(DELETE_SQL, sessionId);
+                } catch (Exception e) {
+                    log.error("删除已删除会话的面试报告失败，sessionId: {}: {}", sessionId, e.getMessage());
+                }
+                continue;
+            }
+            for (Runnable callback : entry.callbacks) {
+                try {
+                    callback.run();
+                } catch (Exception e) {
+                    log.warn("面试报告写入回调失败，sessionId: {}: {}", sessionId, e.getMessage());
+                }
+            }
+        }
+        meterRegistry.counter("interview.report.persist.reports").increment(written.size());
+        log.debug("批量写入面试报告: {}条", written.size());
+        return batch.size();
+    }
+
+    /**
+     * 逐条写入，找出导致整批失败的报告
+     * 数据错误的报告计入失败次数，超过上限后丢弃；数据库不可用等暂时性错误放回队列，不计入失败次数，
+     * 全部因暂时性错误失败时抛出异常，停止本轮写入
+     * @return 写入成功的报告
+     */
+    private List<PendingReport> flushEachRow(List<PendingReport> batch, Timestamp now) {
+        List<PendingReport> written = new ArrayList<>(batch.size());
+        RuntimeException transientFailure = null;
+        for (PendingReport entry : batch) {
+            String sessionId = entry.report.getSessionId();
+            try {
+                jdbcTemplate.update(UPSERT_SQL, toArgs(entry.report, now));
+                written.add(entry);
+            } catch (RuntimeException e) {
+                if (isDataError(e)) {
+                    entry.failedAttempts++;
+                    if (entry.failedAttempts >= MAX_ROW_ATTEMPTS) {
+                        meterRegistry.counter("interview.report.persist.dropped").increment();
+                        log.error("面试报告写入失败{}次，放弃写入，sessionId: {}: {}", entry.failedAttempts, sessionId, e.getMessage());
+                        continue;
+                    }
+                    log.warn("面试报告写入失败，第{}次，sessionId: {}: {}", entry.failedAttempts, sessionId, e.getMessage());
+                } else {
+                    transientFailure = e;
+                }
+                requeue(entry);
+            }
+        }
+        if (written.isEmpty() && transientFailure != null) {
+            throw transientFailure;
+        }
+        return written;
+    }
+
+    /**
+     * 放回队列等待下次写入，期间有更新的保存时以更新的为准
+     */
+    private void requeue(PendingReport entry) {
+        String sessionId = entry.report.getSessionId();
+        if (deletedSessions.containsKey(sessionId)) {
+            return;
+        }
+        pending.merge(sessionId, entry, (newer, failed) -> newer.mergeCallbacks(failed));
+    }
+
+    /**
+     * 是否为报告本身的数据错误（如字段超长），重试不会成功；连接失败等资源错误不属于数据错误
+     */
+    private static boolean isDataError(Exception e) {
+        return e instanceof NonTransientDataAccessException && !(e instanceof DataAccessResourceFailureException);
+    }
+
+    private static Object[] toArgs(InterviewReport report, Timestamp now) {
+        return new Object[]{report.getSessionId(), report.getTotalScore(), report.getOverallFeedback(),
+                report.getStrengths(), report.getImprovements(), report.getTechDepthEvaluation(),
+                report.getLogicExpressionEvaluation(), report.getCommunicationEvaluation(),
+                report.getAnswerDepthEvaluation(), report.getDetailedImprovementSuggestions(), now, now};
+    }
+
+    /**
+     * 关闭时写完队列中的全部报告
+     */
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (int attempt = 1; attempt <= SHUTDOWN_FLUSH_ATTEMPTS && !pending.isEmpty(); attempt++) {
+            try {
+                while (flush() > 0) {
+                    // 写完为止
+                }
+            } catch (Exception e) {
+                log.error("关闭时写入面试报告失败，第{}次，剩余: {}条: {}", attempt, pending.size(), e.getMessage());
+            }
+        }
+        if (!pending.isEmpty()) {
+            log.error("关闭时仍有{}条面试报告未能写入，sessionIds: {}", pending.size(), pending.keySet());
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.aicv.airesume.service.report;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * 结构化报告流式读取器
+ * 使用Jackson非阻塞解析器增量读取大模型输出的JSON报告，每当一个顶层字段读取完整就回调，
+ * 客户端不必等整份报告生成完就能拿到已完成的字段；输出结束后直接得到报告数据，不需要再解析。
+ * 非线程安全，由写入报告内容的线程调用。
+ */
+@Slf4j
+public class StructuredReportReader {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final BiConsumer<String, Object> fieldListener;
+    private final Map<String, Object> fields = new LinkedHashMap<>();
+
+    // 是否已读到根对象的起始括号，之前的内容（如代码块标记）忽略
+    private boolean started;
+    // 根对象已结束或解析失败，之后的内容忽略
+    private boolean closed;
+    private int depth;
+    private String currentField;
+    private List<String> currentArray;
+
+    /**
+     * @param fieldListener 顶层字段读取完整时的回调，可为null
+     */
+    public StructuredReportReader(BiConsumer<String, Object> fieldListener) {
+        try {
+            this.parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new IllegalStateException("创建JSON解析器失败", e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        this.fieldListener = fieldListener;
+    }
+
+    /**
+     * 喂入一段新生成的内容
+     */
+    public void feed(String delta) {
+        if (closed || delta == null || delta.isEmpty()) {
+            return;
+        }
+        String text = delta;
+        if (!started) {
+            int brace = text.indexOf('{');
+            if (brace < 0) {
+                return;
+            }
+            started = true;
+            text = text.substring(brace);
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        try {
+            feeder.feedInput(bytes, 0, bytes.length);
+            drain();
+        } catch (IOException e) {
+            log.warn("结构化报告JSON格式错误，已读取字段: {}: {}", fields.keySet(), e.getMessage());
+            closed = true;
+        }
+    }
+
+    /**
+     * 已读取完整的字段
+     */
+    public Map<String, Object> getFields() {
+        return Collections.unmodifiableMap(fields);
+    }
+
+    /**
+     * 根对象是否已完整读取
+     */
+    public boolean isComplete() {
+        return started && closed && depth == 0;
+    }
+
+    /**
+     * 输出结束，返回报告数据；缺失或类型不对的字段使用默认内容
+     */
+    public Map<String, Object> toReportData() {
+        Map<String, Object> reportData = new HashMap<>();
+        Object totalScore = fields.get("totalScore");
+        if (totalScore instanceof Number) {
+            reportData.put("totalScore", ((Number) totalScore).doubleValue());
+        } else if (totalScore instanceof String && ((String) totalScore).trim().matches("\\d+(\\.\\d+)?")) {
+            reportData.put("totalScore", Double.parseDouble(((String) totalScore).trim()));
+        }
+        String overallFeedback = text("overallFeedback");
+        if (overallFeedback != null) {
+            reportData.put("overallFeedback", overallFeedback);
+        } else {
+            reportData.put("overallFeedback", ReportDefaults.OVERALL_FEEDBACK);
+            reportData.putIfAbsent("totalScore", ReportDefaults.TOTAL_SCORE);
+        }
+        reportData.put("strengths", list("strengths", ReportDefaults.STRENGTH));
+        reportData.put("improvements", list("improvements", ReportDefaults.IMPROVEMENT));
+        reportData.put("techDepthEvaluation", textOrDefault("techDepthEvaluation", ReportDefaults.TECH_DEPTH));
+        reportData.put("logicExpressionEvaluation", textOrDefault("logicExpressionEvaluation", ReportDefaults.LOGIC_EXPRESSION));
+        reportData.put("communicationEvaluation", textOrDefault("communicationEvaluation", ReportDefaults.COMMUNICATION));
+        reportData.put("answerDepthEvaluation", textOrDefault("answerDepthEvaluation", ReportDefaults.ANSWER_DEPTH));
+        reportData.put("detailedImprovementSuggestions", textOrDefault("detailedImprovementSuggestions", ReportDefaults.SUGGESTIONS));
+        return reportData;
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while (!closed && (token = parser.nextToken()) != JsonToken.NOT_AVAILABLE) {
+            if (token == null) {
+                closed = true;
+                return;
+            }
+            switch (token) {
+                case START_OBJECT:
+                case START_ARRAY:
+                    depth++;
+                    if (depth == 2 && token == JsonToken.START_ARRAY && currentField != null) {
+                        currentArray = new ArrayList<>();
+                    }
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    if (depth == 2 && currentArray != null) {
+                        completeField(currentArray);
+                        currentArray = null;
+                    }
+                    depth--;
+                    if (depth == 0) {
+                        // 根对象结束，之后的内容（如代码块结束标记）忽略
+                        closed = true;
+                    }
+                    break;
+                case FIELD_NAME:
+                    if (depth == 1) {
+                        currentField = parser.getCurrentName();
+                    }
+                    break;
+                default:
+                    if (depth == 1) {
+                        completeField(scalarValue(token));
+                    } else if (depth == 2 && currentArray != null && token != JsonToken.VALUE_NULL) {
+                        currentArray.add(parser.getText());
+                    }
+                    break;
+            }
+        }
+    }
+
+    private Object scalarValue(JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return null;
+            default:
+                return parser.getText();
+        }
+    }
+
+    private void completeField(Object value) {
+        if (currentField == null) {
+            return;
+        }
+        fields.put(currentField, value);
+        if (fieldListener != null) {
+            fieldListener.accept(currentField, value);
+        }
+        currentField = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private String text(String field) {
+        Object value = fields.get(field);
+        if (value instanceof List) {
+            value = String.join("\n", (List<String>) value);
+        }
+        return value != null && StringUtils.hasText(value.toString()) ? value.toString().trim() : null;
+    }
+
+    private String textOrDefault(String field, String defaultText) {
+        String value = text(field);
+        return value != null ? value : defaultText;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> list(String field, String defaultItem) {
+        List<String> result = new ArrayList<>();
+        Object value = fields.get(field);
+        if (value instanceof List) {
+            for (String item : (List<String>) value) {
+                if (StringUtils.hasText(item)) {
+                    result.add(item.trim());
+                }
+            }
+        } else if (value != null && StringUtils.hasText(value.toString())) {
+            result.add(value.toString().trim());
+        }
+        if (result.isEmpty()) {
+            result.add(defaultItem);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,269 @@
+package com.aicv.airesume.service.resume;
+
+import com.aicv.airesume.entity.Resume;
+import com.aicv.airesume.entity.ResumeEducation;
+import com.aicv.airesume.entity.ResumeProject;
+import com.aicv.airesume.entity.ResumeSkill;
+import com.aicv.airesume.entity.ResumeWorkExperience;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 简历完整数据
+ * 简历基本信息、所属用户的个人信息以及教育、工作、项目、技能列表，由 {@link ResumeAggregateLoader} 一次加载。
+ * 实例会被缓存并在请求间共享，创建后不再修改：加载的实体对象只保存在内部，不对外暴露，
+ * {@link #toMap()} 每次返回新的副本，调用方修改返回结果不会影响缓存。
+ * 版本号由简历和用户的最后修改时间及内容摘要组成，内容不变时版本号不变，用作HTTP的ETag。
+ */
+public final class ResumeAggregate {
+
+    private final Resume resume;
+    private final UserInfo userInfo;
+    private final List<ResumeEducation> educationList;
+    private final List<ResumeWorkExperience> workExperienceList;
+    private final List<ResumeProject> projectList;
+    private final List<ResumeSkill> skillList;
+    private final String version;
+
+    ResumeAggregate(Resume resume, UserInfo userInfo, Date userUpdateTime, List<ResumeEducation> educationList,
+                    List<ResumeWorkExperience> workExperienceList, List<ResumeProject> projectList,
+                    List<ResumeSkill> skillList) {
+        this.resume = resume;
+        this.userInfo = userInfo;
+        this.educationList = Collections.unmodifiableList(new ArrayList<>(educationList));
+        this.workExperienceList = Collections.unmodifiableList(new ArrayList<>(workExperienceList));
+        this.projectList = Collections.unmodifiableList(new ArrayList<>(projectList));
+        this.skillList = Collections.unmodifiableList(new ArrayList<>(skillList));
+        // 修改时间只精确到秒，同一秒内的两次修改靠内容摘要区分
+        int digest = Objects.hash(resume, userInfo.toMap(), educationList, workExperienceList, projectList, skillList);
+        this.version = time(resume.getUpdateTime()) + "-" + time(userUpdateTime) + "-" + Integer.toHexString(digest);
+    }
+
+    /**
+     * 简历所属用户的个人信息
+     */
+    public static final class UserInfo {
+        private final String name;
+        private final String email;
+        private final String phone;
+        private final String address;
+        private final String birthDate;
+        private final String nickname;
+        private final String avatarUrl;
+        private final Integer gender;
+        private final String country;
+        private final String province;
+        private final String city;
+
+        UserInfo(String name, String email, String phone, String address, String birthDate, String nickname,
+                 String avatarUrl, Integer gender, String country, String province, String city) {
+            this.name = name;
+            this.email = email;
+            this.phone = phone;
+            this.address = address;
+            this.birthDate = birthDate;
+            this.nickname = nickname;
+            this.avatarUrl = avatarUrl;
+            this.gender = gender;
+            this.country = country;
+            this.province = province;
+            this.city = city;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public String getPhone() {
+            return phone;
+        }
+
+        public String getAddress() {
+            return address;
+        }
+
+        public String getBirthDate() {
+            return birthDate;
+        }
+
+        public String getNickname() {
+            return nickname;
+        }
+
+        public String getAvatarUrl() {
+            return avatarUrl;
+        }
+
+        public Integer getGender() {
+            return gender;
+        }
+
+        public String getCountry() {
+            return country;
+        }
+
+        public String getProvince() {
+            return province;
+        }
+
+        public String getCity() {
+            return city;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("name", name);
+            map.put("email", email);
+            map.put("phone", phone);
+            map.put("address", address);
+            map.put("birthDate", birthDate);
+            map.put("nickname", nickname);
+            map.put("avatarUrl", avatarUrl);
+            map.put("gender", gender);
+            map.put("country", country);
+            map.put("province", province);
+            map.put("city", city);
+            return map;
+        }
+    }
+
+    public Long getResumeId() {
+        return resume.getId();
+    }
+
+    public Long getUserId() {
+        return resume.getUserId();
+    }
+
+    public UserInfo getUserInfo() {
+        return userInfo;
+    }
+
+    /**
+     * 版本号，简历、个人信息或任一列表变化时改变
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    private static long time(Date date) {
+        return date != null ? date.getTime() : 0L;
+    }
+
+    private static Date copy(Date date) {
+        return date != null ? new Date(date.getTime()) : null;
+    }
+
+    /**
+     * 转换为接口返回、PDF模板和提示词渲染使用的Map，字段与原getResumeFullData的返回结果一致
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        // 简历基本信息
+        result.put("id", resume.getId());
+        result.put("userId", resume.getUserId());
+        result.put("expectedSalary", resume.getExpectedSalary());
+        result.put("startTime", resume.getStartTime());
+        result.put("interests", resume.getInterests());
+        result.put("selfEvaluation", resume.getSelfEvaluation());
+        result.put("jobTitle", resume.getJobTitle());
+        result.put("jobTypeId", resume.getJobTypeId());
+        result.put("status", resume.getStatus());
+        result.put("createTime", copy(resume.getCreateTime()));
+        result.put("updateTime", copy(resume.getUpdateTime()));
+
+        // 个人基本信息（来自User表）
+        result.put("userInfo", userInfo.toMap());
+
+        // 关联数据，每次复制，字段与实体一致
+        List<ResumeEducation> educations = new ArrayList<>(educationList.size());
+        for (ResumeEducation education : educationList) {
+            educations.add(copy(education));
+        }
+        List<ResumeWorkExperience> workExperiences = new ArrayList<>(workExperienceList.size());
+        for (ResumeWorkExperience workExperience : workExperienceList) {
+            workExperiences.add(copy(workExperience));
+        }
+        List<ResumeProject> projects = new ArrayList<>(projectList.size());
+        for (ResumeProject project : projectList) {
+            projects.add(copy(project));
+        }
+        List<ResumeSkill> skills = new ArrayList<>(skillList.size());
+        for (ResumeSkill skill : skillList) {
+            skills.add(copy(skill));
+        }
+        result.put("educationList", educations);
+        result.put("workExperienceList", workExperiences);
+        result.put("projectList", projects);
+        result.put("skillList", skills);
+        return result;
+    }
+
+    private static ResumeEducation copy(ResumeEducation source) {
+        ResumeEducation education = new ResumeEducation();
+        education.setId(source.getId());
+        education.setResumeId(source.getResumeId());
+        education.setSchool(source.getSchool());
+        education.setDegree(source.getDegree());
+        education.setMajor(source.getMajor());
+        education.setStartDate(source.getStartDate());
+        education.setEndDate(source.getEndDate());
+        education.setOrderIndex(source.getOrderIndex());
+        education.setCreateTime(copy(source.getCreateTime()));
+        education.setUpdateTime(copy(source.getUpdateTime()));
+        return education;
+    }
+
+    private static ResumeWorkExperience copy(ResumeWorkExperience source) {
+        ResumeWorkExperience workExperience = new ResumeWorkExperience();
+        workExperience.setId(source.getId());
+        workExperience.setResumeId(source.getResumeId());
+        workExperience.setCompanyName(source.getCompanyName());
+        workExperience.setPositionName(source.getPositionName());
+        workExperience.setStartDate(source.getStartDate());
+        workExperience.setEndDate(source.getEndDate());
+        workExperience.setDescription(source.getDescription());
+        workExperience.setOrderIndex(source.getOrderIndex());
+        workExperience.setCreateTime(copy(source.getCreateTime()));
+        workExperience.setUpdateTime(copy(source.getUpdateTime()));
+        return workExperience;
+    }
+
+    private static ResumeProject copy(ResumeProject source) {
+        ResumeProject project = new ResumeProject();
+        project.setId(source.getId());
+        project.setResumeId(source.getResumeId());
+        project.setProjectName(source.getProjectName());
+        project.setRole(source.getRole());
+        project.setTechStack(source.getTechStack());
+        project.setStartDate(source.getStartDate());
+        project.setEndDate(source.getEndDate());
+        project.setDescription(source.getDescription());
+        project.setOrderIndex(source.getOrderIndex());
+        project.setCreateTime(copy(source.getCreateTime()));
+        project.setUpdateTime(copy(source.getUpdateTime()));
+        return project;
+    }
+
+    private static ResumeSkill copy(ResumeSkill source) {
+        ResumeSkill skill = new ResumeSkill();
+        skill.setId(source.getId());
+        skill.setResumeId(source.getResumeId());
+        skill.setName(source.getName());
+        skill.setLevel(source.getLevel());
+        skill.setOrderIndex(source.getOrderIndex());
+        skill.setCreateTime(copy(source.getCreateTime()));
+        skill.setUpdateTime(copy(source.getUpdateTime()));
+        return skill;
+    }
+}
@@ -0,0 +1,139 @@
+package com.aicv.airesume.service.resume;
+
+import com.aicv.airesume.repository.ResumeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 简历完整数据缓存
+ * 简历详情和最新简历的读取远多于修改，读取时先查内存，未命中再由 {@link ResumeAggregateLoader} 加载；
+ * 简历创建、修改、删除以及用户个人信息修改时主动失效。同时缓存用户最新简历的ID，
+ * 查询最新简历命中时不访问数据库。
+ */
+@Component
+public class ResumeAggregateCache {
+
+    // 用户没有简历时缓存的占位ID
+    private static final Long NO_RESUME = -1L;
+
+    @Value("${resume.aggregate.cache.max-entries:1000}")
+    private int maxEntries;
+
+    @Autowired
+    private ResumeAggregateLoader resumeAggregateLoader;
+
+    @Autowired
+    private ResumeRepository resumeRepository;
+
+    // 简历ID -> 完整数据，按最近访问顺序淘汰
+    private Map<Long, ResumeAggregate> aggregates;
+
+    // 用户ID -> 最新简历ID
+    private Map<Long, Long> latestResumeIds;
+
+    // 每次失效加一，加载期间发生过失效的结果不放入缓存，避免旧数据覆盖失效
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        aggregates = Collections.synchronizedMap(new LinkedHashMap<Long, ResumeAggregate>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ResumeAggregate> eldest) {
+                return size() > maxEntries;
+            }
+        });
+        latestResumeIds = Collections.synchronizedMap(new LinkedHashMap<Long, Long>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * 获取简历完整数据
+     * @param resumeId 简历ID
+     * @return 简历完整数据
+     */
+    public ResumeAggregate get(Long resumeId) {
+        ResumeAggregate cached = aggregates.get(resumeId);
+        if (cached != null) {
+            return cached;
+        }
+        long loadGeneration = generation.get();
+        ResumeAggregate loaded = resumeAggregateLoader.load(resumeId);
+        if (generation.get() == loadGeneration) {
+            aggregates.put(resumeId, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * 获取用户最新创建的简历的完整数据
+     * @param userId 用户ID
+     * @return 简历完整数据，用户没有简历时为空
+     */
+    public Optional<ResumeAggregate> getLatest(Long userId) {
+        Long resumeId = latestResumeIds.get(userId);
+        if (resumeId == null) {
+            long loadGeneration = generation.get();
+            List<Long> ids = resumeRepository.findIdsByUserIdOrderByCreateTimeDesc(userId, PageRequest.of(0, 1));
+            resumeId = ids.isEmpty() ? NO_RESUME : ids.get(0);
+            if (generation.get() == loadGeneration) {
+                latestResumeIds.put(userId, resumeId);
+            }
+        }
+        return NO_RESUME.equals(resumeId) ? Optional.empty() : Optional.of(get(resumeId));
+    }
+
+    /**
+     * 简历修改或删除后使缓存失效，在事务中调用时提交后再失效一次
+     */
+    public void invalidate(Long resumeId) {
+        runNowAndAfterCommit(() -> {
+            generation.incrementAndGet();
+            aggregates.remove(resumeId);
+        });
+    }
+
+    /**
+     * 用户创建、删除简历或修改个人信息后，使该用户的最新简历ID和全部简历的缓存失效
+     */
+    public void invalidateUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        runNowAndAfterCommit(() -> {
+            generation.incrementAndGet();
+            latestResumeIds.remove(userId);
+            synchronized (aggregates) {
+                aggregates.values().removeIf(aggregate -> userId.equals(aggregate.getUserId()));
+            }
+        });
+    }
+
+    private void runNowAndAfterCommit(Runnable action) {
+        action.run();
+        // 提交前有其他请求读到旧数据并放入缓存时，提交后再清除一次
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.aicv.airesume.service.resume;
+
+import com.aicv.airesume.entity.Resume;
+import com.aicv.airesume.entity.ResumeEducation;
+import com.aicv.airesume.entity.ResumeProject;
+import com.aicv.airesume.entity.ResumeSkill;
+import com.aicv.airesume.entity.ResumeWorkExperience;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityNotFoundException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 简历完整数据加载器
+ * 原来依次查询简历、用户、教育、工作、项目、技能六张表，共六次数据库往返；
+ * 现在一次关联查询简历和用户，一次UNION ALL查询四个列表，共两次往返。
+ */
+@Slf4j
+@Component
+public class ResumeAggregateLoader {
+
+    private static final String RESUME_SQL = "SELECT r.id, r.user_id, r.job_type_id, r.job_title, r.expected_salary, r.start_time, " +
+            "r.self_evaluation, r.interests, r.status, r.create_time, r.update_time, r.tech_items, r.project_points, " +
+            "r.last_extracted_time, u.id AS owner_id, u.name, u.email, u.phone, u.address, u.birth_date, u.nickname, " +
+            "u.avatar_url, u.gender, u.country, u.province, u.city, u.update_time AS owner_update_time " +
+            "FROM resume r LEFT JOIN user u ON u.id = r.user_id WHERE r.id = ?";
+
+    // 四个列表的列不同，按位置对齐到通用列c1~c6，kind区分来源表
+    private static final String SECTIONS_SQL =
+            "SELECT 1 AS kind, id, resume_id, order_index, create_time, update_time, " +
+            "school AS c1, degree AS c2, major AS c3, start_date AS c4, end_date AS c5, NULL AS c6 " +
+            "FROM resume_education WHERE resume_id = ? " +
+            "UNION ALL SELECT 2, id, resume_id, order_index, create_time, update_time, " +
+            "company_name, position_name, start_date, end_date, description, NULL " +
+            "FROM resume_work_experience WHERE resume_id = ? " +
+            "UNION ALL SELECT 3, id, resume_id, order_index, create_time, update_time, " +
+            "project_name, role, tech_stack, start_date, end_date, description " +
+            "FROM resume_project WHERE resume_id = ? " +
+            "UNION ALL SELECT 4, id, resume_id, order_index, create_time, update_time, " +
+            "name, CAST(level AS CHAR), NULL, NULL, NULL, NULL " +
+            "FROM resume_skill WHERE resume_id = ? " +
+            "ORDER BY kind, order_index, id";
+
+    private static final int KIND_EDUCATION = 1;
+    private static final int KIND_WORK_EXPERIENCE = 2;
+    private static final int KIND_PROJECT = 3;
+    private static final int KIND_SKILL = 4;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 加载简历完整数据
+     * @param resumeId 简历ID
+     * @return 简历完整数据
+     * @throws EntityNotFoundException 简历或所属用户不存在
+     */
+    public ResumeAggregate load(Long resumeId) {
+        List<Object[]> heads = jdbcTemplate.query(RESUME_SQL, (rs, rowNum) ->
+                new Object[]{mapResume(rs), mapUserInfo(rs), rs.getTimestamp("owner_update_time")}, resumeId);
+        if (heads.isEmpty()) {
+            throw new EntityNotFoundException("简历不存在: " + resumeId);
+        }
+        Resume resume = (Resume) heads.get(0)[0];
+        ResumeAggregate.UserInfo userInfo = (ResumeAggregate.UserInfo) heads.get(0)[1];
+        Date userUpdateTime = (Date) heads.get(0)[2];
+        if (userInfo == null) {
+            throw new EntityNotFoundException("用户不存在: " + resume.getUserId());
+        }
+
+        List<ResumeEducation> educationList = new ArrayList<>();
+        List<ResumeWorkExperience> workExperienceList = new ArrayList<>();
+        List<ResumeProject> projectList = new ArrayList<>();
+        List<ResumeSkill> skillList = new ArrayList<>();
+        jdbcTemplate.query(SECTIONS_SQL, rs -> {
+            switch (rs.getInt("kind")) {
+                case KIND_EDUCATION:
+                    educationList.add(mapEducation(rs));
+                    break;
+                case KIND_WORK_EXPERIENCE:
+                    workExperienceList.add(mapWorkExperience(rs));
+                    break;
+                case KIND_PROJECT:
+                    projectList.add(mapProject(rs));
+                    break;
+                case KIND_SKILL:
+                    skillList.add(mapSkill(rs));
+                    break;
+                default:
+                    break;
+            }
+        }, resumeId, resumeId, resumeId, resumeId);
+
+        log.debug("加载简历完整数据，简历ID: {}, 教育: {}, 工作: {}, 项目: {}, 技能: {}", resumeId,
+                educationList.size(), workExperienceList.size(), projectList.size(), skillList.size());
+        return new ResumeAggregate(resume, userInfo, userUpdateTime, educationList, workExperienceList, projectList, skillList);
+    }
+
+    private Resume mapResume(ResultSet rs) throws SQLException {
+        Resume resume = new Resume();
+        resume.setId(rs.getLong("id"));
+        resume.setUserId(rs.getObject("user_id", Long.class));
+        resume.setJobTypeId(rs.getObject("job_type_id", Long.class));
+        resume.setJobTitle(rs.getString("job_title"));
+        resume.setExpectedSalary(rs.getString("expected_salary"));
+        resume.setStartTime(rs.getString("start_time"));
+        resume.setSelfEvaluation(rs.getString("self_evaluation"));
+        resume.setInterests(rs.getString("interests"));
+        resume.setStatus(rs.getObject("status", Integer.class));
+        resume.setCreateTime(rs.getTimestamp("create_time"));
+        resume.setUpdateTime(rs.getTimestamp("update_time"));
+        resume.setTechItems(rs.getString("tech_items"));
+        resume.setProjectPoints(rs.getString("project_points"));
+        resume.setLastExtractedTime(rs.getTimestamp("last_extracted_time"));
+        return resume;
+    }
+
+    private ResumeAggregate.UserInfo mapUserInfo(ResultSet rs) throws SQLException {
+        if (rs.getObject("owner_id") == null) {
+            return null;
+        }
+        return new ResumeAggregate.UserInfo(rs.getString("name"), rs.getString("email"), rs.getString("phone"),
+                rs.getString("address"), rs.getString("birth_date"), rs.getString("nickname"),
+                rs.getString("avatar_url"), rs.getObject("gender", Integer.class), rs.getString("country"),
+                rs.getString("province"), rs.getString("city"));
+    }
+
+    private ResumeEducation mapEducation(ResultSet rs) throws SQLException {
+        ResumeEducation education = new ResumeEducation();
+        education.setId(rs.getLong("id"));
+        education.setResumeId(rs.getLong("resume_id"));
+        education.setOrderIndex(rs.getObject("order_index", Integer.class));
+        education.setCreateTime(rs.getTimestamp("create_time"));
+        education.setUpdateTime(rs.getTimestamp("update_time"));
+        education.setSchool(rs.getString("c1"));
+        education.setDegree(rs.getString("c2"));
+        education.setMajor(rs.getString("c3"));
+        education.setStartDate(rs.getString("c4"));
+        education.setEndDate(rs.getString("c5"));
+        return education;
+    }
+
+    private ResumeWorkExperience mapWorkExperience(ResultSet rs) throws SQLException {
+        ResumeWorkExperience workExperience = new ResumeWorkExperience();
+        workExperience.setId(rs.getLong("id"));
+        workExperience.setResumeId(rs.getLong("resume_id"));
+        workExperience.setOrderIndex(rs.getObject("order_index", Integer.class));
+        workExperience.setCreateTime(rs.getTimestamp("create_time"));
+        workExperience.setUpdateTime(rs.getTimestamp("update_time"));
+        workExperience.setCompanyName(rs.getString("c1"));
+        workExperience.setPositionName(rs.getString("c2"));
+        workExperience.setStartDate(rs.getString("c3"));
+        workExperience.setEndDate(rs.getString("c4"));
+        workExperience.setDescription(rs.getString("c5"));
+        return workExperience;
+    }
+
+    private ResumeProject mapProject(ResultSet rs) throws SQLException {
+        ResumeProject project = new ResumeProject();
+        project.setId(rs.getLong("id"));
+        project.setResumeId(rs.getLong("resume_id"));
+        project.setOrderIndex(rs.getObject("order_index", Integer.class));
+        project.setCreateTime(rs.getTimestamp("create_time"));
+        project.setUpdateTime(rs.getTimestamp("update_time"));
+        project.setProjectName(rs.getString("c1"));
+        project.setRole(rs.getString("c2"));
+        project.setTechStack(rs.getString("c3"));
+        project.setStartDate(rs.getString("c4"));
+        project.setEndDate(rs.getString("c5"));
+        project.setDescription(rs.getString("c6"));
+        return project;
+    }
+
+    private ResumeSkill mapSkill(ResultSet rs) throws SQLException {
+        ResumeSkill skill = new ResumeSkill();
+        skill.setId(rs.getLong("id"));
+        skill.setResumeId(rs.getLong("resume_id"));
+        skill.setOrderIndex(rs.getObject("order_index", Integer.class));
+        skill.setCreateTime(rs.getTimestamp("create_time"));
+        skill.setUpdateTime(rs.getTimestamp("update_time"));
+        skill.setName(rs.getString("c1"));
+        String level = rs.getString("c2");
+        skill.setLevel(level != null ? Integer.valueOf(level) : null);
+        return skill;
+    }
+}
@@ -0,0 +1,378 @@
+package com.aicv.airesume.service.stream;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * DeepSeek流式响应解码器
+ * 直接在原始字节上按行切分SSE帧，只提取 delta.content、finish_reason 和 usage，不构建JSON对象树。
+ * 不完整的行（包括被切断的UTF-8字符）会保留到下一个数据块到达后再处理。
+ * 每个流使用一个实例，非线程安全。
+ */
+public class DeepSeekDeltaDecoder {
+
+    /**
+     * 解码结果回调
+     */
+    public interface DeltaListener {
+
+        /**
+         * 收到非空的 delta.content
+         */
+        void onContent(String content) throws IOException;
+
+        /**
+         * 收到非空的 finish_reason
+         */
+        default void onFinish(String finishReason) {
+        }
+    }
+
+    private static final byte[] DATA_PREFIX = "data:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DONE = "[DONE]".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_DELTA = "delta".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_CONTENT = "content".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_FINISH_REASON = "finish_reason".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_USAGE = "usage".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_PROMPT_TOKENS = "prompt_tokens".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_COMPLETION_TOKENS = "completion_tokens".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_CACHE_HIT_TOKENS = "prompt_cache_hit_tokens".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_CACHE_MISS_TOKENS = "prompt_cache_miss_tokens".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_CACHED_TOKENS = "cached_tokens".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * 响应中的token用量，字段缺失时为-1
+     */
+    public static class Usage {
+        private long promptTokens = -1;
+        private long completionTokens = -1;
+        private long cacheHitTokens = -1;
+        private long cacheMissTokens = -1;
+
+        public long getPromptTokens() {
+            return promptTokens;
+        }
+
+        public long getCompletionTokens() {
+            return completionTokens;
+        }
+
+        /**
+         * 命中服务端前缀缓存的提示词token数
+         */
+        public long getCacheHitTokens() {
+            return cacheHitTokens;
+        }
+
+        /**
+         * 未命中前缀缓存的提示词token数，接口未返回时按总数减去命中数计算
+         */
+        public long getCacheMissTokens() {
+            if (cacheMissTokens < 0 && promptTokens >= 0 && cacheHitTokens >= 0) {
+                return promptTokens - cacheHitTokens;
+            }
+            return cacheMissTokens;
+        }
+    }
+
+    private final DeltaListener listener;
+
+    // 待处理字节，[0, length) 有效，其中可能包含一个不完整的行
+    private byte[] buffer = new byte[4096];
+    private int length;
+
+    // 解码JSON字符串时复用
+    private final StringBuilder text = new StringBuilder(64);
+
+    private String finishReason;
+
+    private Usage usage;
+
+    public DeepSeekDeltaDecoder(DeltaListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 追加一个响应数据块，不负责释放数据块
+     */
+    public void feed(DataBuffer dataBuffer) throws IOException {
+        int count = dataBuffer.readableByteCount();
+        ensureCapacity(length + count);
+        dataBuffer.read(buffer, length, count);
+        length += count;
+        drainLines();
+    }
+
+    /**
+     * 追加一段原始字节
+     */
+    public void feed(byte[] bytes, int offset, int count) throws IOException {
+        ensureCapacity(length + count);
+        System.arraycopy(bytes, offset, buffer, length, count);
+        length += count;
+        drainLines();
+    }
+
+    /**
+     * 处理流结束时缓冲区中剩余的最后一行（服务端未以换行结尾时）
+     */
+    public void finish() throws IOException {
+        if (length > 0) {
+            processLine(0, length);
+            length = 0;
+        }
+    }
+
+    /**
+     * 最近一次收到的 finish_reason
+     */
+    public String getFinishReason() {
+        return finishReason;
+    }
+
+    /**
+     * 响应中的token用量，未收到 usage 时返回null
+     */
+    public Usage getUsage() {
+        return usage;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > buffer.length) {
+            byte[] grown = new byte[Math.max(required, buffer.length << 1)];
+            System.arraycopy(buffer, 0, grown, 0, length);
+            buffer = grown;
+        }
+    }
+
+    private void drainLines() throws IOException {
+        int lineStart = 0;
+        for (int i = 0; i < length; i++) {
+            if (buffer[i] == '\n') {
+                processLine(lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart > 0) {
+            length -= lineStart;
+            System.arraycopy(buffer, lineStart, buffer, 0, length);
+        }
+    }
+
+    private void processLine(int start, int end) throws IOException {
+        if (end > start && buffer[end - 1] == '\r') {
+            end--;
+        }
+        // 只处理 data 字段，忽略空行、注释和其他SSE字段
+        if (!regionEquals(start, end, DATA_PREFIX)) {
+            return;
+        }
+        start = skipWhitespace(start + DATA_PREFIX.length, end);
+        if (start >= end || regionEquals(start, end, DONE)) {
+            return;
+        }
+        scanChunk(start, end);
+    }
+
+    /**
+     * 单次扫描一个chunk的JSON，按对象深度定位 delta 对象内的 content 字段
+     */
+    private void scanChunk(int start, int end) throws IOException {
+        int depth = 0;
+        int deltaDepth = -1;
+        boolean deltaPending = false;
+        int usageDepth = -1;
+        boolean usagePending = false;
+        int i = start;
+        while (i < end) {
+            byte b = buffer[i];
+            if (b == '"') {
+                int stringEnd = findStringEnd(i + 1, end);
+                int next = skipWhitespace(stringEnd + 1, end);
+                if (next >= end || buffer[next] != ':') {
+                    i = stringEnd + 1;
+                    continue;
+                }
+                int value = skipWhitespace(next + 1, end);
+                if (value >= end) {
+                    return;
+                }
+                boolean stringValue = buffer[value] == '"';
+                if (keyEquals(i + 1, stringEnd, KEY_DELTA)) {
+                    deltaPending = buffer[value] == '{';
+                } else if (keyEquals(i + 1, stringEnd, KEY_USAGE)) {
+                    usagePending = buffer[value] == '{';
+                } else if (usageDepth > 0 && depth >= usageDepth && isDigit(buffer[value])) {
+                    int valueEnd = value;
+                    long number = 0;
+                    while (valueEnd < end && isDigit(buffer[valueEnd])) {
+                        number = number * 10 + (buffer[valueEnd] - '0');
+                        valueEnd++;
+                    }
+                    recordUsage(i + 1, stringEnd, depth == usageDepth, number);
+                    i = valueEnd;
+                    continue;
+                } else if (stringValue && depth == deltaDepth && keyEquals(i + 1, stringEnd, KEY_CONTENT)) {
+                    int valueEnd = findStringEnd(value + 1, end);
+                    if (valueEnd > value + 1) {
+                        listener.onContent(decodeString(value + 1, valueEnd));
+                    }
+                    i = valueEnd + 1;
+                    continue;
+                } else if (stringValue && keyEquals(i + 1, stringEnd, KEY_FINISH_REASON)) {
+                    int valueEnd = findStringEnd(value + 1, end);
+                    finishReason = decodeString(value + 1, valueEnd);
+                    listener.onFinish(finishReason);
+                    i = valueEnd + 1;
+                    continue;
+                }
+                i = value;
+                continue;
+            }
+            if (b == '{' || b == '[') {
+                depth++;
+                if (deltaPending && b == '{') {
+                    deltaDepth = depth;
+                    deltaPending = false;
+                }
+                if (usagePending && b == '{') {
+                    usageDepth = depth;
+                    usagePending = false;
+                    if (usage == null) {
+                        usage = new Usage();
+                    }
+                }
+            } else if (b == '}' || b == ']') {
+                if (depth == deltaDepth) {
+                    deltaDepth = -1;
+                }
+                if (depth == usageDepth) {
+                    usageDepth = -1;
+                }
+                depth--;
+            }
+            i++;
+        }
+    }
+
+    /**
+     * 记录 usage 对象中的数值字段，topLevel 表示字段直接位于 usage 对象内
+     */
+    private void recordUsage(int keyStart, int keyEnd, boolean topLevel, long number) {
+        if (topLevel) {
+            if (keyEquals(keyStart, keyEnd, KEY_PROMPT_TOKENS)) {
+                usage.promptTokens = number;
+            } else if (keyEquals(keyStart, keyEnd, KEY_COMPLETION_TOKENS)) {
+                usage.completionTokens = number;
+            } else if (keyEquals(keyStart, keyEnd, KEY_CACHE_HIT_TOKENS)) {
+                usage.cacheHitTokens = number;
+            } else if (keyEquals(keyStart, keyEnd, KEY_CACHE_MISS_TOKENS)) {
+                usage.cacheMissTokens = number;
+            }
+        } else if (usage.cacheHitTokens < 0 && keyEquals(keyStart, keyEnd, KEY_CACHED_TOKENS)) {
+            // OpenAI兼容格式：usage.prompt_tokens_details.cached_tokens
+            usage.cacheHitTokens = number;
+        }
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    /**
+     * 返回字符串结束引号的位置，from 为开始引号之后的位置
+     */
+    private int findStringEnd(int from, int end) {
+        int i = from;
+        while (i < end) {
+            byte b = buffer[i];
+            if (b == '\\') {
+                i += 2;
+            } else if (b == '"') {
+                return i;
+            } else {
+                i++;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * 解码JSON字符串内容（处理转义和UTF-8），一次生成最终的String
+     */
+    private String decodeString(int start, int end) {
+        text.setLength(0);
+        int i = start;
+        while (i < end) {
+            int b = buffer[i] & 0xFF;
+            if (b == '\\' && i + 1 < end) {
+                byte escaped = buffer[i + 1];
+                i += 2;
+                switch (escaped) {
+                    case 'n': text.append('\n'); break;
+                    case 't': text.append('\t'); break;
+                    case 'r': text.append('\r'); break;
+                    case 'b': text.append('\b'); break;
+                    case 'f': text.append('\f'); break;
+                    case 'u':
+                        if (i + 4 <= end) {
+                            text.append((char) parseHex(i));
+                            i += 4;
+                        }
+                        break;
+                    default: text.append((char) escaped); break;
+                }
+            } else if (b < 0x80) {
+                text.append((char) b);
+                i++;
+            } else if ((b >> 5) == 0x06 && i + 1 < end) {
+                text.append((char) (((b & 0x1F) << 6) | (buffer[i + 1] & 0x3F)));
+                i += 2;
+            } else if ((b >> 4) == 0x0E && i + 2 < end) {
+                text.append((char) (((b & 0x0F) << 12) | ((buffer[i + 1] & 0x3F) << 6) | (buffer[i + 2] & 0x3F)));
+                i += 3;
+            } else if ((b >> 3) == 0x1E && i + 3 < end) {
+                text.appendCodePoint(((b & 0x07) << 18) | ((buffer[i + 1] & 0x3F) << 12)
+                        | ((buffer[i + 2] & 0x3F) << 6) | (buffer[i + 3] & 0x3F));
+                i += 4;
+            } else {
+                text.append('\uFFFD');
+                i++;
+            }
+        }
+        return text.toString();
+    }
+
+    private int parseHex(int start) {
+        int value = 0;
+        for (int i = start; i < start + 4; i++) {
+            value = (value << 4) | Character.digit(buffer[i], 16);
+        }
+        return value;
+    }
+
+    private int skipWhitespace(int from, int end) {
+        while (from < end && (buffer[from] == ' ' || buffer[from] == '\t')) {
+            from++;
+        }
+        return from;
+    }
+
+    private boolean regionEquals(int start, int end, byte[] expected) {
+        if (end - start < expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (buffer[start + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean keyEquals(int start, int end, byte[] expected) {
+        return end - start == expected.length && regionEquals(start, end, expected);
+    }
+}
@@ -0,0 +1,246 @@
+package com.aicv.airesume.service.stream;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 第一个面试问题的预取缓冲区
+ * 开始面试时提前生成第一个问题并缓存已生成的内容，客户端连接SSE后先回放缓存内容再继续实时输出。
+ * 缓冲区数量有上限，超过存活时间的缓冲区会被清理。
+ */
+@Slf4j
+@Component
+public class FirstQuestionPrefetchStore {
+
+    @Value("${interview.prefetch.enabled:false}")
+    private boolean enabled;
+
+    @Value("${interview.prefetch.max-sessions:200}")
+    private int maxSessions;
+
+    @Value("${interview.prefetch.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, PrefetchBuffer> buffers = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService cleanupExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "question-prefetch-cleanup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 单个会话的预取缓冲区
+     * 生成线程写入内容，客户端连接后接管输出，所有状态变化都在同一把锁内完成，保证内容不重复不遗漏。
+     * 客户端断开后缓冲区仍保留，重连时回放全部内容并接管后续输出；生成完成并送达、生成失败或超过存活时间后才移除。
+     */
+    public static class PrefetchBuffer {
+        private final String sessionId;
+        private final long createdAt = System.currentTimeMillis();
+        private final StringBuilder content = new StringBuilder();
+        private final Consumer<PrefetchBuffer> release;
+        private SseEmitter subscriber;
+        private boolean completed;
+        private Throwable failure;
+
+        PrefetchBuffer(String sessionId, Consumer<PrefetchBuffer> release) {
+            this.sessionId = sessionId;
+            this.release = release;
+        }
+
+        public String getSessionId() {
+            return sessionId;
+        }
+
+        /**
+         * 追加生成的问题内容，已有客户端连接时直接转发
+         */
+        public synchronized void append(String chunk) {
+            content.append(chunk);
+            if (subscriber != null) {
+                try {
+                    subscriber.send(SseEmitter.event().name("question").data(chunk));
+                } catch (IOException | IllegalStateException e) {
+                    // 客户端已断开，内容仍在缓冲区中，重连时回放
+                    log.warn("转发预取问题内容失败，sessionId: {}: {}", sessionId, e.getMessage());
+                    subscriber = null;
+                }
+            }
+        }
+
+        /**
+         * 问题生成完成，已有客户端连接时发送结束信号并移除缓冲区，否则保留到客户端连接或过期
+         */
+        public synchronized void complete() {
+            completed = true;
+            if (subscriber != null) {
+                sendEnd(subscriber);
+                subscriber = null;
+                release.accept(this);
+            }
+        }
+
+        /**
+         * 问题生成失败，移除缓冲区，之后连接的客户端重新生成
+         */
+        public synchronized void fail(Throwable error) {
+            failure = error;
+            if (subscriber != null) {
+                sendError(subscriber);
+                subscriber = null;
+            }
+            release.accept(this);
+        }
+
+        /**
+         * 客户端连接或重连：先一次性回放已缓存的内容，再根据生成状态结束或继续实时输出
+         * @return 是否接管成功；生成已失败时返回false，由调用方重新生成
+         */
+        synchronized boolean attach(SseEmitter emitter) {
+            if (failure != null) {
+                return false;
+            }
+            try {
+                if (content.length() > 0) {
+                    emitter.send(SseEmitter.event().name("question").data(content.toString()));
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.warn("回放预取问题内容失败，sessionId: {}: {}", sessionId, e.getMessage());
+                return true;
+            }
+            if (completed) {
+                sendEnd(emitter);
+                release.accept(this);
+                return true;
+            }
+            // 重连时替换并结束旧连接，旧连接断开的回调不会清除新连接
+            if (subscriber != null) {
+                try {
+                    subscriber.complete();
+                } catch (IllegalStateException e) {
+                    log.debug("结束旧的预取连接失败，sessionId: {}: {}", sessionId, e.getMessage());
+                }
+            }
+            subscriber = emitter;
+            emitter.onCompletion(() -> detach(emitter));
+            emitter.onTimeout(() -> detach(emitter));
+            emitter.onError(error -> detach(emitter));
+            return true;
+        }
+
+        private synchronized void detach(SseEmitter emitter) {
+            if (subscriber == emitter) {
+                subscriber = null;
+            }
+        }
+
+        private void sendEnd(SseEmitter emitter) {
+            try {
+                emitter.send(SseEmitter.event().data("end").name("end").id("2"));
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                log.error("发送结束信号失败：{}", e.getMessage(), e);
+                emitter.completeWithError(e);
+            }
+        }
+
+        private void sendError(SseEmitter emitter) {
+            try {
+                emitter.send(SseEmitter.event().data("生成问题失败，请稍后重试").name("error").id("error"));
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                log.error("发送错误信息失败：{}", e.getMessage(), e);
+            }
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        cleanupExecutor.scheduleAtFixedRate(this::cleanupExpiredBuffers, ttlSeconds, Math.max(ttlSeconds / 5, 1), TimeUnit.SECONDS);
+        Gauge.builder("interview.prefetch.buffers", buffers, Map::size)
+                .description("等待客户端连接的预取问题缓冲区数量")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 为会话创建预取缓冲区，缓冲区数量达到上限时返回null，由客户端连接时再实时生成
+     * @param sessionId 会话ID
+     * @return 预取缓冲区
+     */
+    public PrefetchBuffer create(String sessionId) {
+        if (buffers.size() >= maxSessions) {
+            meterRegistry.counter("interview.prefetch.skipped").increment();
+            return null;
+        }
+        PrefetchBuffer buffer = new PrefetchBuffer(sessionId, done -> buffers.remove(sessionId, done));
+        buffers.put(sessionId, buffer);
+        return buffer;
+    }
+
+    /**
+     * 客户端连接时接管预取缓冲区，回放已缓存内容并继续实时输出
+     * 缓冲区在生成结束前保持注册，客户端断开重连时可以再次接管
+     * @param sessionId 会话ID
+     * @param emitter 客户端的SSE发射器
+     * @return 是否存在可用的预取缓冲区；失败的预取不会被接管，由调用方重新生成
+     */
+    public boolean attach(String sessionId, SseEmitter emitter) {
+        PrefetchBuffer buffer = buffers.get(sessionId);
+        if (buffer == null || !buffer.attach(emitter)) {
+            meterRegistry.counter("interview.prefetch.miss").increment();
+            return false;
+        }
+        meterRegistry.counter("interview.prefetch.hit").increment();
+        log.info("回放预取的第一个问题，sessionId: {}，预取耗时: {}ms", sessionId, System.currentTimeMillis() - buffer.createdAt);
+        return true;
+    }
+
+    /**
+     * 移除会话的预取缓冲区
+     */
+    public void remove(String sessionId) {
+        buffers.remove(sessionId);
+    }
+
+    /**
+     * 清理超过存活时间的缓冲区，已生成的问题已保存到数据库
+     */
+    private void cleanupExpiredBuffers() {
+        long expireBefore = System.currentTimeMillis() - ttlSeconds * 1000;
+        buffers.entrySet().removeIf(entry -> {
+            boolean expired = entry.getValue().createdAt < expireBefore;
+            if (expired) {
+                meterRegistry.counter("interview.prefetch.expired").increment();
+            }
+            return expired;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cleanupExecutor.shutdownNow();
+        buffers.clear();
+    }
+}
@@ -0,0 +1,450 @@
+package com.aicv.airesume.service.stream;
+
+import com.aicv.airesume.service.task.ExecutionMode;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 大模型流式调用执行器
+ * 所有SSE流共享一个心跳定时器和一个有界线程池，避免每次调用都创建新的线程池。
+ * 注册时占用存活流名额（包括没有SSE连接的报告生成和预取），流结束或取消时归还；
+ * 请求发起后上游仍在输出时继续占用并发许可，并发数限制的是同时进行的DeepSeek流，而不只是发起请求的过程。
+ * 虚拟线程模式下不使用线程池，每个请求一个虚拟线程，并发由最大存活流数量的信号量限制。
+ */
+@Slf4j
+@Component
+public class LlmStreamExecutor {
+
+    @Value("${deepseek.stream.max-concurrency:16}")
+    private int maxConcurrency;
+
+    @Value("${deepseek.stream.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${deepseek.stream.max-active-streams:500}")
+    private int maxActiveStreams;
+
+    @Value("${deepseek.stream.heartbeat-interval-seconds:5}")
+    private long heartbeatIntervalSeconds;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ExecutionMode executionMode;
+
+    // 当前存活的流，包括没有SSE连接的流；有SSE连接的由心跳定时器统一遍历
+    private final Set<StreamHandle> liveStreams = ConcurrentHashMap.newKeySet();
+
+    // 只需要心跳的SSE连接（如报告推送），不占用存活流名额，上限由各自的业务控制
+    private final Set<StreamHandle> keepAliveStreams = ConcurrentHashMap.newKeySet();
+
+    // 存活流名额，注册时占用，注销时归还
+    private Semaphore streamSlots;
+
+    // 平台线程模式下同时进行的上游请求许可，发起请求前占用，上游结束或取消时归还
+    private Semaphore upstreamPermits;
+
+    // 被拒绝的流式请求数
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private ExecutorService streamExecutor;
+
+    // 平台线程模式下的线程池，虚拟线程模式下为null
+    private ThreadPoolExecutor streamThreadPool;
+
+    // 虚拟线程模式下进行中的上游请求许可，持有到上游结束或取消，平台线程模式下为null
+    private Semaphore virtualPermits;
+
+    private ScheduledExecutorService heartbeatTimer;
+
+    /**
+     * SSE流句柄，关闭标记与调用方共享
+     * 同时持有上游DeepSeek订阅，客户端断开时用于取消上游请求
+     */
+    public static class StreamHandle {
+        private static final int UPSTREAM_ACTIVE = 0;
+        private static final int UPSTREAM_FINISHED = 1;
+        private static final int UPSTREAM_CANCELLED = 2;
+
+        private final SseEmitter emitter;
+        private final AtomicBoolean closed;
+        private final AtomicInteger upstreamState = new AtomicInteger(UPSTREAM_ACTIVE);
+        private volatile Disposable upstream;
+        private volatile Runnable disconnectListener;
+        // 上游请求占用的并发许可，上游结束或取消时归还
+        private volatile Semaphore permit;
+        private final AtomicBoolean permitReleased = new AtomicBoolean(false);
+        // 是否已注销并归还存活流名额
+        private final AtomicBoolean released = new AtomicBoolean(false);
+        private volatile Runnable releaseListener;
+
+        StreamHandle(SseEmitter emitter, AtomicBoolean closed) {
+            this.emitter = emitter;
+            this.closed = closed;
+        }
+
+        public SseEmitter getEmitter() {
+            return emitter;
+        }
+
+        public boolean isClosed() {
+            return closed.get();
+        }
+
+        /**
+         * 绑定上游订阅，绑定前已被取消时立即取消订阅
+         */
+        public void bindUpstream(Disposable disposable) {
+            upstream = disposable;
+            if (upstreamState.get() == UPSTREAM_CANCELLED) {
+                disposable.dispose();
+            }
+        }
+
+        /**
+         * 标记上游正常结束或出错结束
+         * @return 是否由本次调用结束；已被取消时返回false
+         */
+        public boolean finishUpstream() {
+            if (!upstreamState.compareAndSet(UPSTREAM_ACTIVE, UPSTREAM_FINISHED)) {
+                return false;
+            }
+            releasePermit();
+            return true;
+        }
+
+        /**
+         * 取消上游订阅
+         * @return 是否由本次调用取消；上游已结束或已取消时返回false
+         */
+        public boolean cancelUpstream() {
+            if (!upstreamState.compareAndSet(UPSTREAM_ACTIVE, UPSTREAM_CANCELLED)) {
+                return false;
+            }
+            releasePermit();
+            Disposable disposable = upstream;
+            if (disposable != null) {
+                disposable.dispose();
+            }
+            return true;
+        }
+
+        public boolean isUpstreamCancelled() {
+            return upstreamState.get() == UPSTREAM_CANCELLED;
+        }
+
+        /**
+         * 上游请求占用并发许可，上游已结束或已取消时立即归还
+         */
+        void holdPermit(Semaphore semaphore) {
+            permit = semaphore;
+            if (upstreamState.get() != UPSTREAM_ACTIVE) {
+                releasePermit();
+            }
+        }
+
+        private void releasePermit() {
+            Semaphore semaphore = permit;
+            if (semaphore != null && permitReleased.compareAndSet(false, true)) {
+                semaphore.release();
+            }
+        }
+
+        /**
+         * 设置客户端断开（心跳发送失败）时的回调
+         */
+        public void onDisconnect(Runnable listener) {
+            this.disconnectListener = listener;
+        }
+
+        /**
+         * 流注销（正常结束、失败或取消）后的回调，只执行一次
+         */
+        public void onRelease(Runnable listener) {
+            this.releaseListener = listener;
+        }
+
+        void disconnected() {
+            Runnable listener = disconnectListener;
+            if (listener != null) {
+                listener.run();
+            }
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (executionMode.isVirtual()) {
+            // 虚拟线程不需要池化，也不排队
+            virtualPermits = new Semaphore(maxActiveStreams);
+            streamExecutor = executionMode.newThreadPerTaskExecutor("llm-stream-");
+        } else {
+            streamThreadPool = new ThreadPoolExecutor(maxConcurrency, maxConcurrency,
+                    60L, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    executionMode.threadFactory("llm-stream-"),
+                    new ThreadPoolExecutor.AbortPolicy());
+            streamThreadPool.allowCoreThreadTimeOut(true);
+            streamExecutor = streamThreadPool;
+            upstreamPermits = new Semaphore(maxConcurrency);
+        }
+        streamSlots = new Semaphore(maxActiveStreams);
+
+        heartbeatTimer = Executors.newSingleThreadScheduledExecutor(namedThreadFactory("llm-heartbeat-"));
+        heartbeatTimer.scheduleAtFixedRate(this::sendHeartbeats,
+                heartbeatIntervalSeconds, heartbeatIntervalSeconds, TimeUnit.SECONDS);
+
+        Gauge.builder("llm.stream.active", liveStreams, Set::size)
+                .description("当前存活的流数量，包括没有SSE连接的流")
+                .register(meterRegistry);
+        Gauge.builder("llm.stream.executor.queue", this, LlmStreamExecutor::getQueuedCount)
+                .description("等待执行的流式请求数")
+                .register(meterRegistry);
+        Gauge.builder("llm.stream.executor.active", this, LlmStreamExecutor::getActiveCount)
+                .description("正在执行的流式请求数")
+                .register(meterRegistry);
+        FunctionCounter.builder("llm.stream.rejected", rejectedCount, AtomicLong::get)
+                .description("因容量不足被拒绝的流式请求数")
+                .register(meterRegistry);
+
+        if (virtualPermits != null) {
+            log.info("LLM流式执行器已启动，虚拟线程模式，最大并发: {}", maxActiveStreams);
+        } else {
+            log.info("LLM流式执行器已启动，并发数: {}，队列容量: {}，最大存活流: {}", maxConcurrency, queueCapacity, maxActiveStreams);
+        }
+    }
+
+    /**
+     * 注册流并占用存活流名额，有SSE连接时由共享心跳定时器维持连接
+     * @param emitter SSE发射器，没有SSE连接的流（报告生成、预取）为null，同样占用名额
+     * @param closedFlag 调用方持有的关闭标记
+     * @return 流句柄
+     * @throws RejectedExecutionException 存活流数量已达上限
+     */
+    public StreamHandle register(SseEmitter emitter, AtomicBoolean closedFlag) {
+        // 名额的检查和占用是同一个原子操作
+        if (!streamSlots.tryAcquire()) {
+            rejectedCount.incrementAndGet();
+            throw new RejectedExecutionException("存活流数量已达上限: " + maxActiveStreams);
+        }
+        StreamHandle handle = new StreamHandle(emitter, closedFlag);
+        liveStreams.add(handle);
+        return handle;
+    }
+
+    /**
+     * 注册只需要心跳的SSE连接，不占用存活流名额，也不计入存活流数量
+     * @param emitter SSE发射器
+     * @param closedFlag 调用方持有的关闭标记
+     * @return 流句柄，连接结束时调用 {@link #release(StreamHandle)} 停止心跳
+     */
+    public StreamHandle keepAlive(SseEmitter emitter, AtomicBoolean closedFlag) {
+        StreamHandle handle = new StreamHandle(emitter, closedFlag);
+        keepAliveStreams.add(handle);
+        return handle;
+    }
+
+    /**
+     * 注销流，停止心跳并归还存活流名额；重复调用只归还一次
+     * @param handle 流句柄
+     */
+    public void release(StreamHandle handle) {
+        if (handle == null || !handle.released.compareAndSet(false, true)) {
+            return;
+        }
+        if (keepAliveStreams.remove(handle)) {
+            return;
+        }
+        liveStreams.remove(handle);
+        handle.releasePermit();
+        streamSlots.release();
+        Runnable listener = handle.releaseListener;
+        if (listener != null) {
+            try {
+                listener.run();
+            } catch (Exception e) {
+                log.warn("流注销回调执行失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 取消所有仍在输出的上游请求，服务关闭时调用
+     * 有SSE连接的流按客户端断开处理，没有SSE连接的流直接取消并注销
+     * @return 取消的流数量
+     */
+    public int cancelLiveStreams() {
+        int cancelled = 0;
+        for (StreamHandle handle : liveStreams) {
+            handle.disconnected();
+            if (handle.cancelUpstream()) {
+                release(handle);
+            }
+            if (handle.isUpstreamCancelled()) {
+                cancelled++;
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * 提交流式请求任务
+     * 任务在取得上游并发许可后执行，许可由句柄持有到上游结束或取消，而不是任务返回时
+     * @param handle 流句柄
+     * @param task 发起上游请求的任务
+     * @throws RejectedExecutionException 线程池和队列已满，或虚拟线程模式下并发已达上限
+     */
+    public void submit(StreamHandle handle, Runnable task) {
+        if (virtualPermits != null) {
+            submitVirtual(handle, task);
+            return;
+        }
+        try {
+            streamExecutor.execute(() -> {
+                if (!acquireUpstreamPermit(handle)) {
+                    return;
+                }
+                handle.holdPermit(upstreamPermits);
+                task.run();
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCount.incrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * 等待上游并发许可，等待期间客户端断开时放弃
+     */
+    private boolean acquireUpstreamPermit(StreamHandle handle) {
+        try {
+            while (!upstreamPermits.tryAcquire(1, TimeUnit.SECONDS)) {
+                if (handle.isUpstreamCancelled()) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void submitVirtual(StreamHandle handle, Runnable task) {
+        if (!virtualPermits.tryAcquire()) {
+            rejectedCount.incrementAndGet();
+            throw new RejectedExecutionException("流式请求并发已达上限: " + maxActiveStreams);
+        }
+        // 许可由句柄持有到上游结束或取消，而不是发起请求的虚拟线程返回时
+        handle.holdPermit(virtualPermits);
+        try {
+            streamExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            handle.releasePermit();
+            rejectedCount.incrementAndGet();
+            throw e;
+        }
+    }
+
+    private int getQueuedCount() {
+        if (streamThreadPool == null) {
+            return 0;
+        }
+        // 线程池队列中的请求，加上已取得线程、正在等待上游许可的请求
+        return streamThreadPool.getQueue().size() + upstreamPermits.getQueueLength();
+    }
+
+    private int getActiveCount() {
+        if (upstreamPermits != null) {
+            return maxConcurrency - upstreamPermits.availablePermits();
+        }
+        return maxActiveStreams - virtualPermits.availablePermits();
+    }
+
+    /**
+     * 遍历所有存活流发送心跳，保持 SSE 连接活跃，防止云托管环境断开
+     */
+    private void sendHeartbeats() {
+        sendHeartbeats(liveStreams);
+        sendHeartbeats(keepAliveStreams);
+    }
+
+    private void sendHeartbeats(Set<StreamHandle> handles) {
+        for (StreamHandle handle : handles) {
+            // 没有SSE连接的流不需要心跳；名额由release归还，这里不移除
+            if (handle.getEmitter() == null || handle.isClosed()) {
+                continue;
+            }
+            try {
+                handle.getEmitter().send(SseEmitter.event().name("heartbeat").data(" "));
+            } catch (Exception e) {
+                // 客户端已断开或emitter已完成，不再发送心跳，并取消上游请求
+                handle.closed.set(true);
+                handle.disconnected();
+            }
+        }
+    }
+
+    private static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger(1);
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 关闭执行器：通知仍在输出的SSE流服务正在重启并结束连接，客户端可重新发起请求，并取消仍在输出的上游请求
+     */
+    @PreDestroy
+    public void shutdown() {
+        heartbeatTimer.shutdownNow();
+        streamExecutor.shutdown();
+        closeEmitters(liveStreams);
+        closeEmitters(keepAliveStreams);
+        // 不再有客户端接收的上游请求不继续计费
+        int cancelled = cancelLiveStreams();
+        if (cancelled > 0) {
+            log.info("服务关闭，已取消{}个上游流式请求", cancelled);
+        }
+    }
+
+    private void closeEmitters(Set<StreamHandle> handles) {
+        for (StreamHandle handle : handles) {
+            if (handle.getEmitter() != null && handle.closed.compareAndSet(false, true)) {
+                try {
+                    handle.getEmitter().send(SseEmitter.event().name("error").data("服务正在重启，请稍后重试"));
+                    handle.getEmitter().complete();
+                } catch (Exception e) {
+                    log.debug("关闭SSE流失败: {}", e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.aicv.airesume.service.task;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 面试流水线线程模式
+ * platform：使用平台线程（默认）；virtual：使用虚拟线程，需要运行在JDK 21及以上。
+ * 虚拟线程相关API通过反射调用，保证Java 8下仍可编译运行；运行环境不支持时自动回退到平台线程。
+ */
+@Slf4j
+@Component
+public class ExecutionMode {
+
+    @Value("${interview.execution.mode:platform}")
+    private String mode;
+
+    // 虚拟线程构建器，不支持虚拟线程时为null
+    private Object virtualThreadBuilder;
+    private Method builderName;
+    private Method builderFactory;
+    private Method newThreadPerTaskExecutor;
+
+    @PostConstruct
+    public void init() {
+        if (!"virtual".equalsIgnoreCase(mode)) {
+            log.info("面试流水线线程模式: platform");
+            return;
+        }
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            virtualThreadBuilder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builderName = builderClass.getMethod("name", String.class, long.class);
+            builderFactory = builderClass.getMethod("factory");
+            newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            log.info("面试流水线线程模式: virtual");
+        } catch (ReflectiveOperationException e) {
+            virtualThreadBuilder = null;
+            log.warn("当前JDK（{}）不支持虚拟线程，面试流水线回退到平台线程", System.getProperty("java.version"));
+        }
+    }
+
+    /**
+     * 是否使用虚拟线程
+     */
+    public boolean isVirtual() {
+        return virtualThreadBuilder != null;
+    }
+
+    /**
+     * 创建线程工厂：虚拟线程模式下创建虚拟线程，否则创建守护平台线程
+     * @param prefix 线程名前缀
+     */
+    public ThreadFactory threadFactory(String prefix) {
+        if (isVirtual()) {
+            try {
+                Object builder = builderName.invoke(virtualThreadBuilder, prefix, 1L);
+                return (ThreadFactory) builderFactory.invoke(builder);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("创建虚拟线程工厂失败", e);
+            }
+        }
+        AtomicInteger counter = new AtomicInteger(1);
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 创建每个任务一个线程的执行器，仅在虚拟线程模式下使用，并发由调用方控制
+     * @param prefix 线程名前缀
+     */
+    public ExecutorService newThreadPerTaskExecutor(String prefix) {
+        if (!isVirtual()) {
+            throw new IllegalStateException("平台线程模式下不支持每任务一个线程的执行器");
+        }
+        try {
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory(prefix));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("创建虚拟线程执行器失败", e);
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.aicv.airesume.service.task;
+
+import com.aicv.airesume.service.stream.LlmStreamExecutor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 面试任务调度器
+ * 统一执行面试相关的异步任务（生成问题、提交回答、生成报告等），替代每个请求新建线程。
+ * 全局并发数有上限，超出的任务排队；每个用户同时执行和排队的任务数也有上限，
+ * 排队任务按用户轮询出队，避免单个用户的突发请求占满所有线程。
+ * 发起流式请求的任务在流结束后才释放执行名额，并发上限限制的是进行中的面试请求，而不只是发起请求的过程。
+ */
+@Slf4j
+@Component
+public class InterviewTaskScheduler {
+
+    @Value("${interview.task.max-concurrency:32}")
+    private int maxConcurrency;
+
+    @Value("${interview.task.max-queued:500}")
+    private int maxQueued;
+
+    @Value("${interview.task.per-user-max-running:2}")
+    private int perUserMaxRunning;
+
+    @Value("${interview.task.per-user-max-queued:8}")
+    private int perUserMaxQueued;
+
+    @Value("${interview.task.shutdown-timeout-seconds:20}")
+    private long shutdownTimeoutSeconds;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ExecutionMode executionMode;
+
+    @Autowired
+    private LlmStreamExecutor llmStreamExecutor;
+
+    // 以下状态都在 synchronized(this) 中访问
+    private final Map<String, UserQueue> userQueues = new HashMap<>();
+    // 有可执行任务的用户，按轮询顺序排列
+    private final Deque<UserQueue> readyUsers = new ArrayDeque<>();
+    private int runningCount;
+    private int queuedCount;
+    private boolean shuttingDown;
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private ExecutorService workerPool;
+
+    /**
+     * 单个用户的任务队列
+     */
+    private static class UserQueue {
+        private final String userKey;
+        private final Deque<InterviewTask> tasks = new ArrayDeque<>();
+        private int running;
+        private boolean ready;
+
+        UserQueue(String userKey) {
+            this.userKey = userKey;
+        }
+    }
+
+    /**
+     * 排队中的任务
+     */
+    private static class InterviewTask {
+        private final String taskName;
+        private final Consumer<Runnable> task;
+        private final Runnable onCancel;
+        private final long enqueuedAt = System.nanoTime();
+
+        InterviewTask(String taskName, Consumer<Runnable> task, Runnable onCancel) {
+            this.taskName = taskName;
+            this.task = task;
+            this.onCancel = onCancel;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        // 实际并发由调度器控制，执行器只负责提供线程；虚拟线程不需要池化，每个任务一个线程
+        if (executionMode.isVirtual()) {
+            workerPool = executionMode.newThreadPerTaskExecutor("interview-task-");
+        } else {
+            ThreadPoolExecutor threadPool = new ThreadPoolExecutor(maxConcurrency, maxConcurrency,
+                    60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(),
+                    executionMode.threadFactory("interview-task-"));
+            threadPool.allowCoreThreadTimeOut(true);
+            workerPool = threadPool;
+        }
+
+        Gauge.builder("interview.task.running", this, InterviewTaskScheduler::getRunningCount)
+                .description("正在执行的面试任务数")
+                .register(meterRegistry);
+        Gauge.builder("interview.task.queued", this, InterviewTaskScheduler::getQueuedCount)
+                .description("排队中的面试任务数")
+                .register(meterRegistry);
+        FunctionCounter.builder("interview.task.rejected", rejectedCount, AtomicLong::get)
+                .description("因排队已满被拒绝的面试任务数")
+                .register(meterRegistry);
+
+        log.info("面试任务调度器已启动，并发数: {}，排队上限: {}，单用户并发: {}，单用户排队上限: {}",
+                maxConcurrency, maxQueued, perUserMaxRunning, perUserMaxQueued);
+    }
+
+    /**
+     * 提交面试任务
+     * @param userKey 公平调度的用户标识（用户ID，缺失时使用会话ID）
+     * @param taskName 任务名称，用于指标和日志
+     * @param task 任务
+     * @param onCancel 任务在执行前被取消（服务关闭）时的回调，可为null
+     * @throws RejectedExecutionException 全局或该用户的排队数已达上限，或服务正在关闭
+     */
+    public void submit(String userKey, String taskName, Runnable task, Runnable onCancel) {
+        submitAsync(userKey, taskName, done -> {
+            try {
+                task.run();
+            } finally {
+                done.run();
+            }
+        }, onCancel);
+    }
+
+    /**
+     * 提交面试任务
+     * @see #submit(String, String, Runnable, Runnable)
+     */
+    public void submit(String userKey, String taskName, Runnable task) {
+        submit(userKey, taskName, task, null);
+    }
+
+    /**
+     * 提交异步结束的面试任务（如发起流式请求），任务持有执行名额直到调用结束回调
+     * @param userKey 公平调度的用户标识（用户ID，缺失时使用会话ID）
+     * @param taskName 任务名称，用于指标和日志
+     * @param task 任务，参数为结束回调；任务抛出异常时由调度器调用结束回调，重复调用只生效一次
+     * @param onCancel 任务在执行前被取消（服务关闭）时的回调，可为null
+     * @throws RejectedExecutionException 全局或该用户的排队数已达上限，或服务正在关闭
+     */
+    public void submitAsync(String userKey, String taskName, Consumer<Runnable> task, Runnable onCancel) {
+        synchronized (this) {
+            if (shuttingDown) {
+                rejectedCount.incrementAndGet();
+                throw new RejectedExecutionException("面试任务调度器正在关闭");
+            }
+            UserQueue userQueue = userQueues.computeIfAbsent(userKey, UserQueue::new);
+            if (queuedCount >= maxQueued || userQueue.tasks.size() >= perUserMaxQueued) {
+                rejectedCount.incrementAndGet();
+                if (userQueue.tasks.isEmpty() && userQueue.running == 0) {
+                    userQueues.remove(userKey);
+                }
+                throw new RejectedExecutionException("面试任务排队已满，userKey: " + userKey);
+            }
+            userQueue.tasks.addLast(new InterviewTask(taskName, task, onCancel));
+            queuedCount++;
+            markReady(userQueue);
+            dispatch();
+        }
+    }
+
+    public synchronized int getRunningCount() {
+        return runningCount;
+    }
+
+    public synchronized int getQueuedCount() {
+        return queuedCount;
+    }
+
+    private void markReady(UserQueue userQueue) {
+        if (!userQueue.ready && !userQueue.tasks.isEmpty() && userQueue.running < perUserMaxRunning) {
+            userQueue.ready = true;
+            readyUsers.addLast(userQueue);
+        }
+    }
+
+    /**
+     * 在并发上限内按用户轮询取出任务执行，调用方需持有锁
+     */
+    private void dispatch() {
+        while (runningCount < maxConcurrency && !readyUsers.isEmpty()) {
+            UserQueue userQueue = readyUsers.pollFirst();
+            userQueue.ready = false;
+            InterviewTask task = userQueue.tasks.pollFirst();
+            if (task == null) {
+                continue;
+            }
+            queuedCount--;
+            userQueue.running++;
+            runningCount++;
+            // 该用户仍有任务时排到队尾，下一轮再轮到
+            markReady(userQueue);
+            workerPool.execute(() -> run(userQueue, task));
+        }
+    }
+
+    private void run(UserQueue userQueue, InterviewTask task) {
+        long startedAt = System.nanoTime();
+        Timer.builder("interview.task.queue.time")
+                .description("面试任务排队耗时")
+                .tag("task", task.taskName)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry)
+                .record(startedAt - task.enqueuedAt, TimeUnit.NANOSECONDS);
+        AtomicBoolean finished = new AtomicBoolean(false);
+        Runnable done = () -> {
+            if (finished.compareAndSet(false, true)) {
+                finish(userQueue, task, startedAt);
+            }
+        };
+        try {
+            task.task.accept(done);
+        } catch (Throwable e) {
+            log.error("面试任务执行失败，任务: {}，userKey: {}: {}", task.taskName, userQueue.userKey, e.getMessage(), e);
+            done.run();
+        }
+    }
+
+    /**
+     * 任务结束（包括其发起的流式请求结束），释放执行名额并调度下一个任务
+     */
+    private void finish(UserQueue userQueue, InterviewTask task, long startedAt) {
+        Timer.builder("interview.task.execution.time")
+                .description("面试任务执行耗时")
+                .tag("task", task.taskName)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        synchronized (this) {
+            userQueue.running--;
+            runningCount--;
+            markReady(userQueue);
+            if (userQueue.running == 0 && userQueue.tasks.isEmpty()) {
+                userQueues.remove(userQueue.userKey);
+            }
+            dispatch();
+            if (runningCount == 0) {
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * 关闭调度器：取消排队中的任务，等待执行中的任务和它们发起的流式请求结束，超时后取消仍在输出的上游请求
+     */
+    @PreDestroy
+    public void shutdown() {
+        List<InterviewTask> cancelled = new ArrayList<>();
+        synchronized (this) {
+            shuttingDown = true;
+            for (UserQueue userQueue : userQueues.values()) {
+                cancelled.addAll(userQueue.tasks);
+                userQueue.tasks.clear();
+            }
+            readyUsers.clear();
+            queuedCount = 0;
+        }
+        for (InterviewTask task : cancelled) {
+            if (task.onCancel != null) {
+                try {
+                    task.onCancel.run();
+                } catch (Exception e) {
+                    log.warn("取消面试任务回调失败，任务: {}: {}", task.taskName, e.getMessage());
+                }
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(shutdownTimeoutSeconds);
+        workerPool.shutdown();
+        try {
+            synchronized (this) {
+                long remaining;
+                while (runningCount > 0 && (remaining = deadline - System.nanoTime()) > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            }
+            if (!workerPool.awaitTermination(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS)) {
+                log.warn("面试任务未能在{}秒内结束，强制中断", shutdownTimeoutSeconds);
+                workerPool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workerPool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        // 仍在输出的流式请求不再等待，取消上游请求并释放名额
+        int running = getRunningCount();
+        if (running > 0) {
+            log.warn("面试任务未能在{}秒内结束，取消仍在输出的流式请求，执行中任务: {}", shutdownTimeoutSeconds, running);
+            llmStreamExecutor.cancelLiveStreams();
+        }
+        log.info("面试任务调度器已关闭，取消排队任务: {}", cancelled.size());
+    }
+}
@@ -2,36 +2,45 @@ package com.aicv.airesume.utils;
 
 import com.alibaba.fastjson.JSONObject;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.util.StringUtils;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import com.aicv.airesume.entity.InterviewLog;
-import com.aicv.airesume.entity.InterviewSession;
 import com.aicv.airesume.repository.InterviewLogRepository;
-import com.aicv.airesume.repository.InterviewSessionRepository;
-import com.aicv.airesume.service.config.DynamicConfigService;
+import com.aicv.airesume.service.ConversationContextService;
+import com.aicv.airesume.service.prompt.PromptAssembler;
+import com.aicv.airesume.service.prompt.TokenEstimator;
+import com.aicv.airesume.service.stream.DeepSeekDeltaDecoder;
+import com.aicv.airesume.service.stream.LlmStreamExecutor;
+import com.aicv.airesume.service.task.InterviewTaskScheduler;
+import javax.annotation.PostConstruct;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 /**
@@ -41,24 +50,68 @@ import java.util.function.Consumer;
 @Component
 public class AiServiceUtils {
 
+    /**
+     * 结构化报告的事件名称：与报告生成相同只使用当前提示词，并要求模型输出JSON对象
+     */
+    public static final String REPORT_JSON_EVENT = "report-json";
+
     @Value("${deepseek.api-key}")
     private String deepseekApiKey;
 
     @Value("${deepseek.api-url:https://api.deepseek.com/v1/chat/completions}")
     private String deepseekApiUrl;
 
+    @Value("${deepseek.http.call-deadline-seconds:180}")
+    private long callDeadlineSeconds;
+
+    @Value("${deepseek.http.report-call-deadline-seconds:300}")
+    private long reportCallDeadlineSeconds;
+
     @Autowired
     private InterviewLogRepository interviewLogRepository;
     
     @Autowired
-    private InterviewSessionRepository interviewSessionRepository;
-    
+    private ConversationContextService conversationContextService;
+
     @Autowired
-    private DynamicConfigService dynamicConfigService;
+    private LlmStreamExecutor llmStreamExecutor;
+
+    @Autowired
+    private WebClient deepSeekWebClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PromptAssembler promptAssembler;
+
+    @Autowired
+    private InterviewTaskScheduler interviewTaskScheduler;
+
+    // 从发出请求到收到第一行流式数据的耗时
+    private Timer timeToFirstByteTimer;
+
+    // 各事件类型正常结束时的平均生成token数
+    private final Map<String, AtomicLong> averageCompletionTokens = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void initMetrics() {
+        timeToFirstByteTimer = Timer.builder("llm.http.time-to-first-byte")
+                .description("DeepSeek流式请求首字节耗时")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final ExecutorService executorService = Executors.newFixedThreadPool(2);
-    private final WebClient webClient = WebClient.builder().build();
+    /**
+     * 每次请求的提示词估算token数，按事件类型区分
+     */
+    private DistributionSummary promptTokensSummary(String eventName) {
+        return DistributionSummary.builder("llm.prompt.tokens")
+                .description("DeepSeek请求提示词估算token数")
+                .baseUnit("tokens")
+                .tag("event", eventName)
+                .register(meterRegistry);
+    }
 
     /**
      * 调用DeepSeek API（流式输出方式）
@@ -87,99 +140,33 @@ public class AiServiceUtils {
     }
     
     /**
-     * 获取对话历史
+     * 获取对话历史，按token预算组装
      * @param sessionId 会话ID
      * @param systemPrompt 系统提示词
      * @param userPrompt 当前用户输入
-     * @return 完整的对话历史消息列表
+     * @return 组装后的消息列表及估算token数
      */
-    private List<Map<String, String>> getConversationHistory(String sessionId, String systemPrompt, String userPrompt) {
-        List<Map<String, String>> messages = new ArrayList<>();
-        
-        // 如果有sessionId，获取历史对话
+    private PromptAssembler.AssembledPrompt getConversationHistory(String sessionId, String systemPrompt, String userPrompt) {
+        // 如果有sessionId，从缓存的对话上下文获取历史对话
         if (sessionId != null) {
             try {
-                // 首先获取InterviewSession，添加系统级别的简历内容和面试要求
-                Optional<InterviewSession> sessionOptional = interviewSessionRepository.findBySessionId(sessionId);
-                if (sessionOptional.isPresent()) {
-                    InterviewSession session = sessionOptional.get();
-                    
-                    // 添加简历内容作为系统消息（仅在会话开始时添加一次）
-                    if (StringUtils.hasText(session.getResumeContent())) {
-                        Map<String, String> resumeMessage = new HashMap<>();
-                        resumeMessage.put("role", "system");
-                        resumeMessage.put("content", "以下是候选人的完整简历内容：\n" + session.getResumeContent());
-                        messages.add(resumeMessage);
-                    }
-                    
-                    // 添加面试要求作为系统消息
-                    String interviewRequirements = dynamicConfigService.getConfigValue("INTERVIEW", "INTERVIEW_REQUIREMENTS").orElse(null);
-                    if (StringUtils.hasText(interviewRequirements)) {
-                        Map<String, String> requirementsMessage = new HashMap<>();
-                        requirementsMessage.put("role", "system");
-                        requirementsMessage.put("content", interviewRequirements);
-                        messages.add(requirementsMessage);
-                    }
-                    
-                    // 添加通用规则作为系统消息
-                    String generalRules = dynamicConfigService.getConfigValue("INTERVIEW", "GENERAL_RULES").orElse(null);
-                    if (StringUtils.hasText(generalRules)) {
-                        Map<String, String> rulesMessage = new HashMap<>();
-                        rulesMessage.put("role", "system");
-                        rulesMessage.put("content", generalRules);
-                        messages.add(rulesMessage);
-                    }
-                    
-                    // 添加自定义系统提示词（如果有）
-                    if (StringUtils.hasText(systemPrompt)) {
-                        Map<String, String> customSystemMessage = new HashMap<>();
-                        customSystemMessage.put("role", "system");
-                        customSystemMessage.put("content", systemPrompt);
-                        messages.add(customSystemMessage);
-                    }
-                }
-                
-                // 从InterviewLog获取该sessionId下的所有面试记录
-                List<InterviewLog> interviewLogs = interviewLogRepository.findBySessionIdOrderByRoundNumberAsc(sessionId);
-                
-                for (InterviewLog log : interviewLogs) {
-                    // 添加AI问题作为assistant角色
-                    if (log.getQuestionText() != null && !log.getQuestionText().isEmpty()) {
-                        Map<String, String> assistantMessage = new HashMap<>();
-                        assistantMessage.put("role", "assistant");
-                        assistantMessage.put("content", log.getQuestionText());
-                        messages.add(assistantMessage);
-                    }
-                    
-                    // 添加用户回答作为user角色
-                    if (log.getUserAnswerText() != null && !log.getUserAnswerText().isEmpty()) {
-                        Map<String, String> userMessage = new HashMap<>();
-                        userMessage.put("role", "user");
-                        userMessage.put("content", log.getUserAnswerText());
-                        messages.add(userMessage);
-                    }
-                    
-                }
+                ConversationContextService.ConversationContext context = conversationContextService.getContext(sessionId);
+                return promptAssembler.assemble(context, systemPrompt, userPrompt);
             } catch (Exception e) {
                 log.error("获取对话历史失败: {}", e.getMessage(), e);
             }
-        } else {
-            // 如果没有sessionId，但有系统提示词，也添加为系统消息
-            if (StringUtils.hasText(systemPrompt)) {
-                Map<String, String> customSystemMessage = new HashMap<>();
-                customSystemMessage.put("role", "system");
-                customSystemMessage.put("content", systemPrompt);
-                messages.add(customSystemMessage);
-            }
         }
-        
+
+        List<Map<String, String>> messages = new ArrayList<>();
+        // 如果没有sessionId，但有系统提示词，也添加为系统消息
+        if (sessionId == null && StringUtils.hasText(systemPrompt)) {
+            messages.add(ConversationContextService.message("system", systemPrompt));
+        }
+
         // 添加当前用户输入
-        Map<String, String> currentMessage = new HashMap<>();
-        currentMessage.put("role", "user");
-        currentMessage.put("content", userPrompt);
-        messages.add(currentMessage);
-        
-        return messages;
+        messages.add(ConversationContextService.message("user", userPrompt));
+
+        return new PromptAssembler.AssembledPrompt(messages, TokenEstimator.estimateMessages(messages), false);
     }
     
     /**
@@ -193,159 +180,342 @@ public class AiServiceUtils {
      * @param eventName 事件名称
      */
     public void callDeepSeekApiStream(String systemPrompt, String userPrompt, SseEmitter emitter, Consumer<String> contentCallback, Runnable onComplete, String sessionId, String eventName) {
+        callDeepSeekApiStream(systemPrompt, userPrompt, emitter, contentCallback, onComplete, null, sessionId, eventName);
+    }
+
+    /**
+     * 调用DeepSeek API（流式输出方式，支持失败回调）
+     * @param systemPrompt 系统提示词
+     * @param userPrompt 用户提示词
+     * @param emitter SSE发射器，用于流式输出，为null时只通过回调输出内容
+     * @param contentCallback 内容回调函数
+     * @param onComplete 流结束回调函数
+     * @param onError 请求失败回调函数
+     * @param sessionId 会话ID，用于保存元数据和获取对话历史
+     * @param eventName 事件名称
+     */
+    public void callDeepSeekApiStream(String systemPrompt, String userPrompt, SseEmitter emitter, Consumer<String> contentCallback,
+                                      Runnable onComplete, Consumer<Throwable> onError, String sessionId, String eventName) {
+        callDeepSeekApiStream(systemPrompt, userPrompt, emitter, contentCallback, onComplete, onError, null, sessionId, eventName);
+    }
+
+    /**
+     * 调用DeepSeek API（流式输出方式，支持流结束回调）
+     * @param systemPrompt 系统提示词
+     * @param userPrompt 用户提示词
+     * @param emitter SSE发射器，用于流式输出，为null时只通过回调输出内容
+     * @param contentCallback 内容回调函数
+     * @param onComplete 流结束回调函数
+     * @param onError 请求失败回调函数
+     * @param onFinished 流彻底结束（完成、失败、被拒绝或客户端断开取消）后的回调，在onComplete和onError之后执行且只执行一次
+     * @param sessionId 会话ID，用于保存元数据和获取对话历史
+     * @param eventName 事件名称
+     */
+    public void callDeepSeekApiStream(String systemPrompt, String userPrompt, SseEmitter emitter, Consumer<String> contentCallback,
+                                      Runnable onComplete, Consumer<Throwable> onError, Runnable onFinished,
+                                      String sessionId, String eventName) {
         // 标记 emitter 是否已经关闭
         AtomicBoolean emitterClosed = new AtomicBoolean(false);
+        // 报告生成（Markdown和结构化JSON）不使用对话历史，生成结果也不是面试问题
+        boolean reportEvent = isReportEvent(eventName);
 
-        // 心跳线程，保持 SSE 连接活跃，防止云托管环境断开
-        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-        scheduler.scheduleAtFixedRate(() -> {
-            if (!emitterClosed.get()) {
+        // 由共享心跳定时器维持连接，流结束时注销
+        LlmStreamExecutor.StreamHandle streamHandle;
+        try {
+            streamHandle = llmStreamExecutor.register(emitter, emitterClosed);
+        } catch (RejectedExecutionException e) {
+            rejectStream(emitter, emitterClosed, e, onError);
+            if (onFinished != null) onFinished.run();
+            return;
+        }
+        // 所有结束路径最终都会注销流，在注销时通知调用方
+        if (onFinished != null) {
+            streamHandle.onRelease(onFinished);
+        }
+
+        // 已输出内容的估算token数，取消时用于估算节省的token
+        AtomicLong receivedTokens = new AtomicLong();
+        if (emitter != null) {
+            // 客户端断开、超时或连接出错时取消上游请求，不再为无人接收的内容付费
+            Runnable clientGone = () -> {
+                emitterClosed.set(true);
+                cancelUpstream(streamHandle, eventName, sessionId, receivedTokens);
+            };
+            emitter.onTimeout(clientGone);
+            emitter.onError(error -> clientGone.run());
+            emitter.onCompletion(clientGone);
+            streamHandle.onDisconnect(clientGone);
+        }
+
+        try {
+            llmStreamExecutor.submit(streamHandle, () -> {
+                // 排队期间客户端已断开，不再发起请求
+                if (streamHandle.isUpstreamCancelled()) {
+                    return;
+                }
                 try {
-                    emitter.send(SseEmitter.event().name("heartbeat").data(" "));
-                } catch (IOException ignored) {}
-            }
-        }, 0, 5, TimeUnit.SECONDS);
+                    // ======= 原有请求体逻辑 =======
+                    Map<String, Object> requestBody = new HashMap<>();
+                    requestBody.put("model", "deepseek-chat");
+                    requestBody.put("stream", true);
+                    // 在最后一个数据块中返回token用量，用于统计前缀缓存命中
+                    requestBody.put("stream_options", Collections.singletonMap("include_usage", true));
 
-        executorService.submit(() -> {
-            try {
-                // ======= 原有请求体逻辑 =======
-                Map<String, Object> requestBody = new HashMap<>();
-                requestBody.put("model", "deepseek-chat");
-                requestBody.put("stream", true);
-
-                // 获取对话历史，报告生成时也需要system prompt
-                List<Map<String, String>> messages;
-                if ("report".equals(eventName)) {
-                    // 报告生成：使用system prompt和当前user prompt
-                    messages = new ArrayList<>();
+                    // 获取对话历史，报告生成时也需要system prompt
+                    List<Map<String, String>> messages;
+                    int promptTokens;
+                    if (reportEvent) {
+                        // 报告生成：使用system prompt和当前user prompt
+                        messages = new ArrayList<>();
                     
-                    // 添加system prompt
-                    if (StringUtils.hasText(systemPrompt)) {
-                        Map<String, String> systemMessage = new HashMap<>();
-                        systemMessage.put("role", "system");
-                        systemMessage.put("content", systemPrompt);
-                        messages.add(systemMessage);
-                    }
+                        // 添加system prompt
+                        if (StringUtils.hasText(systemPrompt)) {
+                            Map<String, String> systemMessage = new HashMap<>();
+                            systemMessage.put("role", "system");
+                            systemMessage.put("content", systemPrompt);
+                            messages.add(systemMessage);
+                        }
                     
-                    // 添加user prompt
-                    Map<String, String> userMessage = new HashMap<>();
-                    userMessage.put("role", "user");
-                    userMessage.put("content", userPrompt);
-                    messages.add(userMessage);
-                } else {
-                    // 其他情况：获取完整的对话历史
-                    messages = getConversationHistory(sessionId, systemPrompt, userPrompt);
-                }
-                requestBody.put("messages", messages);
-
-                requestBody.put("temperature", 0.7);
-                requestBody.put("max_tokens", 5000);
-
-                log.info("Sending streaming request to DeepSeek API: {}", JSONObject.toJSONString(requestBody));
-
-                // ======= 流式请求变量 =======
-                StringBuilder[] fullQuestionBuffer = {new StringBuilder()};
-                // 移除了元数据处理相关变量
-
-                // ======= WebClient 流式请求 =======
-                webClient.post()
-                        .uri(deepseekApiUrl)
-                        .header("Authorization", "Bearer " + deepseekApiKey)
-                        .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
-                        .bodyValue(JSONObject.toJSONString(requestBody))
-                        .accept(MediaType.TEXT_EVENT_STREAM)
-                        .retrieve()
-                        .bodyToFlux(String.class)
-                        .subscribe(
-                                line -> {
-                                    try {
-                                        if (emitterClosed.get()) return;
-
-                                        if (line == null || line.isEmpty()) return;
-                                        if ("data: [DONE]".equals(line) || "[DONE]".equals(line)) return;
-
-                                        String jsonStr = line;
-                                        if (jsonStr.startsWith("data: ")) {
-                                            jsonStr = jsonStr.substring(6);
-                                        }
-                                        if (jsonStr.startsWith("\"") && jsonStr.endsWith("\"") && jsonStr.length() > 1) {
-                                            jsonStr = jsonStr.substring(1, jsonStr.length() - 1);
-                                        }
+                        // 添加user prompt
+                        Map<String, String> userMessage = new HashMap<>();
+                        userMessage.put("role", "user");
+                        userMessage.put("content", userPrompt);
+                        messages.add(userMessage);
+                        promptTokens = TokenEstimator.estimateMessages(messages);
+                    } else {
+                        // 其他情况：获取按预算组装的对话历史
+                        PromptAssembler.AssembledPrompt assembledPrompt = getConversationHistory(sessionId, systemPrompt, userPrompt);
+                        messages = assembledPrompt.getMessages();
+                        promptTokens = assembledPrompt.getEstimatedTokens();
+                    }
+                    requestBody.put("messages", messages);
+                    promptTokensSummary(eventName).record(promptTokens);
 
-                                        JSONObject json = JSONObject.parseObject(jsonStr);
-                                        if (!json.containsKey("choices")) return;
-                                        JSONObject choice = json.getJSONArray("choices").getJSONObject(0);
-                                        if (!choice.containsKey("delta")) return;
+                    requestBody.put("temperature", 0.7);
+                    requestBody.put("max_tokens", 5000);
+                    if (REPORT_JSON_EVENT.equals(eventName)) {
+                        // 结构化报告：要求模型只输出合法的JSON对象
+                        requestBody.put("response_format", Collections.singletonMap("type", "json_object"));
+                    }
 
-                                        JSONObject delta = choice.getJSONObject("delta");
-                                        if (!delta.containsKey("content")) return;
+                    log.info("Sending streaming request to DeepSeek API, estimated prompt tokens: {}, body: {}",
+                            promptTokens, JSONObject.toJSONString(requestBody));
 
-                                        String content = delta.getString("content");
-                                        if (content == null || content.isEmpty()) return;
+                    // ======= 流式请求变量 =======
+                    StringBuilder[] fullQuestionBuffer = {new StringBuilder()};
+                    // 直接在响应字节上解析delta，不再逐行构建JSON对象
+                    DeepSeekDeltaDecoder deltaDecoder = new DeepSeekDeltaDecoder(content -> {
+                        // 调用内容回调函数（如果不为null）
+                        if (contentCallback != null) {
+                            contentCallback.accept(content);
+                        }
 
-                                        // ======= 保留原业务逻辑，只加 flush =======
-                                        // 调用内容回调函数（如果不为null）
-                                        if (contentCallback != null) {
-                                            contentCallback.accept(content);
+                        receivedTokens.addAndGet(TokenEstimator.estimate(content));
+                        // 直接流式输出内容，不进行元数据处理
+                        if (emitter != null && !emitterClosed.get()) {
+                            emitter.send(SseEmitter.event().name(eventName).data(content));
+                        }
+                        fullQuestionBuffer[0].append(content);
+                    });
+
+                    // ======= WebClient 流式请求 =======
+                    long requestStartNanos = System.nanoTime();
+                    Duration callDeadline = callDeadline(eventName);
+                    long deadlineNanos = requestStartNanos + callDeadline.toNanos();
+                    AtomicBoolean firstByteReceived = new AtomicBoolean(false);
+                    Disposable upstream = deepSeekWebClient.post()
+                            .uri(deepseekApiUrl)
+                            .header("Authorization", "Bearer " + deepseekApiKey)
+                            .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                            .bodyValue(JSONObject.toJSONString(requestBody))
+                            .accept(MediaType.TEXT_EVENT_STREAM)
+                            .retrieve()
+                            .bodyToFlux(DataBuffer.class)
+                            .doOnNext(dataBuffer -> {
+                                if (firstByteReceived.compareAndSet(false, true)) {
+                                    timeToFirstByteTimer.record(System.nanoTime() - requestStartNanos, TimeUnit.NANOSECONDS);
+                                }
+                            })
+                            // 整次调用的截止时间：连接的空闲超时只限制两次数据之间的间隔，持续缓慢返回的流由这里中断
+                            .timeout(Mono.delay(callDeadline),
+                                    dataBuffer -> Mono.delay(Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime()))))
+                            .doOnError(TimeoutException.class, e -> meterRegistry.counter("llm.stream.deadline.exceeded", "event", eventName).increment())
+                            .subscribe(
+                                    dataBuffer -> {
+                                        try {
+                                            if (emitterClosed.get()) return;
+                                            deltaDecoder.feed(dataBuffer);
+                                        } catch (Exception e) {
+                                            // 通常是客户端已断开导致发送失败，停止拉取剩余内容
+                                            log.error("Error processing streaming chunk: {}", e.getMessage(), e);
+                                            cancelUpstream(streamHandle, eventName, sessionId, receivedTokens);
+                                            safeCompleteWithError(emitter, emitterClosed, e);
+                                        } finally {
+                                            DataBufferUtils.release(dataBuffer);
+                                        }
+                                    },
+                                    error -> {
+                                        if (!streamHandle.finishUpstream()) {
+                                            return;
+                                        }
+                                        log.error("Error in streaming response: {}", error.getMessage(), error);
+                                        if (emitter != null && !emitterClosed.get()) {
+                                            try {
+                                                emitter.send(SseEmitter.event().name("error").data("流式响应错误: " + error.getMessage()));
+                                            } catch (IOException ignored) {}
+                                        }
+                                        safeCompleteWithError(emitter, emitterClosed, error);
+                                        try {
+                                            if (onError != null) onError.accept(error);
+                                        } finally {
+                                            llmStreamExecutor.release(streamHandle);
+                                        }
+                                    },
+                                    () -> {
+                                        if (!streamHandle.finishUpstream()) {
+                                            return;
                                         }
-                                        
-                                        if (emitter != null) {
-                                            // 直接流式输出内容，不进行元数据处理
+                                        try {
                                             if (!emitterClosed.get()) {
-                                                emitter.send(SseEmitter.event().name(eventName).data(content));
+                                                deltaDecoder.finish();
                                             }
-                                            fullQuestionBuffer[0].append(content);
+                                        } catch (Exception e) {
+                                            log.error("Error processing last streaming line: {}", e.getMessage(), e);
                                         }
-                                    } catch (Exception e) {
-                                        log.error("Error processing streaming line: {}", e.getMessage(), e);
-                                        safeCompleteWithError(emitter, emitterClosed, e);
-                                    }
-                                },
-                                error -> {
-                                    log.error("Error in streaming response: {}", error.getMessage(), error);
-                                    if (!emitterClosed.get()) {
-                                        try {
-                                            emitter.send(SseEmitter.event().name("error").data("流式响应错误: " + error.getMessage()));
-                                        } catch (IOException ignored) {}
-                                    }
-                                    safeCompleteWithError(emitter, emitterClosed, error);
-                                },
-                                () -> {
-                                    log.info("Streaming response completed");
-
-                                    String fullQuestion = fullQuestionBuffer[0].toString().trim();
-                                    if (!fullQuestion.isEmpty() && !"report".equals(eventName)) {
-                                        saveQuestionAsync(fullQuestion, sessionId);
-                                    }
+                                        log.info("Streaming response completed, finish_reason: {}", deltaDecoder.getFinishReason());
+                                        recordUsage(eventName, deltaDecoder.getUsage(), promptTokens);
 
-                                    if (onComplete != null) onComplete.run();
+                                        String fullQuestion = fullQuestionBuffer[0].toString().trim();
+                                        if (!fullQuestion.isEmpty() && !reportEvent) {
+                                            saveQuestionAsync(fullQuestion, sessionId, promptTokens);
+                                        }
 
-                                    safeComplete(emitter, emitterClosed);
-                                    scheduler.shutdown();
-                                }
-                        );
+                                        try {
+                                            if (onComplete != null) onComplete.run();
 
-            } catch (Exception e) {
-                log.error("Error setting up streaming request: {}", e.getMessage(), e);
-                if (!emitterClosed.get()) {
+                                            safeComplete(emitter, emitterClosed);
+                                        } finally {
+                                            llmStreamExecutor.release(streamHandle);
+                                        }
+                                    }
+                            );
+                    streamHandle.bindUpstream(upstream);
+
+                } catch (Exception e) {
+                    streamHandle.finishUpstream();
+                    log.error("Error setting up streaming request: {}", e.getMessage(), e);
+                    if (emitter != null && !emitterClosed.get()) {
+                        try {
+                            emitter.send(SseEmitter.event().name("error").data("设置流式请求错误: " + e.getMessage()));
+                        } catch (IOException ignored) {}
+                    }
+                    safeCompleteWithError(emitter, emitterClosed, e);
                     try {
-                        emitter.send(SseEmitter.event().name("error").data("设置流式请求错误: " + e.getMessage()));
-                    } catch (IOException ignored) {}
+                        if (onError != null) onError.accept(e);
+                    } finally {
+                        llmStreamExecutor.release(streamHandle);
+                    }
                 }
-                safeCompleteWithError(emitter, emitterClosed, e);
-                scheduler.shutdown();
+            });
+        } catch (RejectedExecutionException e) {
+            streamHandle.finishUpstream();
+            try {
+                rejectStream(emitter, emitterClosed, e, onError);
+            } finally {
+                llmStreamExecutor.release(streamHandle);
             }
-        });
+        }
+    }
+
+    /**
+     * 单次调用的总截止时间，报告生成的输出较长，单独配置
+     */
+    private Duration callDeadline(String eventName) {
+        return Duration.ofSeconds(isReportEvent(eventName) ? reportCallDeadlineSeconds : callDeadlineSeconds);
+    }
+
+    private static boolean isReportEvent(String eventName) {
+        return "report".equals(eventName) || REPORT_JSON_EVENT.equals(eventName);
+    }
+
+    /**
+     * 取消上游请求并释放流，统计按历史平均生成长度估算节省的token数
+     */
+    private void cancelUpstream(LlmStreamExecutor.StreamHandle streamHandle, String eventName, String sessionId, AtomicLong receivedTokens) {
+        if (!streamHandle.cancelUpstream()) {
+            return;
+        }
+        llmStreamExecutor.release(streamHandle);
+        long received = receivedTokens.get();
+        AtomicLong average = averageCompletionTokens.get(eventName);
+        long savedTokens = average != null ? Math.max(0, average.get() - received) : 0;
+        meterRegistry.counter("llm.stream.cancelled", "event", eventName).increment();
+        meterRegistry.counter("llm.stream.cancelled.received.tokens", "event", eventName).increment(received);
+        meterRegistry.counter("llm.stream.cancelled.saved.tokens", "event", eventName).increment(savedTokens);
+        log.info("客户端已断开，取消DeepSeek流式请求，会话ID: {}，事件: {}，已接收token: {}，估算节省token: {}",
+                sessionId, eventName, received, savedTokens);
+    }
+
+    /**
+     * 记录接口返回的token用量和前缀缓存命中情况
+     */
+    private void recordUsage(String eventName, DeepSeekDeltaDecoder.Usage usage, int estimatedPromptTokens) {
+        if (usage == null) {
+            return;
+        }
+        long hitTokens = usage.getCacheHitTokens();
+        long missTokens = usage.getCacheMissTokens();
+        if (hitTokens >= 0) {
+            meterRegistry.counter("llm.prompt.cache.hit.tokens", "event", eventName).increment(hitTokens);
+        }
+        if (missTokens >= 0) {
+            meterRegistry.counter("llm.prompt.cache.miss.tokens", "event", eventName).increment(missTokens);
+        }
+        if (hitTokens >= 0 && hitTokens + missTokens > 0) {
+            DistributionSummary.builder("llm.prompt.cache.hit.ratio")
+                    .description("DeepSeek请求提示词前缀缓存命中比例")
+                    .tag("event", eventName)
+                    .register(meterRegistry)
+                    .record((double) hitTokens / (hitTokens + missTokens));
+        }
+        if (usage.getCompletionTokens() >= 0) {
+            meterRegistry.counter("llm.completion.tokens", "event", eventName).increment(usage.getCompletionTokens());
+            // 按事件类型维护生成长度的指数移动平均，用于估算取消请求节省的token
+            long completionTokens = usage.getCompletionTokens();
+            averageCompletionTokens.computeIfAbsent(eventName, key -> new AtomicLong(completionTokens))
+                    .updateAndGet(average -> (average * 7 + completionTokens) / 8);
+        }
+        log.info("DeepSeek token用量，事件: {}，提示词: {}（估算: {}），缓存命中: {}，未命中: {}，生成: {}",
+                eventName, usage.getPromptTokens(), estimatedPromptTokens, hitTokens, missTokens, usage.getCompletionTokens());
+    }
+
+    /**
+     * 流式请求被拒绝时通知客户端
+     */
+    private void rejectStream(SseEmitter emitter, AtomicBoolean emitterClosed, RejectedExecutionException e, Consumer<Throwable> onError) {
+        log.warn("流式请求被拒绝: {}", e.getMessage());
+        if (onError != null) {
+            onError.accept(e);
+        }
+        if (emitter == null) {
+            return;
+        }
+        if (!emitterClosed.get()) {
+            try {
+                emitter.send(SseEmitter.event().name("error").data("当前面试人数较多，请稍后重试"));
+            } catch (IOException ignored) {}
+        }
+        safeCompleteWithError(emitter, emitterClosed, e);
     }
 
     private void safeComplete(SseEmitter emitter, AtomicBoolean closedFlag) {
-        if (closedFlag.compareAndSet(false, true)) {
+        if (emitter != null && closedFlag.compareAndSet(false, true)) {
             emitter.complete();
         }
     }
 
     private void safeCompleteWithError(SseEmitter emitter, AtomicBoolean closedFlag, Throwable e) {
-        if (closedFlag.compareAndSet(false, true)) {
+        if (emitter != null && closedFlag.compareAndSet(false, true)) {
             emitter.completeWithError(e);
         }
     }
@@ -355,36 +525,59 @@ public class AiServiceUtils {
      *
      * @param questionText 完整的问题文本
      * @param sessionId 会话ID
+     * @param promptTokens 生成该问题时提示词的估算token数
      */
-    private void saveQuestionAsync(String questionText, String sessionId) {
-        executorService.submit(() -> {
+    private void saveQuestionAsync(String questionText, String sessionId, int promptTokens) {
+        Runnable saveTask = () -> {
             try {
-                // 获取最新的面试日志，更新问题文本
-                // 找到轮次号最大且问题文本为空的记录（这是刚创建的新问题记录）
-                List<InterviewLog> logs = interviewLogRepository.findBySessionIdOrderByRoundNumberDesc(sessionId);
-                if (!logs.isEmpty()) {
-                    InterviewLog latestLog = null;
+                // 优先从对话上下文定位刚创建的新问题记录，避免读取整场面试的日志
+                InterviewLog latestLog = null;
+                Integer pendingRound = conversationContextService.getContext(sessionId).getPendingQuestionRound();
+                if (pendingRound != null) {
+                    latestLog = interviewLogRepository.findBySessionIdAndRoundNumber(sessionId, pendingRound).orElse(null);
+                }
+
+                if (latestLog == null) {
+                    // 找到轮次号最大且问题文本为空的记录（这是刚创建的新问题记录）
+                    List<InterviewLog> logs = interviewLogRepository.findBySessionIdOrderByRoundNumberDesc(sessionId);
+                    if (logs.isEmpty()) {
+                        return;
+                    }
                     for (InterviewLog log : logs) {
                         if (!StringUtils.hasText(log.getQuestionText())) {
                             latestLog = log;
                             break;
                         }
                     }
-                    
+
                     // 如果没有找到问题文本为空的记录，就使用最新的记录
                     if (latestLog == null) {
                         latestLog = logs.get(0);
                     }
-                    
-                    latestLog.setQuestionText(questionText);
-                    
-                    // 保存到数据库
-                    interviewLogRepository.save(latestLog);
-                    log.info("完整问题保存成功，会话ID：{}，问题文本：{}", sessionId, questionText);
                 }
+
+                latestLog.setQuestionText(questionText);
+                latestLog.setPromptTokens(promptTokens);
+
+                // 保存到数据库
+                interviewLogRepository.save(latestLog);
+                conversationContextService.onQuestionSaved(sessionId, latestLog.getRoundNumber(), questionText);
+                log.info("完整问题保存成功，会话ID：{}，问题文本：{}", sessionId, questionText);
             } catch (Exception e) {
                 log.error("保存完整问题失败：{}", e.getMessage(), e);
             }
-        });
+        };
+        try {
+            interviewTaskScheduler.submit("session:" + sessionId, "save-question", saveTask);
+        } catch (RejectedExecutionException e) {
+            // 问题文本不能丢失，排队已满时改由boundedElastic执行；当前是Netty的IO线程，不能在这里执行数据库写入
+            log.warn("保存问题任务被拒绝，改由boundedElastic执行，会话ID：{}", sessionId);
+            meterRegistry.counter("interview.save-question.fallback").increment();
+            try {
+                Schedulers.boundedElastic().schedule(saveTask);
+            } catch (RejectedExecutionException fallbackRejected) {
+                log.error("保存问题任务无法执行，会话ID：{}，问题文本：{}", sessionId, questionText);
+            }
+        }
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.aicv.airesume.utils;
 
 import com.alibaba.fastjson.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
@@ -19,7 +20,8 @@ public class WechatUtils {
     @Value("${wechat.app-secret}")
     private String appSecret;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Autowired
+    private RestTemplate restTemplate;
 
     /**
      * 微信登录，获取openId
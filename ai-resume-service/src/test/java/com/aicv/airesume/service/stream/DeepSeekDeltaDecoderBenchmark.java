@@ -0,0 +1,109 @@
+package com.aicv.airesume.service.stream;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流式响应解码基准：DeepSeekDeltaDecoder 与原来的逐行字符串 + fastjson 解析对比
+ * 输入为合成的500个delta的响应，按不同大小切分为数据块。
+ * 运行：mvn test-compile 后执行本类的 main 方法（测试classpath）。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeepSeekDeltaDecoderBenchmark {
+
+    @Param({"64", "1024"})
+    public int chunkSize;
+
+    @Param({"false", "true"})
+    public boolean escapeNonAscii;
+
+    private List<byte[]> chunks;
+
+    @Setup
+    public void setUp() {
+        byte[] transcript = DeepSeekTranscripts.transcript(DeepSeekTranscripts.contents(500, 42L), escapeNonAscii);
+        chunks = DeepSeekTranscripts.chunks(transcript, chunkSize);
+    }
+
+    @Benchmark
+    public void deltaDecoder(Blackhole blackhole) throws IOException {
+        DeepSeekDeltaDecoder decoder = new DeepSeekDeltaDecoder(blackhole::consume);
+        for (byte[] chunk : chunks) {
+            decoder.feed(chunk, 0, chunk.length);
+        }
+        decoder.finish();
+        blackhole.consume(decoder.getUsage());
+    }
+
+    /**
+     * 原实现：按行解码为String（对应 bodyToFlux(String.class) 的行切分），每行用fastjson构建对象树后取 delta.content
+     */
+    @Benchmark
+    public void fastjsonLines(Blackhole blackhole) {
+        ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        for (byte[] chunk : chunks) {
+            int lineStart = 0;
+            for (int i = 0; i < chunk.length; i++) {
+                if (chunk[i] == '\n') {
+                    pending.write(chunk, lineStart, i - lineStart);
+                    parseLine(new String(pending.toByteArray(), StandardCharsets.UTF_8), blackhole);
+                    pending.reset();
+                    lineStart = i + 1;
+                }
+            }
+            pending.write(chunk, lineStart, chunk.length - lineStart);
+        }
+    }
+
+    private static void parseLine(String line, Blackhole blackhole) {
+        if (line.isEmpty() || "data: [DONE]".equals(line)) {
+            return;
+        }
+        String jsonStr = line.startsWith("data: ") ? line.substring(6) : line;
+        JSONObject json = JSONObject.parseObject(jsonStr);
+        JSONArray choices = json.getJSONArray("choices");
+        if (choices == null || choices.isEmpty()) {
+            return;
+        }
+        JSONObject delta = choices.getJSONObject(0).getJSONObject("delta");
+        if (delta == null) {
+            return;
+        }
+        String content = delta.getString("content");
+        if (content != null && !content.isEmpty()) {
+            blackhole.consume(content);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DeepSeekDeltaDecoderBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
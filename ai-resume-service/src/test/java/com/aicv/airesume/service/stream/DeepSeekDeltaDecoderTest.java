@@ -0,0 +1,156 @@
+package com.aicv.airesume.service.stream;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * DeepSeekDeltaDecoder测试：数据块在任意字节处切分（UTF-8字符、\\uXXXX转义、data:前缀中间）时结果不变，
+ * 并与fastjson逐行解析的结果对照
+ */
+class DeepSeekDeltaDecoderTest {
+
+    private static final class Collector implements DeepSeekDeltaDecoder.DeltaListener {
+        private final List<String> contents = new ArrayList<>();
+        private final List<String> finishReasons = new ArrayList<>();
+
+        @Override
+        public void onContent(String content) {
+            contents.add(content);
+        }
+
+        @Override
+        public void onFinish(String finishReason) {
+            finishReasons.add(finishReason);
+        }
+    }
+
+    private static Collector decode(List<byte[]> chunks) throws IOException {
+        Collector collector = new Collector();
+        DeepSeekDeltaDecoder decoder = new DeepSeekDeltaDecoder(collector);
+        for (byte[] chunk : chunks) {
+            decoder.feed(chunk, 0, chunk.length);
+        }
+        decoder.finish();
+        return collector;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void extractsContentFinishReasonAndUsage() throws IOException {
+        List<String> contents = DeepSeekTranscripts.contents(50, 1L);
+        Collector collector = new Collector();
+        DeepSeekDeltaDecoder decoder = new DeepSeekDeltaDecoder(collector);
+        byte[] transcript = DeepSeekTranscripts.transcript(contents, false);
+        decoder.feed(transcript, 0, transcript.length);
+        decoder.finish();
+
+        assertEquals(contents, collector.contents);
+        assertEquals("stop", decoder.getFinishReason());
+        DeepSeekDeltaDecoder.Usage usage = decoder.getUsage();
+        assertNotNull(usage);
+        assertEquals(DeepSeekTranscripts.PROMPT_TOKENS, usage.getPromptTokens());
+        assertEquals(DeepSeekTranscripts.COMPLETION_TOKENS, usage.getCompletionTokens());
+        assertEquals(DeepSeekTranscripts.CACHE_HIT_TOKENS, usage.getCacheHitTokens());
+        assertEquals(DeepSeekTranscripts.CACHE_MISS_TOKENS, usage.getCacheMissTokens());
+    }
+
+    @Test
+    void byteByByteFeedMatchesWholeFeed() throws IOException {
+        // 每个字节一个数据块：所有多字节UTF-8字符、\\uXXXX转义和 data: 前缀都会被切断
+        for (boolean escapeNonAscii : new boolean[]{false, true}) {
+            List<String> contents = DeepSeekTranscripts.contents(200, 2L);
+            byte[] transcript = DeepSeekTranscripts.transcript(contents, escapeNonAscii);
+            Collector collector = decode(DeepSeekTranscripts.chunks(transcript, 1));
+            assertEquals(contents, collector.contents);
+            assertEquals(1, collector.finishReasons.size());
+        }
+    }
+
+    @Test
+    void everySplitPointOfSingleFrame() throws IOException {
+        String frame = "data: {\"choices\":[{\"delta\":{\"content\":\"中文😀\\u4e2d\\ud83d\\ude00\\\"\\\\\\n\"}}]}\n\n";
+        byte[] transcript = bytes(frame);
+        for (int split = 0; split <= transcript.length; split++) {
+            List<byte[]> chunks = new ArrayList<>();
+            byte[] first = new byte[split];
+            byte[] second = new byte[transcript.length - split];
+            System.arraycopy(transcript, 0, first, 0, split);
+            System.arraycopy(transcript, split, second, 0, second.length);
+            chunks.add(first);
+            chunks.add(second);
+            Collector collector = decode(chunks);
+            assertEquals(1, collector.contents.size(), "split at " + split);
+            assertEquals("中文😀中😀\"\\\n", collector.contents.get(0), "split at " + split);
+        }
+    }
+
+    @Test
+    void handlesCrlfCommentsDoneAndMissingTrailingNewline() throws IOException {
+        String sse = ": keep-alive\r\n\r\n"
+                + "data: {\"choices\":[{\"delta\":{\"role\":\"assistant\",\"content\":\"\"}}]}\r\n\r\n"
+                + "data:{\"choices\":[{\"delta\":{\"content\":\"a\"}}]}\r\n"
+                + "event: ignored\n"
+                + "data: [DONE]\n"
+                + "data: {\"choices\":[{\"delta\":{\"content\":\"b\"},\"finish_reason\":\"length\"}]}";
+        Collector collector = new Collector();
+        DeepSeekDeltaDecoder decoder = new DeepSeekDeltaDecoder(collector);
+        byte[] bytes = bytes(sse);
+        decoder.feed(bytes, 0, bytes.length);
+        decoder.finish();
+
+        List<String> expected = new ArrayList<>();
+        expected.add("a");
+        expected.add("b");
+        assertEquals(expected, collector.contents);
+        assertEquals("length", decoder.getFinishReason());
+        assertNull(decoder.getUsage());
+    }
+
+    @Test
+    void ignoresContentOutsideDelta() throws IOException {
+        String sse = "data: {\"content\":\"top\",\"choices\":[{\"message\":{\"content\":\"message\"},"
+                + "\"delta\":{\"content\":\"delta\",\"extra\":{\"content\":\"nested\"}}}]}\n";
+        Collector collector = decode(DeepSeekTranscripts.chunks(bytes(sse), 7));
+        List<String> expected = new ArrayList<>();
+        expected.add("delta");
+        assertEquals(expected, collector.contents);
+    }
+
+    @Test
+    void matchesFastjsonOnSyntheticTranscript() throws IOException {
+        for (boolean escapeNonAscii : new boolean[]{false, true}) {
+            byte[] transcript = DeepSeekTranscripts.transcript(DeepSeekTranscripts.contents(500, 3L), escapeNonAscii);
+            List<String> expected = new ArrayList<>();
+            for (String line : new String(transcript, StandardCharsets.UTF_8).split("\n")) {
+                if (!line.startsWith("data: ") || line.equals("data: [DONE]")) {
+                    continue;
+                }
+                JSONArray choices = JSONObject.parseObject(line.substring(6)).getJSONArray("choices");
+                if (choices.isEmpty()) {
+                    continue;
+                }
+                String content = choices.getJSONObject(0).getJSONObject("delta").getString("content");
+                if (content != null && !content.isEmpty()) {
+                    expected.add(content);
+                }
+            }
+            for (int chunkSize : new int[]{3, 64, 1500}) {
+                assertEquals(expected, decode(DeepSeekTranscripts.chunks(transcript, chunkSize)).contents,
+                        "chunk size " + chunkSize + ", escapeNonAscii " + escapeNonAscii);
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.aicv.airesume.service.stream;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 合成的DeepSeek流式响应，用于解码器的测试和基准测试
+ * 格式与接口返回一致：每个delta一行 data: JSON，最后是 finish_reason、usage 和 [DONE]。
+ */
+final class DeepSeekTranscripts {
+
+    private static final String[] FRAGMENTS = {
+            "请介绍一下", "你在项目中", "如何设计", "分布式锁", "的过期时间？", "Redis", " 和 ", "ZooKeeper",
+            "各有什么优缺点", "\n\n", "1. ", "**缓存穿透**", "\"引号\"", "反斜杠\\", "制表\t", "😀", "𠀀",
+            "é", "HashMap", "的扩容过程", "。", "，", " ", "JVM"
+    };
+
+    static final int PROMPT_TOKENS = 1200;
+    static final int COMPLETION_TOKENS = 480;
+    static final int CACHE_HIT_TOKENS = 1024;
+    static final int CACHE_MISS_TOKENS = 176;
+
+    private DeepSeekTranscripts() {
+    }
+
+    /**
+     * 生成count个delta内容，同一seed结果相同
+     */
+    static List<String> contents(int count, long seed) {
+        Random random = new Random(seed);
+        List<String> contents = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder content = new StringBuilder();
+            int parts = 1 + random.nextInt(3);
+            for (int p = 0; p < parts; p++) {
+                content.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            contents.add(content.toString());
+        }
+        return contents;
+    }
+
+    /**
+     * 生成完整的SSE响应字节
+     * @param escapeNonAscii 非ASCII字符是否以\\uXXXX转义输出（DeepSeek两种形式都可能出现）
+     */
+    static byte[] transcript(List<String> contents, boolean escapeNonAscii) {
+        StringBuilder sse = new StringBuilder();
+        for (String content : contents) {
+            sse.append("data: {\"id\":\"chatcmpl-1\",\"object\":\"chat.completion.chunk\",\"created\":1700000000,")
+                    .append("\"model\":\"deepseek-chat\",\"choices\":[{\"index\":0,\"delta\":{\"content\":\"")
+                    .append(escape(content, escapeNonAscii))
+                    .append("\"},\"logprobs\":null,\"finish_reason\":null}]}\n\n");
+        }
+        sse.append("data: {\"id\":\"chatcmpl-1\",\"choices\":[{\"index\":0,\"delta\":{\"content\":\"\"},")
+                .append("\"finish_reason\":\"stop\"}]}\n\n");
+        sse.append("data: {\"id\":\"chatcmpl-1\",\"choices\":[],\"usage\":{\"prompt_tokens\":").append(PROMPT_TOKENS)
+                .append(",\"completion_tokens\":").append(COMPLETION_TOKENS)
+                .append(",\"total_tokens\":").append(PROMPT_TOKENS + COMPLETION_TOKENS)
+                .append(",\"prompt_tokens_details\":{\"cached_tokens\":").append(CACHE_HIT_TOKENS)
+                .append("},\"prompt_cache_hit_tokens\":").append(CACHE_HIT_TOKENS)
+                .append(",\"prompt_cache_miss_tokens\":").append(CACHE_MISS_TOKENS).append("}}\n\n");
+        sse.append("data: [DONE]\n\n");
+        return sse.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 按固定大小切分为数据块，切分点不考虑行和字符边界
+     */
+    static List<byte[]> chunks(byte[] transcript, int chunkSize) {
+        List<byte[]> chunks = new ArrayList<>();
+        for (int offset = 0; offset < transcript.length; offset += chunkSize) {
+            int length = Math.min(chunkSize, transcript.length - offset);
+            byte[] chunk = new byte[length];
+            System.arraycopy(transcript, offset, chunk, 0, length);
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    static String escape(String content, boolean escapeNonAscii) {
+        StringBuilder escaped = new StringBuilder(content.length() + 16);
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            switch (c) {
+                case '"': escaped.append("\\\""); break;
+                case '\\': escaped.append("\\\\"); break;
+                case '\n': escaped.append("\\n"); break;
+                case '\r': escaped.append("\\r"); break;
+                case '\t': escaped.append("\\t"); break;
+                default:
+                    if (c < 0x20 || (escapeNonAscii && c > 0x7E)) {
+                        escaped.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+                    break;
+            }
+        }
+        return escaped.toString();
+    }
+}